@@ -0,0 +1,31 @@
+/**
+ * Graph.addGraph of two fresh graphs, the ids of the added graph are shifted
+ * by half of the vertices, so half of its vertices are new to the host.
+ */
+public class AddGraphWorkload implements graphbench.Workload {
+
+    private GraphSnapshot hostSnapshot;
+    private GraphSnapshot guestSnapshot;
+    private Graph host;
+    private Graph guest;
+
+    @Override
+    public void setUp(int vertexCount, double density, long seed) {
+        hostSnapshot = BenchmarkGraphs.snapshot(vertexCount, density, seed);
+        GraphSnapshot other = BenchmarkGraphs.snapshot(vertexCount, density, seed + 1);
+        int shift = vertexCount / 2;
+        guestSnapshot = new GraphSnapshot(v -> "v" + (v + 1 + shift), null, null,
+                other.offsets, other.targets, other.weights, other.heights);
+    }
+
+    @Override
+    public void reset() {
+        host = hostSnapshot.toGraph("A");
+        guest = guestSnapshot.toGraph("B");
+    }
+
+    @Override
+    public Object run() {
+        return host.addGraph(guest);
+    }
+}
@@ -0,0 +1,37 @@
+import java.util.SplittableRandom;
+
+/**
+ * Input graphs of the benchmarks. All graphs are connected simple graphs of
+ * RandomGraphGenerator, so the same parameters always give the same graph.
+ */
+class BenchmarkGraphs {
+
+    private BenchmarkGraphs() {
+    }
+
+    /**
+     * @param vertexCount number of vertices
+     * @param density     part of all possible edges, at least n - 1 edges are created
+     * @return amount of edges of the graph
+     */
+    static int edgeCount(int vertexCount, double density) {
+        long possible = (long) vertexCount * (vertexCount - 1) / 2;
+        long m = Math.max(vertexCount - 1, Math.round(density * possible));
+        if (m > Integer.MAX_VALUE / 2) throw new IllegalArgumentException("Too many edges: " + m);
+        return (int) m;
+    }
+
+    static GraphSnapshot snapshot(int vertexCount, double density, long seed) {
+        return new RandomGraphGenerator(seed).simpleGraph(vertexCount, edgeCount(vertexCount, density));
+    }
+
+    /**
+     * Two different vertices chosen with the seed, as vertex indexes.
+     */
+    static int[] endpoints(int vertexCount, long seed) {
+        SplittableRandom random = new SplittableRandom(~seed);
+        int from = random.nextInt(vertexCount);
+        int to = random.nextInt(vertexCount - 1);
+        return new int[]{from, to < from ? to : to + 1};
+    }
+}
@@ -0,0 +1,23 @@
+/**
+ * HeightPath.getOptimizedPath on a snapshot in mode ENUMERATION.
+ */
+public class HeightPathEnumerationWorkload implements graphbench.Workload {
+
+    private final HeightPath heightPath = new HeightPath();
+    private GraphSnapshot snapshot;
+    private String startId;
+    private String destinationId;
+
+    @Override
+    public void setUp(int vertexCount, double density, long seed) {
+        snapshot = BenchmarkGraphs.snapshot(vertexCount, density, seed);
+        int[] endpoints = BenchmarkGraphs.endpoints(vertexCount, seed);
+        startId = snapshot.vertexId(endpoints[0]);
+        destinationId = snapshot.vertexId(endpoints[1]);
+    }
+
+    @Override
+    public Object run() {
+        return heightPath.getOptimizedPath(snapshot, startId, destinationId, HeightPath.Mode.ENUMERATION);
+    }
+}
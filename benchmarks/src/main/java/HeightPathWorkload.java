@@ -0,0 +1,35 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * HeightPath.getOptimizedPath on the linked graph. The method prints its own
+ * timing, so System.out is muted while the benchmark runs.
+ */
+public class HeightPathWorkload implements graphbench.Workload {
+
+    private final HeightPath heightPath = new HeightPath();
+    private PrintStream out;
+    private Graph graph;
+    private String startId;
+    private String destinationId;
+
+    @Override
+    public void setUp(int vertexCount, double density, long seed) {
+        graph = BenchmarkGraphs.snapshot(vertexCount, density, seed).toGraph("G");
+        int[] endpoints = BenchmarkGraphs.endpoints(vertexCount, seed);
+        startId = "v" + (endpoints[0] + 1);
+        destinationId = "v" + (endpoints[1] + 1);
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Override
+    public void tearDown() {
+        System.setOut(out);
+    }
+
+    @Override
+    public Object run() {
+        return heightPath.getOptimizedPath(graph, startId, destinationId);
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * RandomGraphGenerator.simpleGraph in the calling thread.
+ */
+public class RandomGraphGeneratorWorkload implements graphbench.Workload {
+
+    private RandomGraphGenerator generator;
+    private int vertexCount;
+    private int edgeCount;
+
+    @Override
+    public void setUp(int vertexCount, double density, long seed) {
+        this.generator = new RandomGraphGenerator(seed);
+        this.vertexCount = vertexCount;
+        this.edgeCount = BenchmarkGraphs.edgeCount(vertexCount, density);
+    }
+
+    @Override
+    public Object run() {
+        return generator.simpleGraph(vertexCount, edgeCount);
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * Graph.createRandomSimpleGraph. It takes its random numbers from Math.random,
+ * so only the heights depend on the seed.
+ */
+public class RandomSimpleGraphWorkload implements graphbench.Workload {
+
+    private int vertexCount;
+    private int edgeCount;
+    private long seed;
+
+    @Override
+    public void setUp(int vertexCount, double density, long seed) {
+        this.vertexCount = vertexCount;
+        this.edgeCount = BenchmarkGraphs.edgeCount(vertexCount, density);
+        this.seed = seed;
+    }
+
+    @Override
+    public Object run() {
+        Graph graph = new Graph("R");
+        graph.setHeightProvider(HeightProvider.randomWalk(seed));
+        graph.createRandomSimpleGraph(vertexCount, edgeCount);
+        return graph;
+    }
+}
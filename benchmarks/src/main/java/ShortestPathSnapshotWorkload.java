@@ -0,0 +1,23 @@
+/**
+ * ShortestPath.getPath on a snapshot, search contexts come from the pool of the snapshot.
+ */
+public class ShortestPathSnapshotWorkload implements graphbench.Workload {
+
+    private final ShortestPath shortestPath = new ShortestPath();
+    private GraphSnapshot snapshot;
+    private Vertex from;
+    private Vertex to;
+
+    @Override
+    public void setUp(int vertexCount, double density, long seed) {
+        snapshot = BenchmarkGraphs.snapshot(vertexCount, density, seed);
+        int[] endpoints = BenchmarkGraphs.endpoints(vertexCount, seed);
+        from = snapshot.getVertex(endpoints[0]);
+        to = snapshot.getVertex(endpoints[1]);
+    }
+
+    @Override
+    public Object run() {
+        return shortestPath.getPath(from, to, true, snapshot);
+    }
+}
@@ -0,0 +1,23 @@
+/**
+ * ShortestPath.getPath on the linked graph.
+ */
+public class ShortestPathWorkload implements graphbench.Workload {
+
+    private final ShortestPath shortestPath = new ShortestPath();
+    private Graph graph;
+    private Vertex from;
+    private Vertex to;
+
+    @Override
+    public void setUp(int vertexCount, double density, long seed) {
+        graph = BenchmarkGraphs.snapshot(vertexCount, density, seed).toGraph("G");
+        int[] endpoints = BenchmarkGraphs.endpoints(vertexCount, seed);
+        from = graph.findVertex("v" + (endpoints[0] + 1));
+        to = graph.findVertex("v" + (endpoints[1] + 1));
+    }
+
+    @Override
+    public Object run() {
+        return shortestPath.getPath(from, to, true, graph);
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * Matrix.transitiveClosureFloydWarshall on a copy of the bit matrix of the graph.
+ */
+public class TransitiveClosureWorkload implements graphbench.Workload {
+
+    private Matrix matrix;
+    private long[][] adjacency;
+    private long[][] rows;
+
+    @Override
+    public void setUp(int vertexCount, double density, long seed) {
+        matrix = new Matrix(BenchmarkGraphs.snapshot(vertexCount, density, seed));
+        adjacency = matrix.createBitMatrix();
+        rows = new long[adjacency.length][];
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < adjacency.length; i++) {
+            rows[i] = adjacency[i].clone();
+        }
+    }
+
+    @Override
+    public Object run() {
+        matrix.transitiveClosureFloydWarshall(rows);
+        return rows;
+    }
+}
@@ -0,0 +1,56 @@
+package graphbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Graph.addGraph of two graphs that share half of their vertex ids. The
+ * graphs are built again before every operation, outside of the measured time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddGraphBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int vertexCount;
+
+    @Param({"0.0001", "0.001"})
+    double density;
+
+    @Param({"1", "2"})
+    long seed;
+
+    private Workload addGraph;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        addGraph = Workload.create("AddGraphWorkload");
+        addGraph.setUp(vertexCount, density, seed);
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        addGraph.reset();
+    }
+
+    @Benchmark
+    public Object addGraph() {
+        return addGraph.run();
+    }
+}
@@ -0,0 +1,73 @@
+package graphbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HeightPath.getOptimizedPath between two random vertices, on the linked
+ * graph and on a snapshot with both search modes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeightPathBenchmark {
+
+    @Param({"1000", "10000"})
+    int vertexCount;
+
+    @Param({"0.001", "0.01"})
+    double density;
+
+    @Param({"1", "2"})
+    long seed;
+
+    private Workload graph;
+    private Workload enumeration;
+    private Workload minimax;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = Workload.create("HeightPathWorkload");
+        graph.setUp(vertexCount, density, seed);
+        enumeration = Workload.create("HeightPathEnumerationWorkload");
+        enumeration.setUp(vertexCount, density, seed);
+        minimax = Workload.create("HeightPathMinimaxWorkload");
+        minimax.setUp(vertexCount, density, seed);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graph.tearDown();
+    }
+
+    @Benchmark
+    public Object graph() {
+        return graph.run();
+    }
+
+    @Benchmark
+    public Object snapshotEnumeration() {
+        return enumeration.run();
+    }
+
+    @Benchmark
+    public Object snapshotMinimax() {
+        return minimax.run();
+    }
+}
@@ -0,0 +1,59 @@
+package graphbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Graph.createRandomSimpleGraph and, for comparison, RandomGraphGenerator.simpleGraph
+ * with the same amount of vertices and edges.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RandomGraphBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int vertexCount;
+
+    @Param({"0.0001", "0.001"})
+    double density;
+
+    @Param({"1", "2"})
+    long seed;
+
+    private Workload linked;
+    private Workload generator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        linked = Workload.create("RandomSimpleGraphWorkload");
+        linked.setUp(vertexCount, density, seed);
+        generator = Workload.create("RandomGraphGeneratorWorkload");
+        generator.setUp(vertexCount, density, seed);
+    }
+
+    @Benchmark
+    public Object createRandomSimpleGraph() {
+        return linked.run();
+    }
+
+    @Benchmark
+    public Object generatorSimpleGraph() {
+        return generator.run();
+    }
+}
@@ -0,0 +1,59 @@
+package graphbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ShortestPath.getPath between two random vertices, on the linked graph
+ * (a snapshot is taken on every call) and on a snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShortestPathBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int vertexCount;
+
+    @Param({"0.0001", "0.001"})
+    double density;
+
+    @Param({"1", "2"})
+    long seed;
+
+    private Workload graph;
+    private Workload snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = Workload.create("ShortestPathWorkload");
+        graph.setUp(vertexCount, density, seed);
+        snapshot = Workload.create("ShortestPathSnapshotWorkload");
+        snapshot.setUp(vertexCount, density, seed);
+    }
+
+    @Benchmark
+    public Object graph() {
+        return graph.run();
+    }
+
+    @Benchmark
+    public Object snapshot() {
+        return snapshot.run();
+    }
+}
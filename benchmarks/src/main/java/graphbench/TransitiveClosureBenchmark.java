@@ -0,0 +1,57 @@
+package graphbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matrix.transitiveClosureFloydWarshall on the bit matrix of the graph. The
+ * closure works in place, so the matrix is copied before every operation,
+ * outside of the measured time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransitiveClosureBenchmark {
+
+    @Param({"256", "1024", "4096"})
+    int vertexCount;
+
+    @Param({"0.001", "0.01"})
+    double density;
+
+    @Param({"1", "2"})
+    long seed;
+
+    private Workload closure;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        closure = Workload.create("TransitiveClosureWorkload");
+        closure.setUp(vertexCount, density, seed);
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        closure.reset();
+    }
+
+    @Benchmark
+    public Object floydWarshall() {
+        return closure.run();
+    }
+}
@@ -0,0 +1,45 @@
+package graphbench;
+
+/**
+ * Measured operation on a graph. The graph classes are in the default
+ * package, which JMH benchmarks can not use directly, so every operation is
+ * a class of the default package that implements this interface and is
+ * created by name.
+ */
+public interface Workload {
+
+    /**
+     * Build the input graph, called once before the measurements.
+     *
+     * @param vertexCount number of vertices
+     * @param density     part of all possible edges the graph has, at least a spanning tree is created
+     * @param seed        seed of the random graph
+     */
+    void setUp(int vertexCount, double density, long seed);
+
+    /**
+     * Restore the input before an operation that changes it, called before every operation.
+     */
+    default void reset() {
+    }
+
+    default void tearDown() {
+    }
+
+    /**
+     * @return result of the operation, consumed by JMH
+     */
+    Object run();
+
+    /**
+     * @param className name of a workload class of the default package
+     * @return new workload
+     */
+    static Workload create(String className) {
+        try {
+            return (Workload) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(String.format("Workload %s can not be created", className), e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * A* search on a snapshot of the graph: Dijkstra's algorithm that takes
+ * vertices out of the heap by path length from the source plus a lower
+ * bound of the rest of the path given by a Heuristic, so vertices in the
+ * direction of the target are settled first and the search stops as soon
+ * as the target is settled. With Heuristic.NONE it settles the same
+ * vertices as DijkstraSearch. Paths are chosen the same way as in
+ * DijkstraSearch: shortest, and among them the one with the smallest
+ * amount of arcs. A vertex is searched again if a shorter path to it is
+ * found after it was settled, so heuristics that are admissible but not
+ * consistent still give shortest paths. The estimate of every vertex is
+ * asked once per search. Arrays are stamped with the number of the search
+ * like in DijkstraSearch, concurrent queries take their own objects from
+ * the pool of the snapshot (see pool).
+ */
+public class AStarSearch {
+
+    public static final int UNREACHABLE = DijkstraSearch.UNREACHABLE;
+    public static final int NO_ARC = DijkstraSearch.NO_ARC;
+
+    private final GraphSnapshot snapshot;
+    private final int[] distance;
+    private final int[] estimate; // heuristic value of the vertex for the current target
+    private final int[] predecessorArc;
+    private final int[] predecessor;
+    private final int[] hops;
+    private final int[] stamp;
+    private int epoch = 0;
+    private final IndexedMinHeap heap;
+    private int source = -1;
+    private int settled = 0;
+
+    AStarSearch(GraphSnapshot snapshot) {
+        this.snapshot = snapshot;
+        int n = snapshot.vertexCount();
+        distance = new int[n];
+        estimate = new int[n];
+        predecessorArc = new int[n];
+        predecessor = new int[n];
+        hops = new int[n];
+        stamp = new int[n];
+        heap = new IndexedMinHeap(n);
+    }
+
+    /**
+     * @param snapshot snapshot of the graph
+     * @return pool of searches shared by every user of the snapshot
+     */
+    public static SearchContextPool<AStarSearch> pool(GraphSnapshot snapshot) {
+        return snapshot.getPool(AStarSearch.class, AStarSearch::new);
+    }
+
+    public GraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Find the shortest path from source to target. Only the distance of the
+     * target is final after the search.
+     *
+     * @param source    index of start vertex
+     * @param target    index of end vertex
+     * @param heuristic admissible lower bound of path lengths to the target
+     * @return true if the target was reached
+     */
+    public boolean run(int source, int target, Heuristic heuristic) {
+        int[] offsets = snapshot.offsets;
+        int[] targets = snapshot.targets;
+        int[] weights = snapshot.weights;
+        int searchNumber = nextEpoch();
+        heap.clear();
+        settled = 0;
+        this.source = source;
+        stamp[source] = searchNumber;
+        distance[source] = 0;
+        hops[source] = 0;
+        predecessorArc[source] = NO_ARC;
+        estimate[source] = heuristic.estimate(source, target);
+        if (estimate[source] == UNREACHABLE) return source == target;
+        heap.insertOrDecrease(source, (long) estimate[source] << 32);
+        while (!heap.isEmpty()) {
+            int vertex = heap.poll();
+            settled++;
+            if (vertex == target) return true;
+            int length = distance[vertex];
+            int nextHops = hops[vertex] + 1;
+            for (int e = offsets[vertex]; e < offsets[vertex + 1]; e++) {
+                int weight = weights[e];
+                if (weight < 0)
+                    throw new RuntimeException(String.format("Arc %s has negative weight %s", snapshot.getArc(e).id, weight));
+                long candidate = (long) length + weight;
+                if (candidate >= UNREACHABLE)
+                    throw new RuntimeException(String.format("Path length to vertex %s is too big", snapshot.getVertex(targets[e]).id));
+                int next = targets[e];
+                if (stamp[next] != searchNumber) {
+                    stamp[next] = searchNumber;
+                    distance[next] = UNREACHABLE;
+                    estimate[next] = heuristic.estimate(next, target);
+                }
+                if (estimate[next] == UNREACHABLE) continue;
+                if (candidate < distance[next] || candidate == distance[next] && nextHops < hops[next]) {
+                    long total = candidate + estimate[next];
+                    if (total >= UNREACHABLE)
+                        throw new RuntimeException(String.format("Path length to vertex %s is too big", snapshot.getVertex(target).id));
+                    distance[next] = (int) candidate;
+                    hops[next] = nextHops;
+                    predecessorArc[next] = e;
+                    predecessor[next] = vertex;
+                    heap.insertOrDecrease(next, total << 32 | nextHops);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * [run help method]
+     * Start a new search number, all entries written by earlier searches become invalid.
+     *
+     * @return number of the new search
+     */
+    private int nextEpoch() {
+        if (++epoch == 0) {
+            Arrays.fill(stamp, 0);
+            epoch = 1;
+        }
+        return epoch;
+    }
+
+    /**
+     * @return amount of vertices taken out of the heap by the last search
+     */
+    public int settledCount() {
+        return settled;
+    }
+
+    /**
+     * @param vertex vertex index
+     * @return length of the best path found from source or UNREACHABLE,
+     * final only for the target
+     */
+    public int distance(int vertex) {
+        return stamp[vertex] == epoch ? distance[vertex] : UNREACHABLE;
+    }
+
+    public boolean isReached(int vertex) {
+        return distance(vertex) != UNREACHABLE;
+    }
+
+    /**
+     * Rebuild the path from source to target by following predecessor arcs.
+     *
+     * @param target index of end vertex of the last search
+     * @return arc indexes of the path in right order
+     */
+    public int[] arcPath(int target) {
+        if (!isReached(target))
+            throw new RuntimeException(String.format("Vertex %s has no connection to vertex %s in graph",
+                    snapshot.getVertex(target).id, snapshot.getVertex(source).id));
+        int length = hops[target];
+        int[] res = new int[length];
+        for (int vertex = target; vertex != source; vertex = predecessor[vertex]) {
+            res[--length] = predecessorArc[vertex];
+        }
+        return res;
+    }
+
+    /**
+     * Rebuild the path from source to target as a list of arcs.
+     *
+     * @param target index of end vertex of the last search
+     * @return right ordered arcs
+     */
+    public LinkedList<Arc> getPath(int target) {
+        LinkedList<Arc> res = new LinkedList<>();
+        for (int e : arcPath(target)) {
+            res.add(snapshot.getArc(e));
+        }
+        return res;
+    }
+}
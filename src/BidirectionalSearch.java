@@ -0,0 +1,253 @@
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * Bidirectional Dijkstra's algorithm for one pair of vertices. A forward
+ * search grows from the source in the snapshot and a backward search grows
+ * from the target in the reverse snapshot, so directed arcs are followed
+ * the right way in both. Every time an arc reaches a vertex the other
+ * search has already reached, the length of the path through that vertex
+ * is a candidate for the best path. The searches stop when the smallest
+ * keys of both heaps together are not less than the best candidate, then
+ * no shorter path is left. Each step takes a vertex from the search with
+ * the smaller heap. Keys hold the length in the high and the amount of arcs
+ * in the low half like in DijkstraSearch, so the chosen path is the same:
+ * shortest, and among them the one with the smallest amount of arcs.
+ * Only the parts of the graph around the two vertices are searched, other
+ * parts of the graph do not have to be connected to them. One object serves
+ * one query at a time, concurrent queries take their own objects from the
+ * pool of the snapshot (see pool). An interrupted search stops with a
+ * CancellationException like DijkstraSearch.
+ */
+public class BidirectionalSearch {
+
+    public static final int UNREACHABLE = DijkstraSearch.UNREACHABLE;
+    public static final int NO_ARC = DijkstraSearch.NO_ARC;
+    private static final long NO_PATH = Long.MAX_VALUE;
+
+    private final GraphSnapshot snapshot;
+    private final Side forward;
+    private final Side backward;
+    private int epoch = 0;
+    private int source = -1;
+    private int target = -1;
+    private int meeting = -1; // vertex where the best path goes from the forward to the backward search
+    private long best = NO_PATH; // key of the best path
+    private int settled = 0;
+
+    BidirectionalSearch(GraphSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.forward = new Side(snapshot);
+        this.backward = new Side(snapshot.reverse());
+    }
+
+    /**
+     * @param snapshot snapshot of the graph
+     * @return pool of searches shared by every user of the snapshot
+     */
+    public static SearchContextPool<BidirectionalSearch> pool(GraphSnapshot snapshot) {
+        return snapshot.getPool(BidirectionalSearch.class, BidirectionalSearch::new);
+    }
+
+    public GraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Find the shortest path from source to target.
+     *
+     * @param source index of start vertex
+     * @param target index of end vertex
+     * @return true if the target is reachable from the source
+     */
+    public boolean run(int source, int target) {
+        int searchNumber = nextEpoch();
+        this.source = source;
+        this.target = target;
+        settled = 0;
+        forward.start(source, searchNumber);
+        backward.start(target, searchNumber);
+        if (source == target) {
+            meeting = source;
+            best = 0;
+            return true;
+        }
+        meeting = -1;
+        best = NO_PATH;
+        while (!forward.heap.isEmpty() && !backward.heap.isEmpty()) {
+            if (forward.heap.minKey() >= best - backward.heap.minKey()) break;
+            if (forward.heap.size() <= backward.heap.size()) forward.settleNext(backward, this);
+            else backward.settleNext(forward, this);
+            DijkstraSearch.checkInterrupt(++settled);
+        }
+        return meeting >= 0;
+    }
+
+    /**
+     * [run help method]
+     * Start a new search number, all entries written by earlier searches become invalid.
+     *
+     * @return number of the new search
+     */
+    private int nextEpoch() {
+        if (++epoch == 0) {
+            forward.clearStamps();
+            backward.clearStamps();
+            epoch = 1;
+        }
+        return epoch;
+    }
+
+    /**
+     * [Side help method]
+     * Remember the path through the vertex if it is better than the best one so far.
+     */
+    private void offer(int vertex, long key) {
+        if (key < best) {
+            best = key;
+            meeting = vertex;
+        }
+    }
+
+    /**
+     * @return amount of vertices settled by both searches of the last query
+     */
+    public int settledCount() {
+        return settled;
+    }
+
+    /**
+     * @return length of the shortest path of the last query or UNREACHABLE
+     */
+    public int distance() {
+        return meeting >= 0 ? (int) (best >>> 32) : UNREACHABLE;
+    }
+
+    public boolean isReached() {
+        return meeting >= 0;
+    }
+
+    /**
+     * Rebuild the path of the last query: forward predecessor arcs from the
+     * meeting vertex back to the source, then backward predecessor arcs from
+     * the meeting vertex to the target, turned into arcs of this snapshot.
+     *
+     * @return arc indexes of the path in right order
+     */
+    public int[] arcPath() {
+        if (meeting < 0)
+            throw new RuntimeException(String.format("Vertex %s has no connection to vertex %s in graph",
+                    snapshot.getVertex(target).id, snapshot.getVertex(source).id));
+        int forwardHops = forward.hops[meeting];
+        int[] res = new int[forwardHops + backward.hops[meeting]];
+        int position = forwardHops;
+        for (int vertex = meeting; vertex != source; vertex = forward.predecessor[vertex]) {
+            res[--position] = forward.predecessorArc[vertex];
+        }
+        position = forwardHops;
+        GraphSnapshot reverse = backward.snapshot;
+        for (int vertex = meeting; vertex != target; vertex = backward.predecessor[vertex]) {
+            res[position++] = reverse.originalArc(backward.predecessorArc[vertex]);
+        }
+        return res;
+    }
+
+    /**
+     * Rebuild the path of the last query as a list of arcs.
+     *
+     * @return right ordered arcs
+     */
+    public LinkedList<Arc> getPath() {
+        LinkedList<Arc> res = new LinkedList<>();
+        for (int e : arcPath()) {
+            res.add(snapshot.getArc(e));
+        }
+        return res;
+    }
+
+    /**
+     * One direction of the search with its own arrays and heap.
+     */
+    private static class Side {
+
+        final GraphSnapshot snapshot;
+        final int[] distance;
+        final int[] predecessorArc;
+        final int[] predecessor;
+        final int[] hops;
+        final int[] stamp;
+        final IndexedMinHeap heap;
+        int searchNumber;
+
+        Side(GraphSnapshot snapshot) {
+            this.snapshot = snapshot;
+            int n = snapshot.vertexCount();
+            distance = new int[n];
+            predecessorArc = new int[n];
+            predecessor = new int[n];
+            hops = new int[n];
+            stamp = new int[n];
+            heap = new IndexedMinHeap(n);
+        }
+
+        void start(int vertex, int searchNumber) {
+            this.searchNumber = searchNumber;
+            heap.clear();
+            stamp[vertex] = searchNumber;
+            distance[vertex] = 0;
+            hops[vertex] = 0;
+            predecessorArc[vertex] = NO_ARC;
+            heap.insertOrDecrease(vertex, 0);
+        }
+
+        boolean isReached(int vertex) {
+            return stamp[vertex] == searchNumber;
+        }
+
+        long key(int vertex) {
+            return (long) distance[vertex] << 32 | hops[vertex];
+        }
+
+        /**
+         * Settle the vertex at the top of the heap and relax its arcs, offering
+         * paths through vertices the other side has reached.
+         */
+        void settleNext(Side other, BidirectionalSearch search) {
+            int[] offsets = snapshot.offsets;
+            int[] targets = snapshot.targets;
+            int[] weights = snapshot.weights;
+            int vertex = heap.poll();
+            int length = distance[vertex];
+            int nextHops = hops[vertex] + 1;
+            for (int e = offsets[vertex]; e < offsets[vertex + 1]; e++) {
+                int weight = weights[e];
+                if (weight < 0)
+                    throw new RuntimeException(String.format("Arc %s has negative weight %s", snapshot.getArc(e).id, weight));
+                long candidate = (long) length + weight;
+                if (candidate >= UNREACHABLE)
+                    throw new RuntimeException(String.format("Path length to vertex %s is too big", snapshot.getVertex(targets[e]).id));
+                int next = targets[e];
+                if (stamp[next] != searchNumber) {
+                    stamp[next] = searchNumber;
+                    distance[next] = UNREACHABLE;
+                }
+                if (candidate < distance[next] || candidate == distance[next] && nextHops < hops[next]) {
+                    distance[next] = (int) candidate;
+                    hops[next] = nextHops;
+                    predecessorArc[next] = e;
+                    predecessor[next] = vertex;
+                    heap.insertOrDecrease(next, candidate << 32 | nextHops);
+                    if (other.isReached(next)) {
+                        if ((long) distance[next] + other.distance[next] >= UNREACHABLE)
+                            throw new RuntimeException(String.format("Path length through vertex %s is too big", snapshot.getVertex(next).id));
+                        search.offer(next, key(next) + other.key(next));
+                    }
+                }
+            }
+        }
+
+        void clearStamps() {
+            Arrays.fill(stamp, 0);
+        }
+    }
+}
@@ -0,0 +1,392 @@
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntPredicate;
+
+/**
+ * Parallel breadth-first search on a snapshot of the graph for amounts of
+ * arcs (hops) and reachability, weights are not used. The search goes one
+ * level at a time. Top-down steps go through the arcs of the vertices of
+ * the frontier, bottom-up steps go through the arcs into every vertex that
+ * is not visited yet and stop at the first one from the frontier. Top-down
+ * is used while the frontier is small, bottom-up when the arcs of the
+ * frontier are more than a part of the arcs left to check (Beamer's
+ * direction-optimizing search), which saves most arc checks in the middle
+ * levels of a large search. Vertices of a step are split between the
+ * threads of the fork-join pool, visited vertices are a bit set claimed
+ * with compare-and-set.
+ * <p>
+ * A filter can exclude vertices, for example vertices that are not lower
+ * than a height border. The start vertex is always visited, excluded
+ * vertices are never entered. The filter is called from many threads, at
+ * most once for a vertex in a search. The predecessor arc of a vertex is
+ * the arc with the smallest index from the previous level, so paths do not
+ * depend on the threads or the directions of the steps. One object serves
+ * one query at a time, concurrent queries take their own objects from the
+ * pool of the snapshot (see pool).
+ */
+public class BreadthFirstSearch {
+
+    public static final int UNREACHABLE = DijkstraSearch.UNREACHABLE;
+    public static final int NO_ARC = DijkstraSearch.NO_ARC;
+    public static final IntPredicate ALL = vertex -> true;
+    private static final int PARALLEL_THRESHOLD = 1024; // vertices of a step, smaller steps run in one thread
+    private static final int ALPHA = 14; // bottom-up when frontier arcs > unchecked arcs / ALPHA
+    private static final int BETA = 24; // back to top-down when frontier < vertices / BETA
+
+    private final GraphSnapshot snapshot;
+    private final ForkJoinPool pool;
+    private final AtomicLongArray visited; // decided vertices: reached or excluded by the filter
+    private final int[] level; // amount of arcs from the source, UNREACHABLE if not reached
+    private final GraphSnapshot reverse; // arcs into each vertex
+    private int[] frontier;
+    private int frontierSize;
+    private int[] next;
+    private int nextSize;
+    private long nextArcs; // out arcs of the next frontier
+    private long decidedInArcs; // in arcs of decided vertices
+    private int source = -1;
+    private int depth = 0;
+    private int bottomUpSteps = 0;
+
+    BreadthFirstSearch(GraphSnapshot snapshot) {
+        this(snapshot, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param snapshot snapshot of the graph
+     * @param pool     pool for the steps of the search
+     */
+    BreadthFirstSearch(GraphSnapshot snapshot, ForkJoinPool pool) {
+        this.snapshot = snapshot;
+        this.pool = pool;
+        int n = snapshot.vertexCount();
+        visited = new AtomicLongArray((n + 63) >>> 6);
+        level = new int[n];
+        frontier = new int[n];
+        next = new int[n];
+        reverse = snapshot.reverse();
+    }
+
+    /**
+     * @param snapshot snapshot of the graph
+     * @return pool of searches shared by every user of the snapshot
+     */
+    public static SearchContextPool<BreadthFirstSearch> pool(GraphSnapshot snapshot) {
+        return snapshot.getPool(BreadthFirstSearch.class, BreadthFirstSearch::new);
+    }
+
+    public GraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Find amounts of arcs from source to all vertices.
+     *
+     * @param source index of start vertex
+     * @param filter vertices that may be visited, ALL for every vertex
+     */
+    public void run(int source, IntPredicate filter) {
+        run(source, -1, filter);
+    }
+
+    /**
+     * Find amounts of arcs from source. The search stops after the level that
+     * reaches the target, so levels of other vertices may be missing.
+     *
+     * @param source index of start vertex
+     * @param target index of end vertex or -1 to search the whole graph
+     * @param filter vertices that may be visited, ALL for every vertex
+     * @return true if the target is reached, with target -1 always true
+     */
+    public boolean run(int source, int target, IntPredicate filter) {
+        int n = snapshot.vertexCount();
+        for (int w = 0; w < visited.length(); w++) {
+            visited.set(w, 0);
+        }
+        Arrays.fill(level, UNREACHABLE);
+        this.source = source;
+        depth = 0;
+        bottomUpSteps = 0;
+        claim(source);
+        level[source] = 0;
+        frontier[0] = source;
+        frontierSize = 1;
+        long frontierArcs = snapshot.offsets[source + 1] - snapshot.offsets[source];
+        decidedInArcs = reverse.offsets[source + 1] - reverse.offsets[source];
+        boolean bottomUp = false;
+        while (frontierSize > 0 && (target < 0 || level[target] == UNREACHABLE)) {
+            long uncheckedArcs = reverse.arcCount() - decidedInArcs;
+            if (!bottomUp && frontierArcs > uncheckedArcs / ALPHA) bottomUp = true;
+            else if (bottomUp && frontierSize < n / BETA) bottomUp = false;
+            nextSize = 0;
+            nextArcs = 0;
+            if (bottomUp) {
+                bottomUpSteps++;
+                step(new BottomUp(0, n, filter), n);
+            } else {
+                step(new TopDown(0, frontierSize, filter), frontierSize);
+            }
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            frontierSize = nextSize;
+            frontierArcs = nextArcs;
+            depth++;
+        }
+        return target < 0 || level[target] != UNREACHABLE;
+    }
+
+    /**
+     * [run help method]
+     * Run one level in the calling thread or in the pool.
+     */
+    private void step(Range range, int size) {
+        if (size < PARALLEL_THRESHOLD) range.compute();
+        else pool.invoke(range);
+    }
+
+    /**
+     * [TopDown help method]
+     * Visit the targets of the arcs of frontier[from..to).
+     */
+    private void topDown(int from, int to, IntPredicate filter, Found found) {
+        int[] offsets = snapshot.offsets;
+        int[] targets = snapshot.targets;
+        for (int i = from; i < to; i++) {
+            int vertex = frontier[i];
+            for (int e = offsets[vertex]; e < offsets[vertex + 1]; e++) {
+                int neighbor = targets[e];
+                if (isVisited(neighbor) || !claim(neighbor)) continue;
+                found.decide(neighbor);
+                if (filter.test(neighbor)) found.add(neighbor);
+            }
+        }
+    }
+
+    /**
+     * [BottomUp help method]
+     * Visit the vertices in [from..to) that have an arc from the frontier.
+     * Whole words of decided vertices are skipped at once.
+     */
+    private void bottomUp(int from, int to, IntPredicate filter, Found found) {
+        int vertex = from;
+        while (vertex < to) {
+            long word = visited.get(vertex >>> 6);
+            if (word == -1L && (vertex & 63) == 0) {
+                vertex += 64;
+                continue;
+            }
+            if ((word & 1L << vertex) == 0) {
+                for (int i = reverse.offsets[vertex]; i < reverse.offsets[vertex + 1]; i++) {
+                    if (level[reverse.targets[i]] == depth) {
+                        if (claim(vertex)) {
+                            found.decide(vertex);
+                            if (filter.test(vertex)) found.add(vertex);
+                        }
+                        break;
+                    }
+                }
+            }
+            vertex++;
+        }
+    }
+
+    private boolean isVisited(int vertex) {
+        return (visited.get(vertex >>> 6) & 1L << vertex) != 0;
+    }
+
+    /**
+     * Set the visited bit of the vertex.
+     *
+     * @return true if this call set it
+     */
+    private boolean claim(int vertex) {
+        int index = vertex >>> 6;
+        long bit = 1L << vertex;
+        long word = visited.get(index);
+        while ((word & bit) == 0) {
+            if (visited.compareAndSet(index, word, word | bit)) return true;
+            word = visited.get(index);
+        }
+        return false;
+    }
+
+    /**
+     * @return index of the start vertex of the last search
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * @param vertex vertex index
+     * @return amount of arcs in the path from source or UNREACHABLE
+     */
+    public int hops(int vertex) {
+        return level[vertex];
+    }
+
+    public boolean isReached(int vertex) {
+        return level[vertex] != UNREACHABLE;
+    }
+
+    /**
+     * @return amount of levels of the last search that were done bottom-up
+     */
+    public int bottomUpCount() {
+        return bottomUpSteps;
+    }
+
+    /**
+     * @param vertex vertex index
+     * @return the arc with the smallest index from the previous level into the vertex or NO_ARC
+     */
+    public int predecessorArc(int vertex) {
+        if (vertex == source || level[vertex] == UNREACHABLE) return NO_ARC;
+        int best = NO_ARC;
+        for (int i = reverse.offsets[vertex]; i < reverse.offsets[vertex + 1]; i++) {
+            int e = reverse.originalArc(i);
+            if (level[reverse.targets[i]] == level[vertex] - 1 && (best == NO_ARC || e < best)) best = e;
+        }
+        return best;
+    }
+
+    /**
+     * Rebuild the path from source to target by following predecessor arcs.
+     *
+     * @param target index of end vertex
+     * @return arc indexes of the path in right order
+     */
+    public int[] arcPath(int target) {
+        if (!isReached(target))
+            throw new RuntimeException(String.format("Vertex %s has no connection to vertex %s in graph",
+                    snapshot.getVertex(target).id, snapshot.getVertex(source).id));
+        int length = level[target];
+        int[] res = new int[length];
+        for (int vertex = target; vertex != source; vertex = snapshot.arcSource(res[length])) {
+            res[--length] = predecessorArc(vertex);
+        }
+        return res;
+    }
+
+    /**
+     * Rebuild the path from source to target as a list of arcs.
+     *
+     * @param target index of end vertex
+     * @return right ordered arcs
+     */
+    public LinkedList<Arc> getPath(int target) {
+        LinkedList<Arc> res = new LinkedList<>();
+        for (int e : arcPath(target)) {
+            res.add(snapshot.getArc(e));
+        }
+        return res;
+    }
+
+    /**
+     * Vertices one part of a step has visited, added to the next frontier at the end of the part.
+     */
+    private final class Found {
+
+        private int[] vertices = new int[64];
+        private int size = 0;
+        private long arcs = 0;
+        private long inArcCount = 0;
+
+        void decide(int vertex) {
+            inArcCount += reverse.offsets[vertex + 1] - reverse.offsets[vertex];
+        }
+
+        void add(int vertex) {
+            if (size == vertices.length) vertices = Arrays.copyOf(vertices, size * 2);
+            vertices[size++] = vertex;
+            arcs += snapshot.offsets[vertex + 1] - snapshot.offsets[vertex];
+            level[vertex] = depth + 1;
+        }
+
+        void flush() {
+            synchronized (BreadthFirstSearch.this) {
+                System.arraycopy(vertices, 0, next, nextSize, size);
+                nextSize += size;
+                nextArcs += arcs;
+                decidedInArcs += inArcCount;
+            }
+        }
+    }
+
+    /**
+     * Part of one step, split in halves until small enough.
+     */
+    private abstract class Range extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        final int from;
+        final int to;
+        final IntPredicate filter;
+
+        Range(int from, int to, IntPredicate filter) {
+            this.from = from;
+            this.to = to;
+            this.filter = filter;
+        }
+
+        abstract Range part(int from, int to);
+
+        abstract void visit(Found found);
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                Found found = new Found();
+                visit(found);
+                found.flush();
+                return;
+            }
+            int middle = (from + to) >>> 1 & ~63;
+            if (middle <= from) middle = (from + to) >>> 1;
+            invokeAll(part(from, middle), part(middle, to));
+        }
+    }
+
+    private final class TopDown extends Range {
+
+        private static final long serialVersionUID = 1L;
+
+        TopDown(int from, int to, IntPredicate filter) {
+            super(from, to, filter);
+        }
+
+        @Override
+        Range part(int from, int to) {
+            return new TopDown(from, to, filter);
+        }
+
+        @Override
+        void visit(Found found) {
+            topDown(from, to, filter, found);
+        }
+    }
+
+    private final class BottomUp extends Range {
+
+        private static final long serialVersionUID = 1L;
+
+        BottomUp(int from, int to, IntPredicate filter) {
+            super(from, to, filter);
+        }
+
+        @Override
+        Range part(int from, int to) {
+            return new BottomUp(from, to, filter);
+        }
+
+        @Override
+        void visit(Found found) {
+            bottomUp(from, to, filter, found);
+        }
+    }
+}
@@ -0,0 +1,627 @@
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * Contraction hierarchy of a snapshot for fast point-to-point queries on a
+ * graph that does not change. Preprocessing contracts the vertices one by
+ * one in the order of their priority: the edge difference (shortcuts the
+ * contraction needs minus arcs it removes) plus the amount of neighbours
+ * contracted before. Contracting a vertex v removes it from the remaining
+ * graph, and for every pair of arcs u -> v -> x a shortcut arc u -> x is added
+ * unless a local witness search finds a path from u to x that avoids v and
+ * is not longer. A shortcut remembers the two arcs it replaces.
+ * <p>
+ * The order of contraction is the rank of a vertex. Every arc (original or
+ * shortcut) goes either up or down in rank, upward arcs are kept for the
+ * forward search from the source and downward arcs, turned around, for the
+ * backward search from the target. Both searches only go up, so they
+ * settle few vertices, and the best path goes through the vertex where they
+ * meet. Shortcuts of the path are unpacked back to the arcs of the
+ * snapshot. Lengths are compared together with the amount of arcs, like in
+ * DijkstraSearch, so the path is shortest and has the smallest amount of arcs
+ * among the shortest ones. The hierarchy is read-only after construction,
+ * concurrent queries take their own search contexts from its pool.
+ */
+public class ContractionHierarchy {
+
+    public static final int UNREACHABLE = DijkstraSearch.UNREACHABLE;
+    private static final int WITNESS_SETTLE_LIMIT = 500; // settled vertices per witness search, a shortcut is added beyond it
+    private static final int ESTIMATE_SETTLE_LIMIT = 25; // settled vertices per witness search when only counting shortcuts
+    private static final long NO_PATH = Long.MAX_VALUE;
+
+    private final GraphSnapshot snapshot;
+    private final int[] rank;
+    private final int shortcutCount;
+    // every arc of the hierarchy: original arcs of the snapshot first, then shortcuts
+    private final int[] arcFrom;
+    private final int[] arcTo;
+    private final int[] firstPart; // index of the snapshot arc for an original arc, first replaced arc for a shortcut
+    private final int[] secondPart; // -1 for an original arc, second replaced arc for a shortcut
+    // upward arcs by source, for the forward search
+    private final int[] upOffsets;
+    private final int[] upArcs;
+    // downward arcs by target, for the backward search
+    private final int[] downOffsets;
+    private final int[] downArcs;
+    private final long[] arcKey; // length in the high and amount of original arcs in the low half
+    private final SearchContextPool<Query> pool = new SearchContextPool<>(Query::new);
+
+    ContractionHierarchy(Graph graph) {
+        this(graph.createSnapshot());
+    }
+
+    /**
+     * Build the hierarchy of the snapshot.
+     *
+     * @param snapshot snapshot of the graph, arc weights must not be negative
+     */
+    ContractionHierarchy(GraphSnapshot snapshot) {
+        this.snapshot = snapshot;
+        Builder builder = new Builder(snapshot);
+        builder.contractAll();
+        this.rank = builder.rank;
+        this.shortcutCount = builder.shortcutCount;
+        int arcs = builder.arcCount;
+        this.arcFrom = Arrays.copyOf(builder.from, arcs);
+        this.arcTo = Arrays.copyOf(builder.to, arcs);
+        this.firstPart = Arrays.copyOf(builder.first, arcs);
+        this.secondPart = Arrays.copyOf(builder.second, arcs);
+        this.arcKey = Arrays.copyOf(builder.key, arcs);
+
+        int n = snapshot.vertexCount();
+        upOffsets = new int[n + 1];
+        downOffsets = new int[n + 1];
+        for (int a = 0; a < arcs; a++) {
+            if (rank[arcFrom[a]] < rank[arcTo[a]]) upOffsets[arcFrom[a] + 1]++;
+            else if (rank[arcTo[a]] < rank[arcFrom[a]]) downOffsets[arcTo[a] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            upOffsets[v + 1] += upOffsets[v];
+            downOffsets[v + 1] += downOffsets[v];
+        }
+        upArcs = new int[upOffsets[n]];
+        downArcs = new int[downOffsets[n]];
+        int[] upFill = Arrays.copyOf(upOffsets, n);
+        int[] downFill = Arrays.copyOf(downOffsets, n);
+        for (int a = 0; a < arcs; a++) {
+            if (rank[arcFrom[a]] < rank[arcTo[a]]) upArcs[upFill[arcFrom[a]]++] = a;
+            else if (rank[arcTo[a]] < rank[arcFrom[a]]) downArcs[downFill[arcTo[a]]++] = a;
+        }
+    }
+
+    public GraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @param vertex vertex index
+     * @return position of the vertex in the order of contraction
+     */
+    public int rank(int vertex) {
+        return rank[vertex];
+    }
+
+    /**
+     * @return amount of shortcut arcs added by preprocessing
+     */
+    public int shortcutCount() {
+        return shortcutCount;
+    }
+
+    /**
+     * Find the shortest path from source to target.
+     *
+     * @param source index of start vertex
+     * @param target index of end vertex
+     * @return arc indexes of the snapshot in right order
+     */
+    public int[] arcPath(int source, int target) {
+        Query query = pool.acquire();
+        try {
+            return query.run(source, target);
+        } finally {
+            pool.release(query);
+        }
+    }
+
+    /**
+     * Find the shortest path between two vertices of the snapshot.
+     *
+     * @param from start vertex
+     * @param to   end vertex
+     * @return right ordered arcs of the snapshot
+     */
+    public LinkedList<Arc> getPath(Vertex from, Vertex to) {
+        LinkedList<Arc> res = new LinkedList<>();
+        for (int e : arcPath(snapshot.indexOf(from), snapshot.indexOf(to))) {
+            res.add(snapshot.getArc(e));
+        }
+        return res;
+    }
+
+    /**
+     * Length of the shortest path from source to target.
+     *
+     * @param source index of start vertex
+     * @param target index of end vertex
+     * @return path length or UNREACHABLE
+     */
+    public int distance(int source, int target) {
+        Query query = pool.acquire();
+        try {
+            long key = query.search(source, target);
+            return key == NO_PATH ? UNREACHABLE : (int) (key >>> 32);
+        } finally {
+            pool.release(query);
+        }
+    }
+
+    /**
+     * [Query help method]
+     * Key of a path made of two parts.
+     */
+    private long join(long first, long second, int vertex) {
+        if ((first >>> 32) + (second >>> 32) >= UNREACHABLE)
+            throw new RuntimeException(String.format("Path length through vertex %s is too big", snapshot.vertexId(vertex)));
+        return first + second;
+    }
+
+    /**
+     * [arcPath help method]
+     * Replace a hierarchy arc with the snapshot arcs it stands for, in right order.
+     */
+    private int unpack(int arc, int[] res, int position, int[] stack) {
+        int top = 0;
+        stack[top++] = arc;
+        while (top > 0) {
+            int current = stack[--top];
+            if (secondPart[current] < 0) {
+                res[position++] = firstPart[current];
+            } else {
+                stack[top++] = secondPart[current];
+                stack[top++] = firstPart[current];
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Search context of one query: forward search over upward arcs and backward
+     * search over downward arcs, stamped with the number of the query.
+     */
+    private class Query {
+
+        final long[] forwardKey;
+        final long[] backwardKey;
+        final int[] forwardArc; // hierarchy arc used to reach the vertex
+        final int[] backwardArc;
+        final int[] forwardStamp;
+        final int[] backwardStamp;
+        final IndexedMinHeap forwardHeap;
+        final IndexedMinHeap backwardHeap;
+        int[] stack = new int[16];
+        int epoch = 0;
+        int meeting;
+
+        Query() {
+            int n = snapshot.vertexCount();
+            forwardKey = new long[n];
+            backwardKey = new long[n];
+            forwardArc = new int[n];
+            backwardArc = new int[n];
+            forwardStamp = new int[n];
+            backwardStamp = new int[n];
+            forwardHeap = new IndexedMinHeap(n);
+            backwardHeap = new IndexedMinHeap(n);
+        }
+
+        int[] run(int source, int target) {
+            long best = search(source, target);
+            if (best == NO_PATH)
+                throw new RuntimeException(String.format("Vertex %s has no connection to vertex %s in graph",
+                        snapshot.vertexId(target), snapshot.vertexId(source)));
+            int[] res = new int[(int) (best & 0xFFFF_FFFFL)]; // amount of arcs is in the low half of the key
+            int position = 0;
+            // forward part from the meeting vertex down to the source, unpacked in reverse order
+            int arcs = 0;
+            for (int vertex = meeting; vertex != source; vertex = arcFrom[forwardArc[vertex]]) {
+                arcs++;
+            }
+            int[] upward = new int[arcs];
+            for (int vertex = meeting; vertex != source; vertex = arcFrom[forwardArc[vertex]]) {
+                upward[--arcs] = forwardArc[vertex];
+            }
+            for (int arc : upward) {
+                position = unpack(arc, res, position, stackFor(res.length));
+            }
+            for (int vertex = meeting; vertex != target; vertex = arcTo[backwardArc[vertex]]) {
+                position = unpack(backwardArc[vertex], res, position, stackFor(res.length));
+            }
+            return res;
+        }
+
+        /**
+         * @return stack big enough to unpack a path of the given amount of arcs
+         */
+        int[] stackFor(int arcs) {
+            if (stack.length < arcs + 1) stack = new int[Math.max(arcs + 1, stack.length * 2)];
+            return stack;
+        }
+
+        /**
+         * Both searches go up until the smallest key of their heap is not less than
+         * the best path found.
+         *
+         * @return key of the shortest path or NO_PATH
+         */
+        long search(int source, int target) {
+            if (++epoch == 0) {
+                Arrays.fill(forwardStamp, 0);
+                Arrays.fill(backwardStamp, 0);
+                epoch = 1;
+            }
+            forwardHeap.clear();
+            backwardHeap.clear();
+            forwardStamp[source] = epoch;
+            forwardKey[source] = 0;
+            forwardHeap.insertOrDecrease(source, 0);
+            backwardStamp[target] = epoch;
+            backwardKey[target] = 0;
+            backwardHeap.insertOrDecrease(target, 0);
+            long best = NO_PATH;
+            meeting = -1;
+            if (source == target) {
+                meeting = source;
+                return 0;
+            }
+            boolean forwardTurn = true;
+            while (true) {
+                boolean forwardOpen = !forwardHeap.isEmpty() && forwardHeap.minKey() < best;
+                boolean backwardOpen = !backwardHeap.isEmpty() && backwardHeap.minKey() < best;
+                if (!forwardOpen && !backwardOpen) break;
+                boolean forward = forwardOpen && (forwardTurn || !backwardOpen);
+                forwardTurn = !forwardTurn;
+                int vertex;
+                if (forward) {
+                    vertex = forwardHeap.poll();
+                    long key = forwardKey[vertex];
+                    for (int i = upOffsets[vertex]; i < upOffsets[vertex + 1]; i++) {
+                        int arc = upArcs[i];
+                        int next = arcTo[arc];
+                        long candidate = join(key, arcKey[arc], next);
+                        if (forwardStamp[next] != epoch || candidate < forwardKey[next]) {
+                            forwardStamp[next] = epoch;
+                            forwardKey[next] = candidate;
+                            forwardArc[next] = arc;
+                            forwardHeap.insertOrDecrease(next, candidate);
+                        }
+                    }
+                } else {
+                    vertex = backwardHeap.poll();
+                    long key = backwardKey[vertex];
+                    for (int i = downOffsets[vertex]; i < downOffsets[vertex + 1]; i++) {
+                        int arc = downArcs[i];
+                        int next = arcFrom[arc];
+                        long candidate = join(key, arcKey[arc], next);
+                        if (backwardStamp[next] != epoch || candidate < backwardKey[next]) {
+                            backwardStamp[next] = epoch;
+                            backwardKey[next] = candidate;
+                            backwardArc[next] = arc;
+                            backwardHeap.insertOrDecrease(next, candidate);
+                        }
+                    }
+                }
+                if (forwardStamp[vertex] == epoch && backwardStamp[vertex] == epoch) {
+                    long total = join(forwardKey[vertex], backwardKey[vertex], vertex);
+                    if (total < best) {
+                        best = total;
+                        meeting = vertex;
+                    }
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Remaining graph during preprocessing, arcs are kept in growing arrays and
+     * arcs to contracted vertices are skipped instead of being removed.
+     */
+    private static class Builder {
+
+        final GraphSnapshot snapshot;
+        final int n;
+        final int[] rank;
+        final boolean[] contracted;
+        final int[] contractedNeighbours;
+        final int[][] out; // hierarchy arcs by source, out[v][0] is the amount
+        final int[][] in; // hierarchy arcs by target, in[v][0] is the amount
+        int[] from;
+        int[] to;
+        int[] first;
+        int[] second;
+        long[] key;
+        int arcCount = 0;
+        int shortcutCount = 0;
+        // witness search
+        final long[] witnessKey;
+        final int[] witnessStamp;
+        final IndexedMinHeap witnessHeap;
+        int witnessEpoch = 0;
+        // neighbours of the vertex being contracted, the cheapest arc per neighbour
+        final int[] neighbourStamp;
+        final int[] neighbourArc;
+        int neighbourEpoch = 0;
+        int[] sources = new int[16];
+        int[] targets = new int[16];
+
+        Builder(GraphSnapshot snapshot) {
+            this.snapshot = snapshot;
+            this.n = snapshot.vertexCount();
+            int m = snapshot.arcCount();
+            rank = new int[n];
+            contracted = new boolean[n];
+            contractedNeighbours = new int[n];
+            out = new int[n][];
+            in = new int[n][];
+            int capacity = Math.max(16, m + m / 2);
+            from = new int[capacity];
+            to = new int[capacity];
+            first = new int[capacity];
+            second = new int[capacity];
+            key = new long[capacity];
+            witnessKey = new long[n];
+            witnessStamp = new int[n];
+            witnessHeap = new IndexedMinHeap(n);
+            neighbourStamp = new int[n];
+            neighbourArc = new int[n];
+            for (int v = 0; v < n; v++) {
+                out[v] = new int[1 + snapshot.offsets[v + 1] - snapshot.offsets[v]];
+            }
+            int[] inDegree = new int[n];
+            for (int e = 0; e < m; e++) {
+                inDegree[snapshot.targets[e]]++;
+            }
+            for (int v = 0; v < n; v++) {
+                in[v] = new int[1 + inDegree[v]];
+            }
+            for (int v = 0; v < n; v++) {
+                for (int e = snapshot.offsets[v]; e < snapshot.offsets[v + 1]; e++) {
+                    int weight = snapshot.weights[e];
+                    if (weight < 0)
+                        throw new RuntimeException(String.format("Arc %s has negative weight %s", snapshot.arcId(e), weight));
+                    addArc(v, snapshot.targets[e], e, -1, (long) weight << 32 | 1);
+                }
+            }
+        }
+
+        /**
+         * Contract all vertices with lazy priority updates: a vertex taken from the
+         * heap gets its priority computed again, and goes back if it is no longer the
+         * smallest. Priorities of the neighbours of a contracted vertex are not
+         * computed at once, that would take most of the preprocessing time.
+         */
+        void contractAll() {
+            IndexedMinHeap queue = new IndexedMinHeap(n);
+            for (int v = 0; v < n; v++) {
+                queue.insertOrDecrease(v, priorityKey(v));
+            }
+            int order = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                long current = priorityKey(v);
+                if (!queue.isEmpty() && current > queue.minKey()) {
+                    queue.insertOrDecrease(v, current);
+                    continue;
+                }
+                contract(v, false);
+                contracted[v] = true;
+                rank[v] = order++;
+                int[] outArcs = out[v];
+                for (int i = 1; i <= outArcs[0]; i++) {
+                    contractedNeighbours[to[outArcs[i]]]++;
+                }
+                int[] inArcs = in[v];
+                for (int i = 1; i <= inArcs[0]; i++) {
+                    contractedNeighbours[from[inArcs[i]]]++;
+                }
+            }
+        }
+
+        /**
+         * [contractAll help method]
+         * Priority as a heap key, the shift keeps negative edge differences in order.
+         */
+        private long priorityKey(int vertex) {
+            int removed = compact(out[vertex], to) + compact(in[vertex], from);
+            int shortcuts = contract(vertex, true);
+            return (long) shortcuts - removed + contractedNeighbours[vertex] + Integer.MAX_VALUE;
+        }
+
+        /**
+         * [priorityKey help method]
+         * Drop arcs to contracted vertices from the list.
+         *
+         * @return amount of arcs left
+         */
+        private int compact(int[] arcs, int[] end) {
+            int count = 0;
+            for (int i = 1; i <= arcs[0]; i++) {
+                if (!contracted[end[arcs[i]]]) arcs[++count] = arcs[i];
+            }
+            arcs[0] = count;
+            return count;
+        }
+
+        /**
+         * Find the shortcuts that contracting the vertex needs and add them.
+         *
+         * @param vertex   vertex to contract
+         * @param simulate only count the shortcuts
+         * @return amount of shortcuts
+         */
+        int contract(int vertex, boolean simulate) {
+            int sourceCount = cheapestNeighbours(in[vertex], from, vertex);
+            int[] sourceArcs = sources = ensure(sources, sourceCount);
+            collect(in[vertex], from, vertex, sourceArcs);
+            int targetCount = cheapestNeighbours(out[vertex], to, vertex);
+            int[] targetArcs = targets = ensure(targets, targetCount);
+            collect(out[vertex], to, vertex, targetArcs);
+            int shortcuts = 0;
+            for (int i = 0; i < sourceCount; i++) {
+                int inArc = sourceArcs[i];
+                int u = from[inArc];
+                long limit = 0;
+                for (int j = 0; j < targetCount; j++) {
+                    if (to[targetArcs[j]] != u) limit = Math.max(limit, sum(key[inArc], key[targetArcs[j]]));
+                }
+                if (limit == 0) continue;
+                witnessSearch(u, vertex, limit, simulate ? ESTIMATE_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT);
+                for (int j = 0; j < targetCount; j++) {
+                    int outArc = targetArcs[j];
+                    int x = to[outArc];
+                    if (x == u) continue;
+                    long through = sum(key[inArc], key[outArc]);
+                    if (witnessStamp[x] == witnessEpoch && witnessKey[x] <= through) continue;
+                    shortcuts++;
+                    if (!simulate) addShortcut(u, x, inArc, outArc, through);
+                }
+            }
+            return shortcuts;
+        }
+
+        /**
+         * [contract help method]
+         * Mark every live neighbour on one side with its cheapest arc.
+         *
+         * @return amount of different neighbours
+         */
+        private int cheapestNeighbours(int[] arcs, int[] end, int vertex) {
+            if (++neighbourEpoch == 0) {
+                Arrays.fill(neighbourStamp, 0);
+                neighbourEpoch = 1;
+            }
+            int count = 0;
+            for (int i = 1; i <= arcs[0]; i++) {
+                int arc = arcs[i];
+                int neighbour = end[arc];
+                if (neighbour == vertex || contracted[neighbour]) continue;
+                if (neighbourStamp[neighbour] != neighbourEpoch) {
+                    neighbourStamp[neighbour] = neighbourEpoch;
+                    neighbourArc[neighbour] = arc;
+                    count++;
+                } else if (key[arc] < key[neighbourArc[neighbour]]) {
+                    neighbourArc[neighbour] = arc;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * [contract help method]
+         * Write the cheapest arc of every marked neighbour into the array.
+         */
+        private void collect(int[] arcs, int[] end, int vertex, int[] result) {
+            int count = 0;
+            for (int i = 1; i <= arcs[0]; i++) {
+                int neighbour = end[arcs[i]];
+                if (neighbour == vertex || contracted[neighbour] || neighbourStamp[neighbour] != neighbourEpoch) continue;
+                result[count++] = neighbourArc[neighbour];
+                neighbourStamp[neighbour] = 0; // every neighbour once
+            }
+        }
+
+        /**
+         * [contract help method]
+         * Dijkstra's algorithm from the source in the remaining graph without the
+         * ignored vertex, until the keys exceed the limit or enough vertices are settled.
+         */
+        private void witnessSearch(int source, int ignored, long limit, int settleLimit) {
+            if (++witnessEpoch == 0) {
+                Arrays.fill(witnessStamp, 0);
+                witnessEpoch = 1;
+            }
+            witnessHeap.clear();
+            witnessStamp[source] = witnessEpoch;
+            witnessKey[source] = 0;
+            witnessHeap.insertOrDecrease(source, 0);
+            int settled = 0;
+            while (!witnessHeap.isEmpty() && witnessHeap.minKey() <= limit && settled++ < settleLimit) {
+                int vertex = witnessHeap.poll();
+                long current = witnessKey[vertex];
+                int[] arcs = out[vertex];
+                for (int i = 1; i <= arcs[0]; i++) {
+                    int arc = arcs[i];
+                    int next = to[arc];
+                    if (next == ignored || contracted[next]) continue;
+                    long candidate = sum(current, key[arc]);
+                    if (witnessStamp[next] != witnessEpoch || candidate < witnessKey[next]) {
+                        witnessStamp[next] = witnessEpoch;
+                        witnessKey[next] = candidate;
+                        witnessHeap.insertOrDecrease(next, candidate);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Key of two arcs one after another.
+         */
+        private long sum(long first, long second) {
+            if ((first >>> 32) + (second >>> 32) >= UNREACHABLE)
+                throw new RuntimeException("Path length in the graph is too big");
+            return first + second;
+        }
+
+        /**
+         * [contract help method]
+         * Add a shortcut, or make an existing longer arc between the same vertices the shortcut.
+         */
+        private void addShortcut(int u, int x, int firstPart, int secondPart, long arcKey) {
+            shortcutCount++;
+            int[] arcs = out[u];
+            for (int i = 1; i <= arcs[0]; i++) {
+                int arc = arcs[i];
+                if (to[arc] != x) continue;
+                if (key[arc] > arcKey) {
+                    first[arc] = firstPart;
+                    second[arc] = secondPart;
+                    key[arc] = arcKey;
+                }
+                return;
+            }
+            addArc(u, x, firstPart, secondPart, arcKey);
+        }
+
+        private void addArc(int u, int x, int firstPart, int secondPart, long arcKey) {
+            if (arcCount == from.length) {
+                int capacity = from.length * 2;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                first = Arrays.copyOf(first, capacity);
+                second = Arrays.copyOf(second, capacity);
+                key = Arrays.copyOf(key, capacity);
+            }
+            int arc = arcCount++;
+            from[arc] = u;
+            to[arc] = x;
+            first[arc] = firstPart;
+            second[arc] = secondPart;
+            key[arc] = arcKey;
+            out[u] = append(out[u], arc);
+            in[x] = append(in[x], arc);
+        }
+
+        private static int[] append(int[] list, int value) {
+            int size = list[0] + 1;
+            if (size == list.length) list = Arrays.copyOf(list, Math.max(4, list.length * 2));
+            list[size] = value;
+            list[0] = size;
+            return list;
+        }
+
+        private static int[] ensure(int[] array, int size) {
+            return array.length >= size ? array : new int[Math.max(size, array.length * 2)];
+        }
+    }
+}
@@ -0,0 +1,467 @@
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Parallel shortest path lengths from one source to every vertex of a
+ * snapshot with the delta-stepping algorithm of Meyer and Sanders.
+ * Tentative lengths are sorted into buckets of delta length units. The
+ * smallest non-empty bucket is emptied again and again by relaxing the
+ * light arcs (weight at most delta) of its vertices, which can put
+ * vertices back into the same bucket. When the bucket stays empty its
+ * vertices are final and their heavy arcs are relaxed once. The vertices of
+ * one step are split between the threads of the fork-join pool and every
+ * thread lowers the keys of the targets with compare-and-set, so no locks
+ * are taken on the arrays. A small delta does less extra work but has less
+ * parallel work per step, delta larger than every weight turns the search
+ * into the Bellman Ford algorithm. Buckets are a ring of at most one bucket
+ * per vertex, created on first use, vertices that fall beyond the ring wait
+ * in an overflow list until the ring moves on, so a small delta with large
+ * weights does not take memory for every empty bucket.
+ * <p>
+ * Keys hold the length in the high and the amount of arcs in the low half
+ * like in DijkstraSearch, so lengths and amounts of arcs are the same. The
+ * predecessor arc of every vertex is chosen after the search: the arc with
+ * the smallest index among the arcs that give the final key, which is also
+ * the arc DijkstraSearch chooses, so paths are the same too. Arc weights
+ * must not be negative. One object serves one query at a time.
+ */
+public class DeltaSteppingSearch {
+
+    public static final int UNREACHABLE = DijkstraSearch.UNREACHABLE;
+    public static final int NO_ARC = DijkstraSearch.NO_ARC;
+    private static final long NOT_REACHED = Long.MAX_VALUE;
+    private static final int PARALLEL_THRESHOLD = 256; // vertices of a step, smaller steps are relaxed in one thread
+
+    private final GraphSnapshot snapshot;
+    private final ForkJoinPool pool;
+    private final int delta;
+    private final AtomicLongArray key;
+    private final int[] predecessorArc;
+    private final int[] predecessor;
+    private final GraphSnapshot reverse; // arcs into each vertex
+    private final IntList[] buckets; // ring, bucket b is buckets[b % buckets.length] while base <= b < base + length
+    private final IntList overflow = new IntList(); // vertices of buckets beyond the ring
+    private final int[] roundStamp; // last round that took the vertex from a bucket
+    private final int[] bucketStamp; // last bucket whose heavy arcs list holds the vertex
+    private int pending = 0; // entries in the ring, stale ones included
+    private int base = 0; // first bucket of the ring
+    private int round = 0;
+    private int source = -1;
+
+    /**
+     * Search with delta chosen from the weights: largest weight divided by the average out degree.
+     *
+     * @param snapshot snapshot of the graph
+     */
+    DeltaSteppingSearch(GraphSnapshot snapshot) {
+        this(snapshot, maxWeight(snapshot), 0, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param snapshot snapshot of the graph
+     * @param delta    width of a bucket in length units, at least 1
+     * @param pool     pool for the relaxation of arcs
+     */
+    DeltaSteppingSearch(GraphSnapshot snapshot, int delta, ForkJoinPool pool) {
+        this(snapshot, maxWeight(snapshot), checkDelta(delta), pool);
+    }
+
+    /**
+     * @param maxWeight largest arc weight of the snapshot
+     * @param delta     width of a bucket, 0 to choose it from the weights
+     */
+    private DeltaSteppingSearch(GraphSnapshot snapshot, int maxWeight, int delta, ForkJoinPool pool) {
+        this.snapshot = snapshot;
+        this.pool = pool;
+        this.delta = delta > 0 ? delta : defaultDelta(snapshot, maxWeight);
+        int n = snapshot.vertexCount();
+        key = new AtomicLongArray(n);
+        predecessorArc = new int[n];
+        predecessor = new int[n];
+        roundStamp = new int[n];
+        bucketStamp = new int[n];
+        reverse = snapshot.reverse();
+        buckets = new IntList[(int) Math.min((long) maxWeight / this.delta + 2, n + 1L)];
+    }
+
+    private static int checkDelta(int delta) {
+        if (delta < 1) throw new IllegalArgumentException("Too small bucket width: " + delta);
+        return delta;
+    }
+
+    /**
+     * [constructor help method]
+     * Largest arc weight, all weights are checked here once.
+     */
+    private static int maxWeight(GraphSnapshot snapshot) {
+        int max = 0;
+        for (int e = 0; e < snapshot.arcCount(); e++) {
+            int weight = snapshot.weights[e];
+            if (weight < 0)
+                throw new RuntimeException(String.format("Arc %s has negative weight %s", snapshot.getArc(e).id, weight));
+            max = Math.max(max, weight);
+        }
+        return max;
+    }
+
+    private static int defaultDelta(GraphSnapshot snapshot, int maxWeight) {
+        int degree = snapshot.vertexCount() == 0 ? 1 : Math.max(1, snapshot.arcCount() / snapshot.vertexCount());
+        return Math.max(1, maxWeight / degree);
+    }
+
+    public GraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    /**
+     * Find shortest path lengths from source to all vertices.
+     *
+     * @param source index of start vertex
+     */
+    public void run(int source) {
+        int n = snapshot.vertexCount();
+        for (int v = 0; v < n; v++) {
+            key.set(v, NOT_REACHED);
+        }
+        Arrays.fill(roundStamp, 0);
+        Arrays.fill(bucketStamp, -1);
+        for (IntList bucket : buckets) {
+            if (bucket != null) bucket.size = 0;
+        }
+        overflow.size = 0;
+        pending = 0;
+        base = 0;
+        round = 0;
+        this.source = source;
+        key.set(source, 0);
+        insert(source);
+        IntList frontier = new IntList();
+        IntList settled = new IntList();
+        int bucket = 0;
+        while (pending > 0 || overflow.size > 0) {
+            if (pending == 0 || bucket == base + buckets.length) {
+                bucket = moveRing(bucket);
+                continue;
+            }
+            IntList entries = buckets[bucket % buckets.length];
+            if (entries != null && entries.size > 0) {
+                settled.size = 0;
+                while (entries.size > 0) {
+                    take(entries, bucket, frontier, settled);
+                    relax(frontier, true);
+                }
+                relax(settled, false);
+            }
+            bucket++;
+        }
+        findPredecessors();
+    }
+
+    /**
+     * [run help method]
+     * Start the ring at the given bucket, or at the first bucket of the overflow list
+     * if the ring is empty, and move the vertices of the overflow list that fit into it.
+     *
+     * @param bucket first bucket that is not done
+     * @return first bucket of the ring
+     */
+    private int moveRing(int bucket) {
+        if (pending == 0) {
+            int first = Integer.MAX_VALUE;
+            for (int i = 0; i < overflow.size; i++) {
+                int b = bucketOf(overflow.values[i]);
+                if (b >= bucket) first = Math.min(first, b);
+            }
+            if (first == Integer.MAX_VALUE) {
+                overflow.size = 0;
+                return bucket;
+            }
+            bucket = first;
+        }
+        base = bucket;
+        int[] waiting = Arrays.copyOf(overflow.values, overflow.size);
+        overflow.size = 0;
+        for (int vertex : waiting) {
+            if (bucketOf(vertex) >= bucket) insert(vertex);
+        }
+        return bucket;
+    }
+
+    /**
+     * [run help method]
+     * Move the entries of the bucket that still belong to it into the frontier of a new round.
+     */
+    private void take(IntList entries, int bucket, IntList frontier, IntList settled) {
+        round++;
+        frontier.size = 0;
+        for (int i = 0; i < entries.size; i++) {
+            int vertex = entries.values[i];
+            if (bucketOf(vertex) != bucket || roundStamp[vertex] == round) continue;
+            roundStamp[vertex] = round;
+            frontier.add(vertex);
+            if (bucketStamp[vertex] != bucket) {
+                bucketStamp[vertex] = bucket;
+                settled.add(vertex);
+            }
+        }
+        pending -= entries.size;
+        entries.size = 0;
+    }
+
+    /**
+     * [run help method]
+     * Relax the light or the heavy arcs of the vertices, in parallel if there are enough of them.
+     */
+    private void relax(IntList vertices, boolean light) {
+        if (vertices.size < PARALLEL_THRESHOLD) {
+            relaxRange(vertices.values, 0, vertices.size, light);
+        } else {
+            pool.invoke(new Relaxation(vertices.values, 0, vertices.size, light));
+        }
+    }
+
+    /**
+     * [relax help method]
+     * Lower the keys of the targets of the arcs and put the lowered ones into their buckets.
+     */
+    private void relaxRange(int[] vertices, int from, int to, boolean light) {
+        int[] offsets = snapshot.offsets;
+        int[] targets = snapshot.targets;
+        int[] weights = snapshot.weights;
+        IntList lowered = new IntList();
+        for (int i = from; i < to; i++) {
+            int vertex = vertices[i];
+            long vertexKey = key.get(vertex);
+            for (int e = offsets[vertex]; e < offsets[vertex + 1]; e++) {
+                int weight = weights[e];
+                if (weight <= delta != light) continue;
+                if ((vertexKey >>> 32) + weight >= UNREACHABLE)
+                    throw new RuntimeException(String.format("Path length to vertex %s is too big", snapshot.getVertex(targets[e]).id));
+                long candidate = vertexKey + ((long) weight << 32) + 1;
+                if (lower(targets[e], candidate)) lowered.add(targets[e]);
+            }
+        }
+        synchronized (buckets) {
+            for (int i = 0; i < lowered.size; i++) {
+                insert(lowered.values[i]);
+            }
+        }
+    }
+
+    /**
+     * [relaxRange help method]
+     * Atomic minimum of the key of the vertex and the candidate.
+     *
+     * @return true if the key was lowered
+     */
+    private boolean lower(int vertex, long candidate) {
+        long old = key.get(vertex);
+        while (candidate < old) {
+            if (key.compareAndSet(vertex, old, candidate)) return true;
+            old = key.get(vertex);
+        }
+        return false;
+    }
+
+    private void insert(int vertex) {
+        int bucket = bucketOf(vertex);
+        if (bucket - base >= buckets.length) {
+            overflow.add(vertex);
+            return;
+        }
+        int slot = bucket % buckets.length;
+        if (buckets[slot] == null) buckets[slot] = new IntList();
+        buckets[slot].add(vertex);
+        pending++;
+    }
+
+    private int bucketOf(int vertex) {
+        return (int) (key.get(vertex) >>> 32) / delta;
+    }
+
+    /**
+     * [run help method]
+     * Take for every reached vertex the arc with the smallest index that gives its key.
+     */
+    private void findPredecessors() {
+        int n = snapshot.vertexCount();
+        if (n < PARALLEL_THRESHOLD) {
+            findPredecessors(0, n);
+        } else {
+            pool.invoke(new PredecessorRange(0, n));
+        }
+    }
+
+    private void findPredecessors(int from, int to) {
+        int[] weights = reverse.weights;
+        for (int vertex = from; vertex < to; vertex++) {
+            predecessorArc[vertex] = NO_ARC;
+            long vertexKey = key.get(vertex);
+            if (vertex == source || vertexKey == NOT_REACHED) continue;
+            for (int i = reverse.offsets[vertex]; i < reverse.offsets[vertex + 1]; i++) {
+                int parent = reverse.targets[i];
+                long parentKey = key.get(parent);
+                if (parentKey != NOT_REACHED && parentKey + ((long) weights[i] << 32) + 1 == vertexKey) {
+                    int e = reverse.originalArc(i);
+                    if (predecessorArc[vertex] == NO_ARC || e < predecessorArc[vertex]) {
+                        predecessorArc[vertex] = e;
+                        predecessor[vertex] = parent;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return index of the start vertex of the last search
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * @param vertex vertex index
+     * @return path length from source or UNREACHABLE
+     */
+    public int distance(int vertex) {
+        long vertexKey = key.get(vertex);
+        return vertexKey == NOT_REACHED ? UNREACHABLE : (int) (vertexKey >>> 32);
+    }
+
+    /**
+     * @param vertex vertex index
+     * @return index of the arc used to reach the vertex or NO_ARC
+     */
+    public int predecessorArc(int vertex) {
+        return predecessorArc[vertex];
+    }
+
+    /**
+     * @param vertex reached vertex index
+     * @return amount of arcs in the path from source
+     */
+    public int hops(int vertex) {
+        return (int) key.get(vertex);
+    }
+
+    public boolean isReached(int vertex) {
+        return key.get(vertex) != NOT_REACHED;
+    }
+
+    /**
+     * @return path lengths indexed by vertex, UNREACHABLE for vertices that are not reached
+     */
+    public int[] distances() {
+        int[] res = new int[snapshot.vertexCount()];
+        for (int vertex = 0; vertex < res.length; vertex++) {
+            res[vertex] = distance(vertex);
+        }
+        return res;
+    }
+
+    /**
+     * Rebuild the path from source to target by following predecessor arcs.
+     *
+     * @param target index of end vertex
+     * @return arc indexes of the path in right order
+     */
+    public int[] arcPath(int target) {
+        if (!isReached(target))
+            throw new RuntimeException(String.format("Vertex %s has no connection to vertex %s in graph",
+                    snapshot.getVertex(target).id, snapshot.getVertex(source).id));
+        int length = hops(target);
+        int[] res = new int[length];
+        for (int vertex = target; vertex != source; vertex = predecessor[vertex]) {
+            res[--length] = predecessorArc[vertex];
+        }
+        return res;
+    }
+
+    /**
+     * Rebuild the path from source to target as a list of arcs.
+     *
+     * @param target index of end vertex
+     * @return right ordered arcs
+     */
+    public LinkedList<Arc> getPath(int target) {
+        LinkedList<Arc> res = new LinkedList<>();
+        for (int e : arcPath(target)) {
+            res.add(snapshot.getArc(e));
+        }
+        return res;
+    }
+
+    /**
+     * Vertices of one step, split in halves until small enough.
+     */
+    private class Relaxation extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] vertices;
+        private final int from;
+        private final int to;
+        private final boolean light;
+
+        Relaxation(int[] vertices, int from, int to, boolean light) {
+            this.vertices = vertices;
+            this.from = from;
+            this.to = to;
+            this.light = light;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD / 2) {
+                relaxRange(vertices, from, to, light);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Relaxation(vertices, from, middle, light), new Relaxation(vertices, middle, to, light));
+        }
+    }
+
+    private class PredecessorRange extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        PredecessorRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD * 4) {
+                findPredecessors(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PredecessorRange(from, middle), new PredecessorRange(middle, to));
+        }
+    }
+
+    /**
+     * Growable list of vertex indexes.
+     */
+    private static final class IntList {
+
+        int[] values = new int[16];
+        int size = 0;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Dijkstra's algorithm on a snapshot of the graph. Distances and the arcs
+ * used to reach every vertex are written into int arrays indexed by vertex,
+ * so a path is rebuilt by following predecessor arcs back from its end.
+ * Among paths of the same length the one with the smallest amount of arcs
+ * is chosen, the heap key holds the length in the high and the amount of
+ * arcs in the low half. If still more paths are equal, the last arc with
+ * the smallest index is taken, so the paths do not depend on the order of
+ * the heap. Arc weights must not be negative.
+ * The arrays are not cleared between searches, every entry is stamped with
+ * the number of the search that wrote it instead. One object serves one
+ * query at a time, concurrent queries take their own objects from the pool
+ * of the snapshot (see pool). A search whose thread is interrupted stops
+ * with a CancellationException, so PathQueryExecutor can free the worker of
+ * a query that timed out.
+ */
+public class DijkstraSearch {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    public static final int NO_ARC = -1;
+    static final int INTERRUPT_CHECK_MASK = 1023; // interrupt status is checked once in 1024 polled vertices
+
+    private final GraphSnapshot snapshot;
+    private final int[] distance;
+    private final int[] predecessorArc;
+    private final int[] predecessor; // source vertex of predecessorArc, saves a lookup per hop
+    private final int[] hops; // amount of arcs in the path
+    private final boolean[] targetMark; // targets of current search
+    private final int[] stamp; // number of the search that wrote the entries of a vertex
+    private int epoch = 0;
+    private final IndexedMinHeap heap;
+    private int source = -1;
+
+    DijkstraSearch(GraphSnapshot snapshot) {
+        this.snapshot = snapshot;
+        int n = snapshot.vertexCount();
+        distance = new int[n];
+        predecessorArc = new int[n];
+        predecessor = new int[n];
+        hops = new int[n];
+        targetMark = new boolean[n];
+        stamp = new int[n];
+        heap = new IndexedMinHeap(n);
+    }
+
+    /**
+     * @param snapshot snapshot of the graph
+     * @return pool of searches shared by every user of the snapshot
+     */
+    public static SearchContextPool<DijkstraSearch> pool(GraphSnapshot snapshot) {
+        return snapshot.getPool(DijkstraSearch.class, DijkstraSearch::new);
+    }
+
+    public GraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Find shortest path lengths from source to all vertices.
+     *
+     * @param source index of start vertex
+     */
+    public void run(int source) {
+        run(source, -1);
+    }
+
+    /**
+     * Find shortest path lengths from source. The search stops as soon as the
+     * target is settled, so only distances of settled vertices are final.
+     *
+     * @param source index of start vertex
+     * @param target index of end vertex or -1 to search the whole graph
+     */
+    public void run(int source, int target) {
+        if (target < 0) {
+            search(source, -1);
+            return;
+        }
+        targetMark[target] = true;
+        try {
+            search(source, 1);
+        } finally {
+            targetMark[target] = false;
+        }
+    }
+
+    /**
+     * Find shortest path lengths from source to a set of targets. The search
+     * stops as soon as every target is settled, so only distances of settled
+     * vertices are final.
+     *
+     * @param source  index of start vertex
+     * @param targets indexes of end vertices, may contain duplicates
+     */
+    public void run(int source, int[] targets) {
+        int remaining = 0;
+        for (int target : targets) {
+            if (!targetMark[target]) {
+                targetMark[target] = true;
+                remaining++;
+            }
+        }
+        try {
+            search(source, remaining);
+        } finally {
+            for (int target : targets) {
+                targetMark[target] = false;
+            }
+        }
+    }
+
+    /**
+     * [run help method]
+     * Main loop of the search.
+     *
+     * @param source    index of start vertex
+     * @param remaining amount of marked targets, -1 to search the whole graph
+     */
+    private void search(int source, int remaining) {
+        boolean untilAllSettled = remaining < 0;
+        int[] offsets = snapshot.offsets;
+        int[] targets = snapshot.targets;
+        int[] weights = snapshot.weights;
+        int searchNumber = nextEpoch();
+        heap.clear();
+        this.source = source;
+        stamp[source] = searchNumber;
+        distance[source] = 0;
+        hops[source] = 0;
+        predecessorArc[source] = NO_ARC;
+        if (remaining == 0) return;
+        heap.insertOrDecrease(source, 0);
+        int polled = 0;
+        while (!heap.isEmpty()) {
+            checkInterrupt(++polled);
+            int vertex = heap.poll();
+            if (!untilAllSettled && targetMark[vertex] && --remaining == 0) break;
+            int length = distance[vertex];
+            int nextHops = hops[vertex] + 1;
+            for (int e = offsets[vertex]; e < offsets[vertex + 1]; e++) {
+                int weight = weights[e];
+                if (weight < 0)
+                    throw new RuntimeException(String.format("Arc %s has negative weight %s", snapshot.getArc(e).id, weight));
+                long candidate = (long) length + weight;
+                if (candidate >= UNREACHABLE)
+                    throw new RuntimeException(String.format("Path length to vertex %s is too big", snapshot.getVertex(targets[e]).id));
+                int next = targets[e];
+                if (stamp[next] != searchNumber) {
+                    stamp[next] = searchNumber;
+                    distance[next] = UNREACHABLE;
+                }
+                if (candidate < distance[next] || candidate == distance[next]
+                        && (nextHops < hops[next] || nextHops == hops[next] && e < predecessorArc[next])) {
+                    distance[next] = (int) candidate;
+                    hops[next] = nextHops;
+                    predecessorArc[next] = e;
+                    predecessor[next] = vertex;
+                    heap.insertOrDecrease(next, candidate << 32 | nextHops);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop the search if its thread was interrupted. The status is only read once
+     * in INTERRUPT_CHECK_MASK + 1 polled vertices and is not cleared.
+     *
+     * @param polled amount of vertices polled by the search so far
+     */
+    static void checkInterrupt(int polled) {
+        if ((polled & INTERRUPT_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted())
+            throw new CancellationException("Search was interrupted");
+    }
+
+    /**
+     * [search help method]
+     * Start a new search number, all entries written by earlier searches become invalid.
+     * When the counter overflows the stamps are cleared once.
+     *
+     * @return number of the new search
+     */
+    private int nextEpoch() {
+        if (++epoch == 0) {
+            Arrays.fill(stamp, 0);
+            epoch = 1;
+        }
+        return epoch;
+    }
+
+    /**
+     * @return index of the start vertex of the last search
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * @param vertex vertex index
+     * @return path length from source or UNREACHABLE
+     */
+    public int distance(int vertex) {
+        return stamp[vertex] == epoch ? distance[vertex] : UNREACHABLE;
+    }
+
+    /**
+     * @param vertex vertex index
+     * @return index of the arc used to reach the vertex or NO_ARC
+     */
+    public int predecessorArc(int vertex) {
+        return stamp[vertex] == epoch ? predecessorArc[vertex] : NO_ARC;
+    }
+
+    /**
+     * @param vertex reached vertex index
+     * @return amount of arcs in the path from source
+     */
+    public int hops(int vertex) {
+        return hops[vertex];
+    }
+
+    public boolean isReached(int vertex) {
+        return distance(vertex) != UNREACHABLE;
+    }
+
+    /**
+     * Rebuild the path from source to target by following predecessor arcs.
+     *
+     * @param target index of end vertex
+     * @return arc indexes of the path in right order
+     */
+    public int[] arcPath(int target) {
+        if (!isReached(target))
+            throw new RuntimeException(String.format("Vertex %s has no connection to vertex %s in graph",
+                    snapshot.getVertex(target).id, snapshot.getVertex(source).id));
+        int length = hops[target];
+        int[] res = new int[length];
+        for (int vertex = target; vertex != source; vertex = predecessor[vertex]) {
+            res[--length] = predecessorArc[vertex];
+        }
+        return res;
+    }
+
+    /**
+     * Rebuild the path from source to target as a list of arcs.
+     *
+     * @param target index of end vertex
+     * @return right ordered arcs
+     */
+    public LinkedList<Arc> getPath(int target) {
+        LinkedList<Arc> res = new LinkedList<>();
+        for (int e : arcPath(target)) {
+            res.add(snapshot.getArc(e));
+        }
+        return res;
+    }
+}
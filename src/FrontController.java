@@ -1,4 +1,5 @@
 import java.util.LinkedList;
+import java.util.concurrent.CompletableFuture;
 
 public class FrontController {
 
@@ -7,9 +8,9 @@ public class FrontController {
         long time = System.currentTimeMillis();
 
         Graph graph1 = new Graph("A");
-        graph1.createRandomSimpleGraph(10, 25); // max (2500, 3123475)
+        graph1.createRandomSimpleGraph(10, 25);
         Graph graph2 = new Graph("B");
-        graph2.createRandomSimpleGraph(10, 25); // max (2500, 3123475)
+        graph2.createRandomSimpleGraph(10, 25);
 
         System.out.println(tabulation + "\nALEKSEI ZAVORONKOV EXERCISE");
         GraphsSum graphsSum = new GraphsSum(graph1, graph2);
@@ -17,15 +18,20 @@ public class FrontController {
         System.out.println(mainGraph);
 
         ShortestPath shortestPath = new ShortestPath();
+        HeightPath heightPath = new HeightPath(mainGraph);
         Vertex vertexFrom = mainGraph.getRandomVertex();
         Vertex vertexTo = mainGraph.getRandomVertex();
-        LinkedList<Arc> path = shortestPath.getPath(vertexFrom, vertexTo, false, mainGraph);
+        CompletableFuture<LinkedList<Arc>> path;
+        CompletableFuture<HeightPath.Path> heightPathResult;
+        try (PathQueryExecutor executor = new PathQueryExecutor(mainGraph.createSnapshot())) {
+            path = executor.submit(PathQueryExecutor.shortestPath(vertexFrom, vertexTo));
+            heightPathResult = executor.submit(PathQueryExecutor.heightPath("v1", "v10"));
+        }
         System.out.println(tabulation + "\nBORISS DROZDOV EXERCISE\n");
-        System.out.println(shortestPath.pathToString(path, vertexFrom, vertexTo));
+        System.out.println(shortestPath.pathToString(path.join(), vertexFrom, vertexTo));
 
         System.out.println(tabulation + "\nMIHHAIL SKRIPNIK EXERCISE\n");
-        HeightPath heightPath = new HeightPath(mainGraph);
-        heightPath.run("v1", "v10");
+        heightPath.printPath(heightPathResult.join());
         System.out.println(tabulation);
 
         System.out.println("NIKITA VIIRA EXERCISE");
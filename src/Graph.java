@@ -1,4 +1,10 @@
-import java.util.Random;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Class which represents Graph itself with vertexes and arcs.
@@ -8,10 +14,18 @@ public class Graph {
     public String id;
     public Vertex first;
     public int info = 0;
+    private final List<GraphListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Vertex> vertexIndex = new HashMap<>(); // id -> vertex, filled by createVertex
+    private HeightProvider heightProvider = HeightProvider.randomWalk(System.nanoTime());
+    private int vertexNumber = 0; // amount of vertices created, numbers them for the height provider
+    private volatile long version = 0; // changed by every change made through the methods of this graph
 
     Graph(String s, Vertex v) {
         id = s;
         first = v;
+        for (Vertex current = v; current != null; current = current.next) {
+            vertexIndex.putIfAbsent(current.id, current);
+        }
     }
 
     Graph(String s) {
@@ -48,20 +62,25 @@ public class Graph {
 
     public Vertex createVertex(String vid) {
         Vertex res = new Vertex(vid);
+        res.height = heightProvider.height(vid, vertexNumber++);
         res.next = first;
         first = res;
+        vertexIndex.put(vid, res);
+        version++;
+        for (GraphListener listener : listeners) listener.vertexCreated(res);
         return res;
     }
 
     public void createVertex(String vid, Vertex previousVertex) {
         previousVertex.next = new Vertex(vid);
+        previousVertex.next.height = heightProvider.height(vid, vertexNumber++);
+        vertexIndex.putIfAbsent(vid, previousVertex.next);
+        version++;
+        for (GraphListener listener : listeners) listener.vertexCreated(previousVertex.next);
     }
 
     public void createArc(String aid, Vertex from, Vertex to) {
-        Arc res = new Arc(aid);
-        res.next = from.first;
-        from.first = res;
-        res.target = to;
+        createArc(aid, from, to, 0);
     }
 
     public void createArc(String aid, Vertex from, Vertex to, int weight) {
@@ -70,6 +89,74 @@ public class Graph {
         res.next = from.first;
         from.first = res;
         res.target = to;
+        version++;
+        for (GraphListener listener : listeners) listener.arcCreated(from, res);
+    }
+
+    /**
+     * Change the weight of an arc and tell the listeners about it.
+     *
+     * @param from   source vertex of the arc
+     * @param arc    arc to change
+     * @param weight new weight
+     */
+    public void setArcWeight(Vertex from, Arc arc, int weight) {
+        Arc a = from.first;
+        while (a != null && a != arc) a = a.next;
+        if (a == null) throw new RuntimeException(String.format("Arc %s does not start at vertex %s", arc.id, from.id));
+        int oldWeight = arc.weight;
+        arc.weight = weight;
+        version++;
+        for (GraphListener listener : listeners) listener.arcWeightChanged(from, arc, oldWeight);
+    }
+
+    /**
+     * Find vertex by id in constant time. Vertices linked into the list directly,
+     * without createVertex, are not found.
+     *
+     * @param vid id of the vertex
+     * @return vertex with the id or null if the graph has none
+     */
+    public Vertex findVertex(String vid) {
+        return vertexIndex.get(vid);
+    }
+
+    /**
+     * Set the source of heights of vertices created after this call.
+     *
+     * @param heightProvider provider of heights
+     */
+    public void setHeightProvider(HeightProvider heightProvider) {
+        this.heightProvider = heightProvider;
+    }
+
+    public HeightProvider getHeightProvider() {
+        return heightProvider;
+    }
+
+    /**
+     * Version of the graph. It changes with every vertex, arc or merge made through
+     * the methods of this graph, so results computed for an older version can be
+     * recognised as stale. Direct changes of the public fields are not counted.
+     *
+     * @return current version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Register listener of changes made through the methods of this graph.
+     * Direct changes of the public fields are not reported.
+     *
+     * @param listener listener to add
+     */
+    public void addListener(GraphListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(GraphListener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -103,30 +190,24 @@ public class Graph {
 
     /**
      * Create an adjacency matrix of this graph.
-     * Side effect: corrupts info fields in the graph
+     * Rows and columns follow the order of the vertex list, the graph
+     * itself is not modified, so it is safe to call while other threads
+     * read the graph.
      *
      * @return adjacency matrix
      */
     public int[][] createAdjMatrix() {
-        info = 0;
-        Vertex v = first;
-        while (v != null) {
-            v.info = info++;
-            v = v.next;
-        }
-        int[][] res = new int[info][info];
-        v = first;
-        while (v != null) {
-            int i = v.info;
-            Arc a = v.first;
-            while (a != null) {
-                int j = a.target.info;
-                res[i][j]++;
-                a = a.next;
-            }
-            v = v.next;
-        }
-        return res;
+        return createSnapshot().createAdjMatrix();
+    }
+
+    /**
+     * Create a compressed sparse row snapshot of this graph.
+     * It has no side effects on the graph.
+     *
+     * @return snapshot of the current state of the graph
+     */
+    public GraphSnapshot createSnapshot() {
+        return new GraphSnapshot(this);
     }
 
     /**
@@ -139,40 +220,53 @@ public class Graph {
     public void createRandomSimpleGraph(int n, int m) {
         if (n <= 0)
             return;
-        if (n > 2500)
-            throw new IllegalArgumentException("Too many vertices: " + n);
-        if (m < n - 1 || m > n * (n - 1) / 2)
+        if (m < n - 1 || m > (long) n * (n - 1) / 2)
             throw new IllegalArgumentException
                     ("Impossible number of edges: " + m);
         first = null;
+        vertexIndex.clear();
+        version++;
+        for (GraphListener listener : listeners) listener.graphCleared();
         createRandomTree(n);       // n-1 edges created here
         Vertex[] vert = new Vertex[n];
+        Map<Vertex, Integer> position = new IdentityHashMap<>(n * 2);
         Vertex v = first;
         int c = 0;
         while (v != null) {
+            position.put(v, c);
             vert[c++] = v;
             v = v.next;
         }
-        int[][] connected = createAdjMatrix();
+        LongHashSet connected = new LongHashSet(m);  // edges as smaller index * n + bigger index
+        for (int i = 0; i < n; i++) {
+            for (Arc a = vert[i].first; a != null; a = a.next) {
+                connected.add(edgeKey(i, position.get(a.target), n));
+            }
+        }
         int edgeCount = m - n + 1;  // remaining edges
         while (edgeCount > 0) {
             int i = (int) (Math.random() * n);  // random source
             int j = (int) (Math.random() * n);  // random target
             if (i == j)
                 continue;  // no loops
-            if (connected[i][j] != 0 || connected[j][i] != 0)
+            if (!connected.add(edgeKey(i, j, n)))
                 continue;  // no multiple edges
             Vertex vi = vert[i];
             Vertex vj = vert[j];
             int randomLength = (int) (Math.random() * n);
             createArc("a" + vi.toString() + "_" + vj.toString(), vi, vj, randomLength);
-            connected[i][j] = 1;
             createArc("a" + vj.toString() + "_" + vi.toString(), vj, vi, randomLength);
-            connected[j][i] = 1;
             edgeCount--;  // a new edge happily created
         }
     }
 
+    /**
+     * [createRandomSimpleGraph help method]
+     */
+    private static long edgeKey(int i, int j, int n) {
+        return i < j ? (long) i * n + j : (long) j * n + i;
+    }
+
     public boolean hasFirst() {
         return first != null;
     }
@@ -184,6 +278,8 @@ public class Graph {
     /**
      * [MY TASK]
      * Add Graph to the existing Graph.
+     * Vertices are looked up by id through the index of this graph,
+     * so the whole merge takes linear time.
      *
      * @param graphToAdd Graph which will be added
      * @return result of two Graphs addition
@@ -195,21 +291,14 @@ public class Graph {
             throw new RuntimeException(String.format("Can't add empty [Graph %s] to [Graph %s]", graphToAdd.id, this.id));
 
         id = id + " + " + graphToAdd.id;
+        version++;
 
         addAllNewVertexes(graphToAdd);
 
-        Vertex homeVertex = getFirst();
         Vertex guestVertex = graphToAdd.getFirst();
         while (guestVertex != null) {
-            if (homeVertex.id.equals(guestVertex.id)) {
-                synchroniseAllArks(guestVertex, homeVertex);
-                guestVertex = guestVertex.getNext();
-                homeVertex = homeVertex.getNext();
-            } else if (homeVertex.hasNext()) {
-                homeVertex = homeVertex.getNext();
-            } else {
-                break;
-            }
+            synchroniseAllArks(guestVertex, getTargetVertex(guestVertex));
+            guestVertex = guestVertex.getNext();
         }
 
         return this;
@@ -218,17 +307,23 @@ public class Graph {
     /**
      * [addGraph help method]
      * Add to the Vertex in existing Graph all Arcs which it doesn't have.
+     * Arcs are compared by the id of their target.
      *
      * @param guestVertex Vertex from Graph which will be added
      * @param homeVertex  Vertex from Graph to which we add
      */
     private void synchroniseAllArks(Vertex guestVertex, Vertex homeVertex) {
 
+        Set<String> targets = new HashSet<>();
+        for (Arc homeArc = homeVertex.getFirst(); homeArc != null; homeArc = homeArc.getNext()) {
+            targets.add(homeArc.target.id);
+        }
+
         Arc guestArc = guestVertex.getFirst();
 
         while (guestArc != null) {
 
-            if (!checkArcExistence(guestArc, homeVertex)) {
+            if (targets.add(guestArc.target.id)) {
                 createArc("a" + homeVertex.id + "_" + guestArc.target.id, homeVertex, getTargetVertex(guestArc.target), guestArc.weight);
             }
 
@@ -245,56 +340,29 @@ public class Graph {
      */
     private Vertex getTargetVertex(Vertex targetVertex) {
 
-        Vertex currentVertex = getFirst();
-
-        while (currentVertex != null) {
-
-            if (currentVertex.id.equals(targetVertex.id)) return currentVertex;
-
-            currentVertex = currentVertex.getNext();
-        }
-
-        throw new RuntimeException("Was unexpected situation in search of Vertex!");
-    }
-
-    /**
-     * [synchroniseAllArks help method]
-     * Check if existing Graph already has current Arc.
-     *
-     * @param guestArc   Arc from Graph which will be added
-     * @param homeVertex Vertex from Graph to which we add
-     * @return if @param homeVertex has @param guestArc
-     */
-    private boolean checkArcExistence(Arc guestArc, Vertex homeVertex) {
-
-        Arc homeArc = homeVertex.getFirst();
-
-        while (homeArc != null) {
-
-            if (guestArc.target.id.equals(homeArc.target.id)) return true;
-            homeArc = homeArc.getNext();
-        }
-
-        return false;
+        Vertex vertex = findVertex(targetVertex.id);
+        if (vertex == null) throw new RuntimeException("Was unexpected situation in search of Vertex!");
+        return vertex;
     }
 
     /**
      * [addGraph help method]
-     * Add to the existing Graph all Vertexes which it doesn't have.
+     * Add to the end of existing Graph all Vertexes which it doesn't have.
      *
      * @param graphToAdd Graph which will be added
      */
     private void addAllNewVertexes(Graph graphToAdd) {
 
+        Vertex lastVertex = getFirst();
+        while (lastVertex.hasNext()) lastVertex = lastVertex.getNext();
+
         Vertex currentVertex = graphToAdd.getFirst();
 
         while (currentVertex != null) {
 
-            Vertex previousVertex;
-            try {
-                previousVertex = checkForVertexExistence(currentVertex);
-                createVertex(currentVertex.id, previousVertex);
-            } catch (RuntimeException ignored) {
+            if (findVertex(currentVertex.id) == null) {
+                createVertex(currentVertex.id, lastVertex);
+                lastVertex = lastVertex.getNext();
             }
 
             currentVertex = currentVertex.getNext();
@@ -302,24 +370,6 @@ public class Graph {
 
     }
 
-    /**
-     * [addAllNewVertexes help method]
-     * Check if existing Graph already has current Vertex.
-     *
-     * @param vertexToCheck Vertex from Graph which will be added
-     * @return Vertex (with the same ID as @param vertexToCheck has) from Graph to which we add
-     */
-    private Vertex checkForVertexExistence(Vertex vertexToCheck) {
-
-        Vertex currentVertex = getFirst();
-        while (currentVertex != null) {
-            if (currentVertex.id.equals(vertexToCheck.id)) throw new RuntimeException("This Vertex exists!");
-            if (currentVertex.hasNext()) currentVertex = currentVertex.getNext();
-            else return currentVertex;
-        }
-        throw new RuntimeException("Was unexpected situation in Graph when added Vertexes!");
-    }
-
     /**
      * Get random vertex from the graph
      *
@@ -339,31 +389,13 @@ public class Graph {
     }
 
     /**
-     * Class that generates realistic elevation values ranging from -7 to 5642 meters
-     * (the lowest and highest point in Europe above sea level).
+     * Limits of realistic elevation values ranging from -7 to 5642 meters
+     * (the lowest and highest point in Europe above sea level), used by the height providers.
      */
     static class HeightGenerator {
-        static int previousHeight = 143; // 143m height of the center of Tallinn above sea level
-        static int maxValueElevation = 10; // 10m maximal difference between 2 vertices
-        static int heightMin = -7; // The lowest point -7m is in the north of Rotterdam
-        static int heightMax = 5642; // The height of Mount Elbrus is 5642m above sea level
-
-        /**
-         * Method that randomly generates the height for a point, taking into account the above parameters.
-         */
-        static int getHeight() {
-            Random rand = new Random();
-            int value = rand.nextInt(maxValueElevation);
-            int direction = rand.nextBoolean() ? 1 : -1;
-            value *= direction;
-            if (previousHeight + value >= heightMin && previousHeight + value <= heightMax) {
-                previousHeight += value;
-            } else if (previousHeight + value < heightMin) {
-                previousHeight = heightMin;
-            } else {
-                previousHeight = heightMax;
-            }
-            return previousHeight;
-        }
+        static final int startHeight = 143; // 143m height of the center of Tallinn above sea level
+        static final int maxValueElevation = 10; // 10m maximal difference between 2 vertices
+        static final int heightMin = -7; // The lowest point -7m is in the north of Rotterdam
+        static final int heightMax = 5642; // The height of Mount Elbrus is 5642m above sea level
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,39 @@
+/**
+ * Listener of changes of a Graph. Registered with
+ * Graph.addListener, called by the thread that changes the graph.
+ */
+public interface GraphListener {
+
+    /**
+     * Called after a new vertex was added to the graph.
+     *
+     * @param vertex new vertex
+     */
+    default void vertexCreated(Vertex vertex) {
+    }
+
+    /**
+     * Called after a new arc was added to the graph.
+     *
+     * @param from source vertex of the arc
+     * @param arc  new arc
+     */
+    default void arcCreated(Vertex from, Arc arc) {
+    }
+
+    /**
+     * Called after the weight of an arc was changed with Graph.setArcWeight.
+     *
+     * @param from      source vertex of the arc
+     * @param arc       changed arc, already with the new weight
+     * @param oldWeight weight of the arc before the change
+     */
+    default void arcWeightChanged(Vertex from, Arc arc, int oldWeight) {
+    }
+
+    /**
+     * Called after all vertices were removed from the graph at once.
+     */
+    default void graphCleared() {
+    }
+}
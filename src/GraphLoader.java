@@ -0,0 +1,436 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Loads a graph from text files. The arc file has one arc per line,
+ * "from,to" or "from,to,weight" (weight 0 if missing). The optional vertex
+ * file has one vertex per line, "id,height". Fields may be separated by
+ * commas, semicolons, tabs or spaces, empty lines and lines starting with
+ * '#' are skipped, a first line starting with the field "from" (arc file)
+ * or "id" (vertex file) is a header. Vertices get indexes in the order they
+ * first appear, vertex file first. Vertices without a height in the vertex
+ * file get one from the height provider.
+ * Files are read through memory mapping and parsed as bytes, a String is
+ * only created once for every distinct vertex id.
+ */
+public class GraphLoader {
+
+    private static final long WINDOW = 1 << 30; // bytes mapped at once
+    private static final int CHUNK = 1 << 20; // bytes copied from the mapping at once
+
+    private final Path arcFile;
+    private final Path vertexFile;
+    private final HeightProvider heightProvider;
+
+    GraphLoader(Path arcFile) {
+        this(arcFile, null);
+    }
+
+    GraphLoader(Path arcFile, Path vertexFile) {
+        this(arcFile, vertexFile, HeightProvider.randomWalk(System.nanoTime()));
+    }
+
+    /**
+     * @param arcFile        file of arcs
+     * @param vertexFile     file of vertex heights, or null
+     * @param heightProvider heights of vertices that are not in the vertex file
+     */
+    GraphLoader(Path arcFile, Path vertexFile, HeightProvider heightProvider) {
+        this.arcFile = arcFile;
+        this.vertexFile = vertexFile;
+        this.heightProvider = heightProvider;
+    }
+
+    /**
+     * Load the files straight into snapshot arrays, no Vertex or Arc objects are created.
+     *
+     * @return snapshot of the loaded graph
+     */
+    public GraphSnapshot loadSnapshot() {
+        return load().toSnapshot(heightProvider);
+    }
+
+    /**
+     * Load the files into a linked graph. Vertices and arcs keep the order of the files,
+     * arcs get ids "a" + from + "_" + to.
+     *
+     * @param id id of the new graph
+     * @return loaded graph
+     */
+    public Graph loadGraph(String id) {
+        return load().toSnapshot(heightProvider).toGraph(id);
+    }
+
+    /**
+     * Read a file of vertex heights alone.
+     *
+     * @param vertexFile file of "id,height" lines
+     * @return height by vertex id
+     */
+    static Map<String, Integer> readHeights(Path vertexFile) {
+        Parsed parsed = new Parsed();
+        readVertices(vertexFile, parsed);
+        String[] ids = parsed.ids.ids();
+        Map<String, Integer> result = new HashMap<>(ids.length * 2);
+        for (int v = 0; v < ids.length; v++) {
+            result.put(ids[v], parsed.heights[v]);
+        }
+        return result;
+    }
+
+    /**
+     * [loadSnapshot help method]
+     * Parse both files.
+     */
+    private Parsed load() {
+        Parsed parsed = new Parsed();
+        if (vertexFile != null) readVertices(vertexFile, parsed);
+        read(arcFile, (fields, firstLine) -> {
+            if (!fields.next()) return;
+            if (firstLine && fields.equalsAscii("from")) return;
+            int from = parsed.ids.intern(fields);
+            if (!fields.next()) throw fields.error("target of the arc is missing");
+            int to = parsed.ids.intern(fields);
+            int weight = fields.next() ? fields.intValue() : 0;
+            parsed.addArc(from, to, weight);
+        });
+        return parsed;
+    }
+
+    /**
+     * [load help method]
+     * Parse the vertex file, every vertex in it gets a height.
+     */
+    private static void readVertices(Path vertexFile, Parsed parsed) {
+        read(vertexFile, (fields, firstLine) -> {
+            if (!fields.next()) return;
+            if (firstLine && fields.equalsAscii("id")) return;
+            int vertex = parsed.ids.intern(fields);
+            if (!fields.next()) throw fields.error("height is missing");
+            parsed.setHeight(vertex, fields.intValue());
+        });
+    }
+
+    /**
+     * [load help method]
+     * Map the file window by window and give every line to the handler. Bytes are copied from
+     * the mapping to a heap array in large slices, which is much faster to scan byte by byte
+     * than the mapped buffer. The unfinished last line of a slice is moved to the start of the
+     * array and completed by the next slice.
+     */
+    private static void read(Path file, LineHandler handler) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Fields fields = new Fields(file);
+            byte[] chunk = new byte[CHUNK];
+            int filled = 0;
+            boolean firstLine = true;
+            for (long position = 0; position < size; position += WINDOW) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+                while (buffer.hasRemaining()) {
+                    if (filled == chunk.length) chunk = Arrays.copyOf(chunk, chunk.length * 2); // line longer than the chunk
+                    int length = Math.min(chunk.length - filled, buffer.remaining());
+                    buffer.get(chunk, filled, length);
+                    int start = 0;
+                    for (int i = filled; i < filled + length; i++) {
+                        if (chunk[i] != '\n') continue;
+                        firstLine = handle(handler, fields, chunk, start, i, firstLine);
+                        start = i + 1;
+                    }
+                    filled += length - start;
+                    System.arraycopy(chunk, start, chunk, 0, filled);
+                }
+            }
+            if (filled > 0) handle(handler, fields, chunk, 0, filled, firstLine);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * [read help method]
+     * Give one line to the handler unless it is empty or a comment.
+     *
+     * @return if the next line is still the first line with content
+     */
+    private static boolean handle(LineHandler handler, Fields fields, byte[] bytes, int start, int end, boolean firstLine) {
+        fields.line++;
+        if (start < end && bytes[start] == '#') return firstLine;
+        fields.reset(bytes, start, end);
+        if (!fields.hasContent()) return firstLine;
+        handler.line(fields, firstLine);
+        return false;
+    }
+
+    private interface LineHandler {
+        void line(Fields fields, boolean firstLine);
+    }
+
+    /**
+     * Cursor over the fields of one line of a mapped file.
+     */
+    private static class Fields {
+
+        private final Path file;
+        private byte[] bytes;
+        private int end;
+        private int position;
+        int start; // current field
+        int length;
+        int hash;
+        long line = 0;
+
+        Fields(Path file) {
+            this.file = file;
+        }
+
+        void reset(byte[] bytes, int start, int end) {
+            this.bytes = bytes;
+            this.position = start;
+            this.end = end;
+            this.length = 0;
+        }
+
+        boolean hasContent() {
+            for (int i = position; i < end; i++) {
+                if (!isSpace(bytes[i])) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Move to the next field and compute the hash of its bytes.
+         *
+         * @return false if the line has no more fields
+         */
+        boolean next() {
+            while (position < end && isSpace(bytes[position])) position++;
+            if (position < end && length > 0 && isComma(bytes[position])) {
+                position++;
+                while (position < end && isSpace(bytes[position])) position++;
+            }
+            if (position >= end) return false;
+            start = position;
+            int h = 0;
+            while (position < end) {
+                byte b = bytes[position];
+                if (isSpace(b) || isComma(b)) break;
+                h = 31 * h + b;
+                position++;
+            }
+            length = position - start;
+            hash = h;
+            if (length == 0) throw error("empty field");
+            return true;
+        }
+
+        byte byteAt(int i) {
+            return bytes[start + i];
+        }
+
+        boolean equalsAscii(String text) {
+            if (text.length() != length) return false;
+            for (int i = 0; i < length; i++) {
+                if (byteAt(i) != text.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        int intValue() {
+            int i = 0;
+            boolean negative = byteAt(0) == '-';
+            if (negative || byteAt(0) == '+') i++;
+            if (i == length) throw error("not a number");
+            long value = 0;
+            for (; i < length; i++) {
+                int digit = byteAt(i) - '0';
+                if (digit < 0 || digit > 9) throw error("not a number");
+                value = value * 10 + digit;
+                if (value > Integer.MAX_VALUE + 1L) throw error("number is too big");
+            }
+            if (negative) value = -value;
+            if (value > Integer.MAX_VALUE) throw error("number is too big");
+            return (int) value;
+        }
+
+        RuntimeException error(String message) {
+            return new RuntimeException(String.format("Line %d of %s: %s", line, file, message));
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\t' || b == '\r';
+        }
+
+        private static boolean isComma(byte b) {
+            return b == ',' || b == ';';
+        }
+    }
+
+    /**
+     * Open addressing hash table from id bytes to vertex index. Bytes of every id are kept
+     * once in a shared byte array, so a lookup of an id that is already known allocates nothing.
+     */
+    private static class IdTable {
+
+        private long[] table = new long[1 << 10]; // hash in the high half, vertex index + 1 in the low half, 0 is empty
+        private int[] hashes = new int[1 << 9];
+        private int[] keyStart = new int[1 << 9];
+        private int[] keyLength = new int[1 << 9];
+        private byte[] keys = new byte[1 << 12];
+        private String[] ids = new String[1 << 9];
+        private int size = 0;
+        private int keysSize = 0;
+
+        int intern(Fields fields) {
+            int mask = table.length - 1;
+            int slot = mix(fields.hash) & mask;
+            while (table[slot] != 0) {
+                long entry = table[slot];
+                int vertex = (int) entry - 1;
+                if ((int) (entry >>> 32) == fields.hash && sameKey(vertex, fields)) return vertex;
+                slot = (slot + 1) & mask;
+            }
+            int vertex = add(fields);
+            table[slot] = entry(fields.hash, vertex);
+            if (size * 2 > table.length) rehash();
+            return vertex;
+        }
+
+        String[] ids() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        int size() {
+            return size;
+        }
+
+        private boolean sameKey(int vertex, Fields fields) {
+            if (keyLength[vertex] != fields.length) return false;
+            int offset = keyStart[vertex];
+            for (int i = 0; i < fields.length; i++) {
+                if (keys[offset + i] != fields.byteAt(i)) return false;
+            }
+            return true;
+        }
+
+        private int add(Fields fields) {
+            if (size == hashes.length) {
+                int capacity = size * 2;
+                hashes = Arrays.copyOf(hashes, capacity);
+                keyStart = Arrays.copyOf(keyStart, capacity);
+                keyLength = Arrays.copyOf(keyLength, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+            }
+            if (keysSize + fields.length > keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(keys.length * 2, keysSize + fields.length));
+            }
+            for (int i = 0; i < fields.length; i++) {
+                keys[keysSize + i] = fields.byteAt(i);
+            }
+            hashes[size] = fields.hash;
+            keyStart[size] = keysSize;
+            keyLength[size] = fields.length;
+            ids[size] = new String(keys, keysSize, fields.length, StandardCharsets.UTF_8);
+            keysSize += fields.length;
+            return size++;
+        }
+
+        private void rehash() {
+            long[] bigger = new long[table.length * 2];
+            int mask = bigger.length - 1;
+            for (int vertex = 0; vertex < size; vertex++) {
+                int slot = mix(hashes[vertex]) & mask;
+                while (bigger[slot] != 0) slot = (slot + 1) & mask;
+                bigger[slot] = entry(hashes[vertex], vertex);
+            }
+            table = bigger;
+        }
+
+        private static long entry(int hash, int vertex) {
+            return (long) hash << 32 | (vertex + 1);
+        }
+
+        private static int mix(int hash) {
+            int h = hash * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * Result of parsing, arcs in file order.
+     */
+    private static class Parsed {
+
+        private static final int NO_HEIGHT = Integer.MIN_VALUE; // height not given in the vertex file
+
+        final IdTable ids = new IdTable();
+        int[] heights = new int[1 << 9];
+        private int[] from = new int[1 << 10];
+        private int[] to = new int[1 << 10];
+        private int[] weight = new int[1 << 10];
+        private int arcCount = 0;
+
+        Parsed() {
+            Arrays.fill(heights, NO_HEIGHT);
+        }
+
+        void setHeight(int vertex, int height) {
+            if (vertex >= heights.length) {
+                int oldLength = heights.length;
+                heights = Arrays.copyOf(heights, Math.max(oldLength * 2, vertex + 1));
+                Arrays.fill(heights, oldLength, heights.length, NO_HEIGHT);
+            }
+            heights[vertex] = height;
+        }
+
+        void addArc(int source, int target, int arcWeight) {
+            if (arcCount == from.length) {
+                int capacity = arcCount * 2;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                weight = Arrays.copyOf(weight, capacity);
+            }
+            from[arcCount] = source;
+            to[arcCount] = target;
+            weight[arcCount] = arcWeight;
+            arcCount++;
+        }
+
+        /**
+         * Group the arcs by source with a counting sort, arcs of one vertex stay in file order.
+         */
+        GraphSnapshot toSnapshot(HeightProvider heightProvider) {
+            int n = ids.size();
+            int[] offsets = new int[n + 1];
+            for (int e = 0; e < arcCount; e++) {
+                offsets[from[e] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            int[] fill = Arrays.copyOf(offsets, n);
+            int[] targets = new int[arcCount];
+            int[] weights = new int[arcCount];
+            for (int e = 0; e < arcCount; e++) {
+                int position = fill[from[e]]++;
+                targets[position] = to[e];
+                weights[position] = weight[e];
+            }
+            String[] vertexIds = ids.ids();
+            int[] vertexHeights = new int[n];
+            for (int v = 0; v < n; v++) {
+                boolean known = v < heights.length && heights[v] != NO_HEIGHT;
+                vertexHeights[v] = known ? heights[v] : heightProvider.height(vertexIds[v], v);
+            }
+            return new GraphSnapshot(vertexIds, offsets, targets, weights, vertexHeights);
+        }
+    }
+}
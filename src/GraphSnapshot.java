@@ -0,0 +1,391 @@
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable compressed sparse row (CSR) snapshot of a Graph.
+ * Vertices are numbered 0..n-1 in the order of the vertex list, the arcs
+ * of vertex v are stored at positions offsets[v]..offsets[v + 1] - 1 of the
+ * targets and weights arrays. Algorithms that run against the snapshot scan
+ * primitive arrays instead of following Vertex.next / Arc.next references,
+ * and map their results back to Vertex and Arc objects through
+ * getVertex and getArc. A snapshot built directly from arrays (for example
+ * by GraphLoader or SnapshotFile) has no graph behind it, its Vertex and
+ * Arc objects are created on first use of getVertex or getArc.
+ */
+public final class GraphSnapshot {
+
+    public final int[] offsets; // first arc index of each vertex, offsets[n] == number of arcs
+    public final int[] targets; // target vertex index of each arc
+    public final int[] weights; // weight of each arc
+    public final int[] heights; // height of each vertex
+
+    private final IntFunction<String> vertexIds;
+    private final IntFunction<String> arcIds; // null if arc ids are "a" + source id + "_" + target id
+    private final ToIntFunction<String> idLookup; // null if the index map is built from vertexIds
+    private volatile Vertex[] vertices;
+    private volatile Arc[] arcs;
+    private volatile Map<String, Integer> index;
+    private volatile GraphSnapshot reverse;
+    private volatile int[] originalArcs; // same arc in the reverse snapshot for every arc, null until reverse is built
+    private final Map<Class<?>, SearchContextPool<?>> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Take a snapshot of the current state of the graph. Later changes
+     * of the graph are not visible through the snapshot.
+     *
+     * @param graph graph to take the snapshot of
+     */
+    GraphSnapshot(Graph graph) {
+        int vertexCount = 0;
+        int arcCount = 0;
+        Vertex v = graph.first;
+        while (v != null) {
+            vertexCount++;
+            Arc a = v.first;
+            while (a != null) {
+                arcCount++;
+                a = a.next;
+            }
+            v = v.next;
+        }
+
+        Vertex[] vertices = new Vertex[vertexCount];
+        Arc[] arcs = new Arc[arcCount];
+        String[] ids = new String[vertexCount];
+        offsets = new int[vertexCount + 1];
+        targets = new int[arcCount];
+        weights = new int[arcCount];
+        heights = new int[vertexCount];
+
+        Map<Vertex, Integer> positions = new IdentityHashMap<>(vertexCount * 2);
+        v = graph.first;
+        for (int i = 0; i < vertexCount; i++) {
+            vertices[i] = v;
+            ids[i] = v.id;
+            heights[i] = v.height;
+            positions.put(v, i);
+            v = v.next;
+        }
+
+        int e = 0;
+        for (int i = 0; i < vertexCount; i++) {
+            offsets[i] = e;
+            Arc a = vertices[i].first;
+            while (a != null) {
+                Integer target = positions.get(a.target);
+                if (target == null)
+                    throw new RuntimeException(String.format("Arc %s points to vertex %s outside of the graph", a.id, a.target));
+                arcs[e] = a;
+                targets[e] = target;
+                weights[e] = a.weight;
+                e++;
+                a = a.next;
+            }
+        }
+        offsets[vertexCount] = e;
+        this.vertices = vertices;
+        this.arcs = arcs;
+        this.vertexIds = i -> ids[i];
+        this.arcIds = i -> arcs[i].id;
+        this.idLookup = null;
+    }
+
+    /**
+     * Create a snapshot from arrays in the same layout as the fields.
+     * The arrays are used as they are, not copied.
+     *
+     * @param ids     id of each vertex
+     * @param offsets first arc index of each vertex and the number of arcs at the end
+     * @param targets target vertex index of each arc
+     * @param weights weight of each arc
+     * @param heights height of each vertex
+     */
+    GraphSnapshot(String[] ids, int[] offsets, int[] targets, int[] weights, int[] heights) {
+        this(i -> ids[i], null, null, offsets, targets, weights, heights);
+        if (ids.length != heights.length) throw new IllegalArgumentException("Sizes of snapshot arrays do not match");
+    }
+
+    /**
+     * Create a snapshot from arrays with ids that are read only when needed.
+     *
+     * @param vertexIds id of a vertex by index
+     * @param arcIds    id of an arc by index, or null for ids "a" + source id + "_" + target id
+     * @param idLookup  vertex index by id (-1 if missing), or null to build a map from vertexIds
+     */
+    GraphSnapshot(IntFunction<String> vertexIds, IntFunction<String> arcIds, ToIntFunction<String> idLookup,
+                  int[] offsets, int[] targets, int[] weights, int[] heights) {
+        if (offsets.length != heights.length + 1 || weights.length != targets.length
+                || offsets[heights.length] != targets.length)
+            throw new IllegalArgumentException("Sizes of snapshot arrays do not match");
+        this.vertexIds = vertexIds;
+        this.arcIds = arcIds;
+        this.idLookup = idLookup;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.heights = heights;
+    }
+
+    /**
+     * @return number of vertices in the snapshot
+     */
+    public int vertexCount() {
+        return heights.length;
+    }
+
+    /**
+     * @return number of arcs in the snapshot
+     */
+    public int arcCount() {
+        return targets.length;
+    }
+
+    /**
+     * @param v vertex index
+     * @return Vertex with the given index
+     */
+    public Vertex getVertex(int v) {
+        return getVertices()[v];
+    }
+
+    /**
+     * @param v vertex index
+     * @return id of the vertex, without creating Vertex objects
+     */
+    public String vertexId(int v) {
+        return vertexIds.apply(v);
+    }
+
+    /**
+     * @param e arc index
+     * @return id of the arc, without creating Arc objects
+     */
+    public String arcId(int e) {
+        if (arcIds != null) return arcIds.apply(e);
+        return "a" + vertexId(arcSource(e)) + "_" + vertexId(targets[e]);
+    }
+
+    /**
+     * @param e arc index
+     * @return Arc with the given index
+     */
+    public Arc getArc(int e) {
+        Arc[] result = arcs;
+        if (result == null) {
+            getVertices();
+            result = arcs;
+        }
+        return result[e];
+    }
+
+    /**
+     * Find the vertex that owns the given arc. Arcs of each vertex take a
+     * continuous range of indexes, so it is a binary search over offsets.
+     *
+     * @param e arc index
+     * @return index of the arc source vertex
+     */
+    public int arcSource(int e) {
+        int low = 0;
+        int high = vertexCount() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (offsets[middle] <= e) low = middle;
+            else high = middle - 1;
+        }
+        return low;
+    }
+
+    /**
+     * Find the index of the vertex with the given id.
+     *
+     * @param id vertex id
+     * @return vertex index or -1 if the snapshot has no such vertex
+     */
+    public int indexOf(String id) {
+        if (idLookup != null) return idLookup.applyAsInt(id);
+        Integer position = getIndex().get(id);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * Find the index of the given vertex.
+     *
+     * @param vertex vertex of the graph the snapshot was taken from
+     * @return vertex index
+     */
+    public int indexOf(Vertex vertex) {
+        int position = indexOf(vertex.id);
+        if (position < 0 || getVertices()[position] != vertex)
+            throw new RuntimeException(String.format("Vertex %s is not part of the snapshot", vertex.id));
+        return position;
+    }
+
+    /**
+     * Get the pool of search contexts of the given type for this snapshot.
+     * The pool is created on first use, contexts are created by the factory.
+     *
+     * @param type    type of the search context
+     * @param factory creates a new context for this snapshot
+     * @return pool shared by every user of this snapshot
+     */
+    @SuppressWarnings("unchecked")
+    public <T> SearchContextPool<T> getPool(Class<T> type, Function<GraphSnapshot, T> factory) {
+        return (SearchContextPool<T>) pools.computeIfAbsent(type, t -> new SearchContextPool<>(() -> factory.apply(this)));
+    }
+
+    /**
+     * Build a new linked graph with the vertices, arcs, ids and heights of the snapshot,
+     * in the same order. The new graph is independent of the snapshot.
+     *
+     * @param id id of the new graph
+     * @return new graph
+     */
+    public Graph toGraph(String id) {
+        Graph graph = new Graph(id);
+        int n = vertexCount();
+        Vertex[] created = new Vertex[n];
+        for (int v = n - 1; v >= 0; v--) {
+            created[v] = graph.createVertex(vertexId(v));
+            created[v].height = heights[v];
+        }
+        for (int v = 0; v < n; v++) {
+            for (int e = offsets[v + 1] - 1; e >= offsets[v]; e--) {
+                graph.createArc(arcId(e), created[v], created[targets[e]], weights[e]);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Create an adjacency matrix of the snapshot. Rows and columns are vertex indexes.
+     *
+     * @return adjacency matrix
+     */
+    public int[][] createAdjMatrix() {
+        int n = vertexCount();
+        int[][] res = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                res[i][targets[e]]++;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Snapshot of the same vertices with every arc turned around, built on first use.
+     * Searches backwards from a target run forwards in the reverse snapshot.
+     * Vertex indexes are the same in both snapshots, arc e of the reverse snapshot
+     * is arc originalArc(e) of this one and the other way around. The reverse of
+     * the reverse is this snapshot.
+     *
+     * @return reverse snapshot
+     */
+    public GraphSnapshot reverse() {
+        GraphSnapshot result = reverse;
+        if (result != null) return result;
+        synchronized (this) {
+            if (reverse != null) return reverse;
+            int n = vertexCount();
+            int m = arcCount();
+            int[] reverseOffsets = new int[n + 1];
+            for (int e = 0; e < m; e++) {
+                reverseOffsets[targets[e] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                reverseOffsets[v + 1] += reverseOffsets[v];
+            }
+            int[] fill = new int[n];
+            System.arraycopy(reverseOffsets, 0, fill, 0, n);
+            int[] reverseTargets = new int[m];
+            int[] reverseWeights = new int[m];
+            int[] original = new int[m];
+            for (int v = 0; v < n; v++) {
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int position = fill[targets[e]]++;
+                    reverseTargets[position] = v;
+                    reverseWeights[position] = weights[e];
+                    original[position] = e;
+                }
+            }
+            result = new GraphSnapshot(vertexIds, e -> arcId(original[e]), this::indexOf,
+                    reverseOffsets, reverseTargets, reverseWeights, heights);
+            int[] inverse = new int[m];
+            for (int e = 0; e < m; e++) {
+                inverse[original[e]] = e;
+            }
+            result.originalArcs = original;
+            result.reverse = this;
+            originalArcs = inverse;
+            reverse = result;
+            return result;
+        }
+    }
+
+    /**
+     * @param e arc index of this snapshot
+     * @return index of the same arc turned around in the reverse snapshot, for a
+     * reverse snapshot the index in the snapshot it was reversed from
+     */
+    public int originalArc(int e) {
+        int[] original = originalArcs;
+        if (original == null) {
+            reverse();
+            original = originalArcs;
+        }
+        return original[e];
+    }
+
+    /**
+     * Id to index map is only needed for lookups by id, so it is built on first use.
+     */
+    private Map<String, Integer> getIndex() {
+        Map<String, Integer> result = index;
+        if (result == null) {
+            int n = vertexCount();
+            result = new HashMap<>(n * 2);
+            for (int i = 0; i < n; i++) {
+                result.putIfAbsent(vertexId(i), i);
+            }
+            index = result;
+        }
+        return result;
+    }
+
+    /**
+     * Vertex and Arc objects of a snapshot built from arrays are created on first use.
+     */
+    private Vertex[] getVertices() {
+        Vertex[] result = vertices;
+        if (result != null) return result;
+        synchronized (this) {
+            if (vertices != null) return vertices;
+            int n = vertexCount();
+            result = new Vertex[n];
+            for (int v = 0; v < n; v++) {
+                result[v] = new Vertex(vertexId(v));
+                result[v].height = heights[v];
+            }
+            Arc[] created = new Arc[arcCount()];
+            for (int v = 0; v < n; v++) {
+                if (v + 1 < n) result[v].next = result[v + 1];
+                for (int e = offsets[v + 1] - 1; e >= offsets[v]; e--) {
+                    String id = arcIds != null ? arcIds.apply(e) : "a" + result[v].id + "_" + result[targets[e]].id;
+                    Arc arc = new Arc(id, result[targets[e]], result[v].first);
+                    arc.weight = weights[e];
+                    result[v].first = arc;
+                    created[e] = arc;
+                }
+            }
+            arcs = created;
+            vertices = result;
+            return result;
+        }
+    }
+}
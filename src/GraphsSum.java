@@ -1,18 +1,242 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
 /**
  * Container class to different classes, that makes the whole
  * set of classes one class formally.
  */
 public class GraphsSum {
 
-    private Graph first;
-    private Graph second;
+    /**
+     * What weight the merged arc gets when several graphs have an arc between the same vertices.
+     */
+    public enum ConflictPolicy {
+        MIN, MAX, KEEP_FIRST;
+
+        int resolve(int kept, int other) {
+            switch (this) {
+                case MIN:
+                    return Math.min(kept, other);
+                case MAX:
+                    return Math.max(kept, other);
+                default:
+                    return kept;
+            }
+        }
+    }
+
+    private final List<Graph> graphs;
+    private final ConflictPolicy policy;
+    private final ForkJoinPool pool;
 
     GraphsSum(Graph first, Graph second) {
-        this.first = first;
-        this.second = second;
+        this(Arrays.asList(first, second));
+    }
+
+    GraphsSum(List<Graph> graphs) {
+        this(graphs, ConflictPolicy.KEEP_FIRST);
+    }
+
+    GraphsSum(List<Graph> graphs, ConflictPolicy policy) {
+        this(graphs, policy, ForkJoinPool.commonPool());
     }
 
+    GraphsSum(List<Graph> graphs, ConflictPolicy policy, ForkJoinPool pool) {
+        if (graphs.isEmpty()) throw new IllegalArgumentException("No graphs to sum");
+        this.graphs = new ArrayList<>(graphs);
+        this.policy = policy;
+        this.pool = pool;
+    }
+
+    /**
+     * Add all other graphs to the first one with Graph.addGraph.
+     *
+     * @return first graph, changed in place
+     */
     public Graph sum() {
-        return first.addGraph(second);
+        Graph result = graphs.get(0);
+        for (int i = 1; i < graphs.size(); i++) {
+            result = result.addGraph(graphs.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Merge all graphs into a new graph, the input graphs are not changed.
+     * Vertices with the same id become one vertex, which keeps the height of its first
+     * occurrence. Arcs between the same pair of ids become one arc, which keeps the id of
+     * its first occurrence and gets the weight chosen by the conflict policy.
+     * Vertex ids are split by hash between the threads of the pool, each thread merges
+     * the vertices and arcs of its own ids. Order of vertices and arcs follows the order
+     * of the graphs, so the result does not depend on the amount of threads.
+     *
+     * @return merged graph
+     */
+    public Graph merge() {
+        int partitions = Math.max(1, pool.getParallelism());
+
+        List<Callable<List<List<Occurrence>>>> splits = new ArrayList<>();
+        for (int g = 0; g < graphs.size(); g++) {
+            int graphIndex = g;
+            splits.add(() -> split(graphIndex, partitions));
+        }
+        List<List<List<Occurrence>>> buckets = invokeAll(splits);
+
+        List<Callable<List<MergedVertex>>> merges = new ArrayList<>();
+        for (int p = 0; p < partitions; p++) {
+            int partition = p;
+            merges.add(() -> mergePartition(buckets, partition));
+        }
+        List<MergedVertex> vertices = new ArrayList<>();
+        for (List<MergedVertex> part : invokeAll(merges)) {
+            vertices.addAll(part);
+        }
+        vertices.sort(Comparator.comparingLong(vertex -> vertex.order));
+
+        return createGraph(vertices);
+    }
+
+    /**
+     * [merge help method]
+     * Split the vertices of one graph by the hash of their id.
+     */
+    private List<List<Occurrence>> split(int graphIndex, int partitions) {
+        List<List<Occurrence>> result = new ArrayList<>(partitions);
+        for (int p = 0; p < partitions; p++) {
+            result.add(new ArrayList<>());
+        }
+        int position = 0;
+        for (Vertex vertex = graphs.get(graphIndex).getFirst(); vertex != null; vertex = vertex.getNext()) {
+            long order = (long) graphIndex << 32 | position++;
+            result.get(Math.floorMod(vertex.id.hashCode(), partitions)).add(new Occurrence(vertex, order));
+        }
+        return result;
+    }
+
+    /**
+     * [merge help method]
+     * Merge all vertices of one partition and their arcs.
+     */
+    private List<MergedVertex> mergePartition(List<List<List<Occurrence>>> buckets, int partition) {
+        Map<String, MergedVertex> merged = new HashMap<>();
+        List<MergedVertex> result = new ArrayList<>();
+        for (List<List<Occurrence>> graphBuckets : buckets) {
+            for (Occurrence occurrence : graphBuckets.get(partition)) {
+                MergedVertex vertex = merged.get(occurrence.vertex.id);
+                if (vertex == null) {
+                    vertex = new MergedVertex(occurrence.vertex, occurrence.order);
+                    merged.put(occurrence.vertex.id, vertex);
+                    result.add(vertex);
+                }
+                for (Arc arc = occurrence.vertex.getFirst(); arc != null; arc = arc.getNext()) {
+                    MergedArc existing = vertex.arcs.get(arc.target.id);
+                    if (existing == null) {
+                        vertex.arcs.put(arc.target.id, new MergedArc(arc.id, arc.weight));
+                    } else {
+                        existing.weight = policy.resolve(existing.weight, arc.weight);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * [merge help method]
+     * Build the result graph. Graph is not thread-safe, so this part is sequential.
+     * Vertices and arcs are created from the end because createVertex and createArc add to the front.
+     */
+    private Graph createGraph(List<MergedVertex> vertices) {
+        StringBuilder id = new StringBuilder(graphs.get(0).id);
+        for (int i = 1; i < graphs.size(); i++) {
+            id.append(" + ").append(graphs.get(i).id);
+        }
+        Graph graph = new Graph(id.toString());
+        for (int i = vertices.size() - 1; i >= 0; i--) {
+            Vertex source = vertices.get(i).source;
+            graph.createVertex(source.id).height = source.height;
+        }
+        for (MergedVertex vertex : vertices) {
+            Vertex from = graph.findVertex(vertex.source.id);
+            List<Map.Entry<String, MergedArc>> arcs = new ArrayList<>(vertex.arcs.entrySet());
+            for (int i = arcs.size() - 1; i >= 0; i--) {
+                Vertex to = graph.findVertex(arcs.get(i).getKey());
+                if (to == null) {
+                    throw new RuntimeException(String.format("Arc %s leads to vertex %s that is not in any graph",
+                            arcs.get(i).getValue().id, arcs.get(i).getKey()));
+                }
+                graph.createArc(arcs.get(i).getValue().id, from, to, arcs.get(i).getValue().weight);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * [merge help method]
+     * Run the tasks on the pool and wait for all results.
+     */
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Merge of graphs was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Vertex of an input graph with its place among all input vertices.
+     */
+    private static class Occurrence {
+        final Vertex vertex;
+        final long order; // graph index in the high half, position in the graph in the low half
+
+        Occurrence(Vertex vertex, long order) {
+            this.vertex = vertex;
+            this.order = order;
+        }
+    }
+
+    /**
+     * All occurrences of one vertex id.
+     */
+    private static class MergedVertex {
+        final Vertex source; // first occurrence
+        final long order;
+        final Map<String, MergedArc> arcs = new LinkedHashMap<>(); // target id -> arc
+
+        MergedVertex(Vertex source, long order) {
+            this.source = source;
+            this.order = order;
+        }
+    }
+
+    /**
+     * All arcs from one vertex id to another.
+     */
+    private static class MergedArc {
+        final String id;
+        int weight;
+
+        MergedArc(String id, int weight) {
+            this.id = id;
+            this.weight = weight;
+        }
     }
 }
@@ -1,4 +1,6 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
@@ -11,17 +13,44 @@ public class HeightPath {
 
     Graph graph;
 
+    /**
+     * Ways to search the path in a snapshot of the graph.
+     * ENUMERATION repeats breadth-first searches, lowering the height border each time.
+     * MINIMAX finds the best path with one minimax search (see MinimaxSearch).
+     * Both stop with a CancellationException when their thread is interrupted.
+     */
+    public enum Mode {
+        ENUMERATION,
+        MINIMAX
+    }
+
     HeightPath(Graph g) {
         this.graph = g;
     }
 
+    /**
+     * Instance for searches in snapshots only, run needs a graph.
+     */
+    HeightPath() {
+        this(null);
+    }
+
     /**
      * Actual main method to run examples and everything.
      */
     public void run(String vStart, String vDestination) {
         Path optimizedPath = getOptimizedPath(graph, vStart, vDestination); // find path from first vertex with id v1 to vertex with id v2
-        System.out.println("\nArc representation of best path:\n" + optimizedPath.printArcPath());
-        System.out.println("\nVertex representation of best path:\n" + optimizedPath);
+        printPath(optimizedPath);
+    }
+
+    /**
+     * Method displaying both arc and vertex representation of the path.
+     *
+     * @param path path to display.
+     */
+    public void printPath(Path path) {
+        System.out.println("\nArc representation of best path:\n" + path.printArcPath());
+        System.out.println("\nVertex representation of best path:\n" + path);
     }
 
     /**
@@ -69,6 +98,233 @@ public class HeightPath {
         return bestPath;
     }
 
+    /**
+     * Method that returns the best possible path, where the highest point is the lowest, searching
+     * in a snapshot of the graph. Works the same way as the Graph version, but the breadth-first
+     * search remembers the arc it came from to each vertex, so the path is taken directly from the
+     * search tree. Unlike the Graph version it does not print statistics.
+     *
+     * @param snapshot      snapshot of the graph.
+     * @param startId       a vertex id value that is the starting point of the path search.
+     * @param destinationId the vertex id value that is the end point of the path.
+     * @return Path class object that contains vertices and arcs from start point to destination point.
+     */
+    public Path getOptimizedPath(GraphSnapshot snapshot, String startId, String destinationId) {
+        return getOptimizedPath(snapshot, startId, destinationId, Mode.ENUMERATION);
+    }
+
+    /**
+     * Method that returns the best possible path, where the highest point is the lowest, searching
+     * in a snapshot of the graph with the chosen mode.
+     *
+     * @param snapshot      snapshot of the graph.
+     * @param startId       a vertex id value that is the starting point of the path search.
+     * @param destinationId the vertex id value that is the end point of the path.
+     * @param mode          way to search the path.
+     * @return Path class object that contains vertices and arcs from start point to destination point.
+     */
+    public Path getOptimizedPath(GraphSnapshot snapshot, String startId, String destinationId, Mode mode) {
+        if (mode == Mode.MINIMAX) return getMinimaxPath(snapshot, startId, destinationId);
+        int start = findVertex(snapshot, startId);
+        int destination = findVertex(snapshot, destinationId);
+        SearchContextPool<SearchState> pool = snapshot.getPool(SearchState.class, SearchState::new);
+        SearchState state = pool.acquire();
+        int heightBorder = 10000;
+        boolean ignoreDirectArcs = false;
+        int id = 1;
+        Path bestPath = null;
+
+        try {
+            while (findPath(snapshot, start, destination, heightBorder, ignoreDirectArcs, state)) {
+                Path path = createPath(snapshot, start, destination, state.parentArc, id++);
+                if (path.pathVertexPoints.size() == 2) ignoreDirectArcs = true;
+                else heightBorder = path.highestPoint;
+                if (bestPath == null || path.highestPoint <= bestPath.highestPoint) bestPath = path;
+            }
+        } finally {
+            pool.release(state);
+        }
+        if (bestPath == null)
+            throw new GraphPathException("\nStart point and destination are not connected!", startId, destinationId);
+        return bestPath;
+    }
+
+    /**
+     * Method that returns the best possible path using a precomputed index of the graph.
+     *
+     * @param index         index of the graph.
+     * @param source        graph the index was built for.
+     * @param startId       a vertex id value that is the starting point of the path search.
+     * @param destinationId the vertex id value that is the end point of the path.
+     * @return Path class object that contains vertices and arcs from start point to destination point.
+     */
+    public Path getOptimizedPath(HeightPathIndex index, Graph source, String startId, String destinationId) {
+        Vertex start = source.findVertex(startId);
+        Vertex destination = source.findVertex(destinationId);
+        if (start == null) throw new GraphException("Current graph does not contain this vertex - " + startId);
+        if (destination == null) throw new GraphException("Current graph does not contain this vertex - " + destinationId);
+        List<Vertex> vertices = index.findPath(start, destination);
+        if (vertices == null)
+            throw new GraphPathException("\nStart point and destination are not connected!", startId, destinationId);
+        List<Arc> arcs = new ArrayList<>(); // from destination to start, as printArcPath expects
+        for (int i = vertices.size() - 1; i > 0; i--) {
+            arcs.add(findArc(vertices.get(i - 1), vertices.get(i)));
+        }
+        int highestPoint = Integer.MIN_VALUE;
+        for (int i = 1; i < vertices.size() - 1; i++) {
+            highestPoint = Math.max(highestPoint, vertices.get(i).height);
+        }
+        if (highestPoint == Integer.MIN_VALUE) highestPoint = Math.max(start.height, destination.height);
+        return new Path(vertices, arcs, highestPoint, 1);
+    }
+
+    /**
+     * Method checks if there is a path where every vertex between start and destination
+     * is lower than heightBorder. Uses the parallel breadth-first search with a height filter,
+     * so it is fast also on very large snapshots.
+     *
+     * @param snapshot      snapshot of the graph.
+     * @param startId       a vertex id value that is the starting point of the path search.
+     * @param destinationId the vertex id value that is the end point of the path.
+     * @param heightBorder  all vertices in the path must be lower than this value.
+     * @return boolean is there such a path or not.
+     */
+    public boolean isConnectedBelow(GraphSnapshot snapshot, String startId, String destinationId, int heightBorder) {
+        int start = findVertex(snapshot, startId);
+        int destination = findVertex(snapshot, destinationId);
+        SearchContextPool<BreadthFirstSearch> pool = BreadthFirstSearch.pool(snapshot);
+        BreadthFirstSearch search = pool.acquire();
+        try {
+            return search.run(start, destination, v -> snapshot.heights[v] < heightBorder || v == destination);
+        } finally {
+            pool.release(search);
+        }
+    }
+
+    /**
+     * Method searches for the arc between two vertices, if there is no such arc
+     * it returns GraphException.
+     *
+     * @param from source vertex of the arc.
+     * @param to   target vertex of the arc.
+     * @return arc from the first vertex to the second one.
+     */
+    private Arc findArc(Vertex from, Vertex to) {
+        for (Arc arc = from.first; arc != null; arc = arc.next) {
+            if (arc.target == to) return arc;
+        }
+        throw new GraphException("Current graph does not contain arc from " + from.id + " to " + to.id);
+    }
+
+    /**
+     * Method that returns the best possible path with a single minimax search. The highest point is
+     * counted the same way as in the other modes, start and destination are not taken into account
+     * if the path has more than 2 vertices.
+     *
+     * @param snapshot      snapshot of the graph.
+     * @param startId       a vertex id value that is the starting point of the path search.
+     * @param destinationId the vertex id value that is the end point of the path.
+     * @return Path class object that contains vertices and arcs from start point to destination point.
+     */
+    private Path getMinimaxPath(GraphSnapshot snapshot, String startId, String destinationId) {
+        int start = findVertex(snapshot, startId);
+        int destination = findVertex(snapshot, destinationId);
+        SearchContextPool<MinimaxSearch> pool = MinimaxSearch.pool(snapshot);
+        MinimaxSearch search = pool.acquire();
+        try {
+            if (search.run(start, destination) == MinimaxSearch.UNREACHABLE)
+                throw new GraphPathException("\nStart point and destination are not connected!", startId, destinationId);
+            return createPath(snapshot, start, destination, search.parentArcs(), 1);
+        } finally {
+            pool.release(search);
+        }
+    }
+
+    /**
+     * Breadth-first search in a snapshot of the graph. Vertices that are not lower than heightBorder
+     * are not visited, except the destination. Visited vertices are marked with the number of the search,
+     * so the same state can be used for every search without clearing.
+     *
+     * @param snapshot         snapshot of the graph.
+     * @param start            index of the vertex from which path search starts.
+     * @param destination      index of the path endpoint vertex.
+     * @param heightBorder     all vertices in the path must be lower than this value.
+     * @param ignoreDirectArcs true if arcs from start directly to destination must be ignored.
+     * @param state            reusable arrays of the search, the arc used to reach each vertex is written there.
+     * @return boolean was the path found or not.
+     */
+    private boolean findPath(GraphSnapshot snapshot, int start, int destination, int heightBorder, boolean ignoreDirectArcs,
+                             SearchState state) {
+        int searchId = state.nextSearch();
+        int[] queue = state.queue;
+        int[] parentArc = state.parentArc;
+        int[] visited = state.visited;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        visited[start] = searchId;
+        while (head < tail) {
+            int current = queue[head++];
+            DijkstraSearch.checkInterrupt(head);
+            for (int e = snapshot.offsets[current]; e < snapshot.offsets[current + 1]; e++) {
+                int neighbor = snapshot.targets[e];
+                if (ignoreDirectArcs && current == start && neighbor == destination) continue;
+                if (visited[neighbor] != searchId && (snapshot.heights[neighbor] < heightBorder || neighbor == destination)) {
+                    visited[neighbor] = searchId;
+                    parentArc[neighbor] = e;
+                    if (neighbor == destination) return true;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Create Path object from the search tree written by findPath. The highest point is found
+     * the same way as in GraphPathManager, start and destination are not taken into account
+     * if the path has more than 2 vertices.
+     *
+     * @param snapshot    snapshot of the graph.
+     * @param start       index of the start vertex.
+     * @param destination index of the destination vertex.
+     * @param parentArc   arcs used to reach each vertex.
+     * @param id          unique id of the path.
+     * @return Path object.
+     */
+    private Path createPath(GraphSnapshot snapshot, int start, int destination, int[] parentArc, int id) {
+        List<Vertex> pathVertexPoints = new ArrayList<>();
+        List<Arc> pathArcPoints = new ArrayList<>(); // from destination to start, as printArcPath expects
+        int highestPoint = Integer.MIN_VALUE;
+        int vertex = destination;
+        pathVertexPoints.add(snapshot.getVertex(vertex));
+        while (vertex != start) {
+            int arc = parentArc[vertex];
+            pathArcPoints.add(snapshot.getArc(arc));
+            vertex = snapshot.arcSource(arc);
+            pathVertexPoints.add(snapshot.getVertex(vertex));
+            if (vertex != start) highestPoint = Math.max(highestPoint, snapshot.heights[vertex]);
+        }
+        Collections.reverse(pathVertexPoints);
+        if (highestPoint == Integer.MIN_VALUE)
+            highestPoint = Math.max(snapshot.heights[start], snapshot.heights[destination]);
+        return new Path(pathVertexPoints, pathArcPoints, highestPoint, id);
+    }
+
+    /**
+     * Method searches for the required vertex in the snapshot of the graph, if there is no such vertex
+     * it returns GraphException.
+     *
+     * @param snapshot snapshot of the graph.
+     * @param targetId id of the requested vertex.
+     * @return index of the vertex in the snapshot.
+     */
+    public int findVertex(GraphSnapshot snapshot, String targetId) {
+        int vertex = snapshot.indexOf(targetId);
+        if (vertex < 0) throw new GraphException("Current graph does not contain this vertex - " + targetId);
+        return vertex;
+    }
+
     /**
      * Method searches for the required vertex in the given graph, if there is no such vertex
      * it returns GraphException.
@@ -125,6 +381,38 @@ public class HeightPath {
         return false;
     }
 
+    /**
+     * Reusable arrays of the breadth-first search in a snapshot, taken from the pool of the snapshot
+     * for one query. Visited vertices are marked with the number of the search.
+     */
+    static class SearchState {
+
+        final int[] queue;
+        final int[] parentArc;
+        final int[] visited;
+        private int searchCount = 0;
+
+        SearchState(GraphSnapshot snapshot) {
+            int n = snapshot.vertexCount();
+            queue = new int[n];
+            parentArc = new int[n];
+            visited = new int[n];
+        }
+
+        /**
+         * Start a new search, marks of previous searches become invalid.
+         *
+         * @return number of the new search.
+         */
+        int nextSearch() {
+            if (++searchCount == 0) {
+                Arrays.fill(visited, 0);
+                searchCount = 1;
+            }
+            return searchCount;
+        }
+    }
+
     /**
      * Custom exception class for error displaying that occur when finding a path.
      */
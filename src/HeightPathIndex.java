@@ -0,0 +1,452 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precomputed index for HeightPath queries on a graph that changes rarely.
+ * It keeps a minimum bottleneck spanning forest of the graph, where an arc
+ * between u and v costs max(u.height, v.height), together with binary
+ * lifting tables for lowest common ancestors. The highest point of the best
+ * path between two vertices of the forest is the most expensive edge on
+ * their tree path, found in O(log V).
+ * Arcs are treated as undirected edges, as in the graphs built by
+ * createRandomSimpleGraph. The index listens to the graph: new vertices
+ * and arcs are merged in on the next query by running Kruskal's algorithm
+ * over the old forest and the new arcs only. Heights changed directly in
+ * Vertex objects are not noticed, call rebuild after such changes.
+ */
+public class HeightPathIndex implements GraphListener, AutoCloseable {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final Graph graph;
+    private final List<Vertex> newVertices = new ArrayList<>();
+    private final List<Vertex> newArcSources = new ArrayList<>();
+    private final List<Arc> newArcs = new ArrayList<>();
+    private boolean cleared = false;
+    private volatile boolean changed = false;
+    private volatile Forest forest;
+
+    HeightPathIndex(Graph graph) {
+        this.graph = graph;
+        graph.addListener(this);
+        forest = Forest.build(graph);
+    }
+
+    @Override
+    public synchronized void vertexCreated(Vertex vertex) {
+        newVertices.add(vertex);
+        changed = true;
+    }
+
+    @Override
+    public synchronized void arcCreated(Vertex from, Arc arc) {
+        newArcSources.add(from);
+        newArcs.add(arc);
+        changed = true;
+    }
+
+    @Override
+    public synchronized void graphCleared() {
+        cleared = true;
+        changed = true;
+    }
+
+    /**
+     * Build the whole index again from the current state of the graph.
+     */
+    public synchronized void rebuild() {
+        clearChanges();
+        forest = Forest.build(graph);
+    }
+
+    /**
+     * Stop listening to the graph.
+     */
+    @Override
+    public void close() {
+        graph.removeListener(this);
+    }
+
+    /**
+     * Find the lowest possible highest point of a path between the vertices,
+     * both vertices included.
+     *
+     * @param a first vertex
+     * @param b second vertex
+     * @return highest point or UNREACHABLE if vertices are not connected
+     */
+    public int bottleneck(Vertex a, Vertex b) {
+        Forest current = current();
+        return current.bottleneck(current.indexOf(a), current.indexOf(b));
+    }
+
+    /**
+     * Find the lowest possible highest point of a path from start to destination with the same rules as
+     * HeightPath: start and destination are not taken into account, a path that consists of a single arc
+     * costs the higher of them. Every pair of neighbours of start and destination is checked, so it takes
+     * O(deg(start) * deg(destination) * log V).
+     *
+     * @param start       start vertex
+     * @param destination destination vertex
+     * @return highest point or UNREACHABLE if there is no path
+     */
+    public int lowestHighestPoint(Vertex start, Vertex destination) {
+        return current().bestNeighbours(start, destination)[0];
+    }
+
+    /**
+     * Find the path from start to destination with the lowest highest point. The tree path
+     * between the chosen neighbours can go through start or destination, then the path is
+     * cut to the part after the last start and before the first destination, which is not
+     * higher, so no vertex is repeated.
+     *
+     * @param start       start vertex
+     * @param destination destination vertex
+     * @return vertices of the path from start to destination or null if there is no path
+     */
+    public List<Vertex> findPath(Vertex start, Vertex destination) {
+        Forest current = current();
+        int[] best = current.bestNeighbours(start, destination);
+        if (best[0] == UNREACHABLE) return null;
+        List<Vertex> res = new ArrayList<>();
+        res.add(start);
+        if (best[1] >= 0) {
+            int s = current.indexOf(start);
+            int d = current.indexOf(destination);
+            int[] path = current.treePath(best[1], best[2]);
+            int from = 0;
+            for (int i = 0; i < path.length; i++) {
+                if (path[i] == s) from = i + 1;
+            }
+            for (int i = from; i < path.length && path[i] != d; i++) {
+                res.add(current.vertices[path[i]]);
+            }
+        }
+        res.add(destination);
+        return res;
+    }
+
+    /**
+     * [query help method]
+     * Get the forest with all changes of the graph merged in.
+     */
+    private Forest current() {
+        if (!changed) return forest;
+        synchronized (this) {
+            if (!changed) return forest;
+            if (cleared) {
+                clearChanges();
+                forest = Forest.build(graph);
+            } else {
+                forest = forest.merge(newVertices, newArcSources, newArcs);
+                clearChanges();
+            }
+            return forest;
+        }
+    }
+
+    private void clearChanges() {
+        newVertices.clear();
+        newArcSources.clear();
+        newArcs.clear();
+        cleared = false;
+        changed = false;
+    }
+
+    /**
+     * Immutable minimum bottleneck spanning forest with binary lifting tables.
+     */
+    private static class Forest {
+
+        final Vertex[] vertices;
+        final int[] heights;
+        final Map<String, Integer> index;
+        final int[] treeU; // edges of the forest, used by the next merge
+        final int[] treeV;
+        final int[] root; // root of the tree each vertex belongs to
+        final int[] depth;
+        final int[][] up; // up[k][v] is the 2^k-th ancestor of v
+        final int[][] upCost; // most expensive edge on the way to up[k][v]
+
+        /**
+         * Run Kruskal's algorithm over the edges and build the lifting tables.
+         */
+        Forest(Vertex[] vertices, Map<String, Integer> index, int[] edgeU, int[] edgeV, int edgeCount) {
+            int n = vertices.length;
+            this.vertices = vertices;
+            this.index = index;
+            heights = new int[n];
+            for (int i = 0; i < n; i++) {
+                heights[i] = vertices[i].height;
+            }
+
+            long[] order = new long[edgeCount];
+            for (int e = 0; e < edgeCount; e++) {
+                order[e] = (long) cost(edgeU[e], edgeV[e]) << 32 | e;
+            }
+            Arrays.sort(order);
+            int[] parent = new int[n];
+            for (int i = 0; i < n; i++) parent[i] = i;
+            int[] u = new int[Math.max(n - 1, 0)];
+            int[] v = new int[u.length];
+            int treeSize = 0;
+            for (int i = 0; i < edgeCount && treeSize < u.length; i++) {
+                int e = (int) order[i];
+                int a = find(parent, edgeU[e]);
+                int b = find(parent, edgeV[e]);
+                if (a == b) continue;
+                parent[a] = b;
+                u[treeSize] = edgeU[e];
+                v[treeSize] = edgeV[e];
+                treeSize++;
+            }
+            treeU = Arrays.copyOf(u, treeSize);
+            treeV = Arrays.copyOf(v, treeSize);
+
+            int log = 1;
+            while ((1 << log) < n) log++;
+            root = new int[n];
+            depth = new int[n];
+            up = new int[log][n];
+            upCost = new int[log][n];
+            buildTables();
+        }
+
+        /**
+         * Build the index from every arc of the graph.
+         */
+        static Forest build(Graph graph) {
+            List<Vertex> list = new ArrayList<>();
+            Map<String, Integer> index = new HashMap<>();
+            for (Vertex v = graph.first; v != null; v = v.next) {
+                if (index.putIfAbsent(v.id, list.size()) == null) list.add(v);
+            }
+            int arcCount = 0;
+            for (Vertex v : list) {
+                for (Arc a = v.first; a != null; a = a.next) arcCount++;
+            }
+            int[] edgeU = new int[arcCount];
+            int[] edgeV = new int[arcCount];
+            int edgeCount = 0;
+            for (int i = 0; i < list.size(); i++) {
+                for (Arc a = list.get(i).first; a != null; a = a.next) {
+                    Integer target = index.get(a.target.id);
+                    if (target == null) continue;
+                    edgeU[edgeCount] = i;
+                    edgeV[edgeCount] = target;
+                    edgeCount++;
+                }
+            }
+            return new Forest(list.toArray(new Vertex[0]), index, edgeU, edgeV, edgeCount);
+        }
+
+        /**
+         * Build a new forest from this forest and the new vertices and arcs. A minimum spanning
+         * forest of the old forest plus the new arcs is a minimum spanning forest of the whole graph.
+         */
+        Forest merge(List<Vertex> newVertices, List<Vertex> newArcSources, List<Arc> newArcs) {
+            List<Vertex> list = new ArrayList<>(Arrays.asList(vertices));
+            Map<String, Integer> newIndex = new HashMap<>(index);
+            for (Vertex vertex : newVertices) {
+                if (newIndex.putIfAbsent(vertex.id, list.size()) == null) list.add(vertex);
+            }
+            int edgeCount = treeU.length + newArcs.size();
+            int[] edgeU = Arrays.copyOf(treeU, edgeCount);
+            int[] edgeV = Arrays.copyOf(treeV, edgeCount);
+            int e = treeU.length;
+            for (int i = 0; i < newArcs.size(); i++) {
+                Integer from = newIndex.get(newArcSources.get(i).id);
+                Integer to = newIndex.get(newArcs.get(i).target.id);
+                if (from == null || to == null) continue;
+                edgeU[e] = from;
+                edgeV[e] = to;
+                e++;
+            }
+            return new Forest(list.toArray(new Vertex[0]), newIndex, edgeU, edgeV, e);
+        }
+
+        private int cost(int u, int v) {
+            return Math.max(heights[u], heights[v]);
+        }
+
+        private static int find(int[] parent, int x) {
+            while (parent[x] != x) {
+                parent[x] = parent[parent[x]];
+                x = parent[x];
+            }
+            return x;
+        }
+
+        /**
+         * Root every tree, then fill depth and lifting tables in breadth-first order.
+         */
+        private void buildTables() {
+            int n = vertices.length;
+            int[] offsets = new int[n + 1];
+            for (int i = 0; i < treeU.length; i++) {
+                offsets[treeU[i] + 1]++;
+                offsets[treeV[i] + 1]++;
+            }
+            for (int i = 0; i < n; i++) offsets[i + 1] += offsets[i];
+            int[] neighbours = new int[treeU.length * 2];
+            int[] fill = Arrays.copyOf(offsets, n);
+            for (int i = 0; i < treeU.length; i++) {
+                neighbours[fill[treeU[i]]++] = treeV[i];
+                neighbours[fill[treeV[i]]++] = treeU[i];
+            }
+
+            Arrays.fill(root, -1);
+            int[] queue = new int[n];
+            for (int start = 0; start < n; start++) {
+                if (root[start] >= 0) continue;
+                int head = 0;
+                int tail = 0;
+                queue[tail++] = start;
+                root[start] = start;
+                depth[start] = 0;
+                up[0][start] = start;
+                upCost[0][start] = Integer.MIN_VALUE;
+                while (head < tail) {
+                    int vertex = queue[head++];
+                    for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+                        int next = neighbours[i];
+                        if (root[next] >= 0) continue;
+                        root[next] = start;
+                        depth[next] = depth[vertex] + 1;
+                        up[0][next] = vertex;
+                        upCost[0][next] = cost(vertex, next);
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            for (int k = 1; k < up.length; k++) {
+                for (int v = 0; v < n; v++) {
+                    int middle = up[k - 1][v];
+                    up[k][v] = up[k - 1][middle];
+                    upCost[k][v] = Math.max(upCost[k - 1][v], upCost[k - 1][middle]);
+                }
+            }
+        }
+
+        int indexOf(Vertex vertex) {
+            Integer position = index.get(vertex.id);
+            if (position == null)
+                throw new RuntimeException(String.format("Vertex %s is not part of the index", vertex.id));
+            return position;
+        }
+
+        /**
+         * Most expensive edge on the tree path between two vertices, heights of both included.
+         */
+        int bottleneck(int a, int b) {
+            if (a == b) return heights[a];
+            if (root[a] != root[b]) return UNREACHABLE;
+            int res = Integer.MIN_VALUE;
+            if (depth[a] < depth[b]) {
+                int swap = a;
+                a = b;
+                b = swap;
+            }
+            int diff = depth[a] - depth[b];
+            for (int k = 0; diff > 0; k++, diff >>= 1) {
+                if ((diff & 1) != 0) {
+                    res = Math.max(res, upCost[k][a]);
+                    a = up[k][a];
+                }
+            }
+            if (a == b) return res;
+            for (int k = up.length - 1; k >= 0; k--) {
+                if (up[k][a] != up[k][b]) {
+                    res = Math.max(res, Math.max(upCost[k][a], upCost[k][b]));
+                    a = up[k][a];
+                    b = up[k][b];
+                }
+            }
+            return Math.max(res, Math.max(upCost[0][a], upCost[0][b]));
+        }
+
+        /**
+         * Find the best pair of a neighbour of start and a neighbour of destination.
+         *
+         * @return {highest point, neighbour of start, neighbour of destination},
+         * neighbours are -1 if the direct arc is the best path
+         */
+        int[] bestNeighbours(Vertex start, Vertex destination) {
+            int s = indexOf(start);
+            int d = indexOf(destination);
+            int[] best = {UNREACHABLE, -1, -1};
+            if (s == d) return best;
+            int[] destinationNeighbours = neighbours(destination, s, d);
+            for (Arc a = start.first; a != null; a = a.next) {
+                Integer next = index.get(a.target.id);
+                if (next == null || next == s) continue;
+                if (next == d) {
+                    int direct = Math.max(heights[s], heights[d]);
+                    if (direct < best[0]) {
+                        best[0] = direct;
+                        best[1] = -1;
+                        best[2] = -1;
+                    }
+                    continue;
+                }
+                for (int other : destinationNeighbours) {
+                    int value = bottleneck(next, other);
+                    if (value < best[0]) {
+                        best[0] = value;
+                        best[1] = next;
+                        best[2] = other;
+                    }
+                }
+            }
+            return best;
+        }
+
+        private int[] neighbours(Vertex vertex, int s, int d) {
+            int count = 0;
+            for (Arc a = vertex.first; a != null; a = a.next) count++;
+            int[] res = new int[count];
+            int size = 0;
+            for (Arc a = vertex.first; a != null; a = a.next) {
+                Integer next = index.get(a.target.id);
+                if (next != null && next != s && next != d) res[size++] = next;
+            }
+            return Arrays.copyOf(res, size);
+        }
+
+        /**
+         * Vertices of the tree path from a to b, both included.
+         */
+        int[] treePath(int a, int b) {
+            int x = a;
+            int y = b;
+            if (depth[x] < depth[y]) {
+                int swap = x;
+                x = y;
+                y = swap;
+            }
+            for (int k = up.length - 1; k >= 0; k--) {
+                if (depth[x] - (1 << k) >= depth[y]) x = up[k][x];
+            }
+            if (x != y) {
+                for (int k = up.length - 1; k >= 0; k--) {
+                    if (up[k][x] != up[k][y]) {
+                        x = up[k][x];
+                        y = up[k][y];
+                    }
+                }
+                x = up[0][x];
+            }
+            int lca = x;
+            int[] res = new int[depth[a] + depth[b] - 2 * depth[lca] + 1];
+            int size = 0;
+            for (int v = a; v != lca; v = up[0][v]) res[size++] = v;
+            res[size++] = lca;
+            int end = res.length;
+            for (int v = b; v != lca; v = up[0][v]) res[--end] = v;
+            return res;
+        }
+    }
+}
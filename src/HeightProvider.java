@@ -0,0 +1,159 @@
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Source of heights for new vertices of a Graph. Graph.createVertex asks the
+ * provider of the graph for the height of every vertex it creates.
+ * Implementations must be safe to use from several threads at once, so one
+ * provider can be shared by graphs that are built in parallel, and should
+ * not allocate memory per vertex.
+ */
+public interface HeightProvider {
+
+    /**
+     * @param vertexId id of the new vertex
+     * @param number   number of the vertex in its graph, 0 for the first vertex created
+     * @return height of the vertex
+     */
+    int height(String vertexId, int number);
+
+    /**
+     * Random walk with the limits of Graph.HeightGenerator: every height differs
+     * from the previous one by less than maxValueElevation.
+     *
+     * @param seed seed of the walk, the same seed gives the same heights in the same order of calls
+     */
+    static HeightProvider randomWalk(long seed) {
+        return new RandomWalk(seed);
+    }
+
+    /**
+     * Smooth terrain: fractal value noise along the number of the vertex, so vertices
+     * created one after another get close heights. The height depends only on the seed
+     * and the number, not on the order of calls.
+     *
+     * @param seed       seed of the noise
+     * @param low        lowest possible height
+     * @param high       highest possible height
+     * @param wavelength amount of vertices between two hills of the largest size
+     */
+    static HeightProvider noise(long seed, int low, int high, int wavelength) {
+        return new Noise(seed, low, high, wavelength);
+    }
+
+    /**
+     * Heights from a file of "id,height" lines, in the format of GraphLoader.
+     *
+     * @param file     file of heights
+     * @param fallback provider of heights of vertices that are not in the file
+     */
+    static HeightProvider fromFile(Path file, HeightProvider fallback) {
+        Map<String, Integer> heights = GraphLoader.readHeights(file);
+        return (vertexId, number) -> {
+            Integer height = heights.get(vertexId);
+            return height != null ? height : fallback.height(vertexId, number);
+        };
+    }
+
+    /**
+     * SplitMix64 finaliser, turns a counter into well mixed random bits.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Random walk. The state (height and amount of steps) is one long that is changed
+     * with compare-and-set, a step is computed from the seed and the step number,
+     * so no lock and no Random object is needed.
+     */
+    class RandomWalk implements HeightProvider {
+
+        private final long seed;
+        private final AtomicLong state; // height in the high half, amount of steps in the low half
+
+        RandomWalk(long seed) {
+            this.seed = seed;
+            this.state = new AtomicLong(pack(Graph.HeightGenerator.startHeight, 0));
+        }
+
+        @Override
+        public int height(String vertexId, int number) {
+            while (true) {
+                long current = state.get();
+                int previous = (int) (current >> 32);
+                int step = (int) current;
+                long bits = mix(seed + step * 0x9E3779B97F4A7C15L);
+                int value = (int) ((bits >>> 1) % Graph.HeightGenerator.maxValueElevation);
+                if ((bits & 1) != 0) value = -value;
+                int next = Math.max(Graph.HeightGenerator.heightMin, Math.min(Graph.HeightGenerator.heightMax, previous + value));
+                if (state.compareAndSet(current, pack(next, step + 1))) return next;
+            }
+        }
+
+        private static long pack(int height, int step) {
+            return (long) height << 32 | (step & 0xFFFF_FFFFL);
+        }
+    }
+
+    /**
+     * Value noise: random values at whole multiples of the wavelength, smoothly
+     * interpolated between them, with octaves of half the wavelength and half the
+     * amplitude added on top.
+     */
+    class Noise implements HeightProvider {
+
+        private static final int OCTAVES = 5;
+
+        private final long seed;
+        private final int low;
+        private final int high;
+        private final int wavelength;
+
+        Noise(long seed, int low, int high, int wavelength) {
+            if (low > high) throw new IllegalArgumentException(String.format("Empty range of heights: %d..%d", low, high));
+            if (wavelength <= 0) throw new IllegalArgumentException("Too small wavelength: " + wavelength);
+            this.seed = seed;
+            this.low = low;
+            this.high = high;
+            this.wavelength = wavelength;
+        }
+
+        @Override
+        public int height(String vertexId, int number) {
+            double sum = 0;
+            double amplitude = 1;
+            double total = 0;
+            double x = (double) number / wavelength;
+            for (int octave = 0; octave < OCTAVES; octave++) {
+                sum += amplitude * valueAt(x, octave);
+                total += amplitude;
+                amplitude /= 2;
+                x *= 2;
+            }
+            double unit = sum / total; // 0..1
+            return low + (int) Math.round(unit * ((long) high - low));
+        }
+
+        /**
+         * [height help method]
+         * Noise of one octave at position x, from 0 to 1.
+         */
+        private double valueAt(double x, int octave) {
+            long cell = (long) Math.floor(x);
+            double t = x - cell;
+            t = t * t * (3 - 2 * t); // smoothstep
+            double left = lattice(cell, octave);
+            double right = lattice(cell + 1, octave);
+            return left + t * (right - left);
+        }
+
+        private double lattice(long cell, int octave) {
+            long bits = mix(seed ^ mix(cell * 31 + octave));
+            return (bits >>> 11) * 0x1.0p-53;
+        }
+    }
+}
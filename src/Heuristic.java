@@ -0,0 +1,58 @@
+/**
+ * Lower bound of the path length between two vertices of a snapshot, used by
+ * AStarSearch to search towards the target first. The bound must never be
+ * bigger than the real shortest path length (admissible), otherwise A* may
+ * return a longer path. A bound that also satisfies
+ * estimate(u, t) <= weight(u, v) + estimate(v, t) for every arc (consistent)
+ * lets every vertex be settled only once.
+ */
+@FunctionalInterface
+public interface Heuristic {
+
+    /**
+     * Heuristic of plain Dijkstra's algorithm.
+     */
+    Heuristic NONE = (vertex, target) -> 0;
+
+    /**
+     * @param vertex index of a vertex
+     * @param target index of the target of the search
+     * @return lower bound of the path length from vertex to target, not negative,
+     * or DijkstraSearch.UNREACHABLE if there is surely no path
+     */
+    int estimate(int vertex, int target);
+
+    /**
+     * Bound from vertex heights: when every arc is at least scale times as long as the
+     * height difference of its ends, no path between two vertices is shorter than scale
+     * times their height difference. The biggest such scale is found from the arcs of the
+     * snapshot, so the bound is admissible and consistent for any weights, but it is only
+     * useful when arc weights grow with height differences.
+     *
+     * @param snapshot snapshot of the graph
+     * @return height heuristic of the snapshot
+     */
+    static Heuristic height(GraphSnapshot snapshot) {
+        int[] heights = snapshot.heights;
+        double scale = Double.POSITIVE_INFINITY;
+        for (int v = 0; v < snapshot.vertexCount(); v++) {
+            for (int e = snapshot.offsets[v]; e < snapshot.offsets[v + 1]; e++) {
+                long climb = Math.abs((long) heights[snapshot.targets[e]] - heights[v]);
+                if (climb != 0) scale = Math.min(scale, (double) snapshot.weights[e] / climb);
+            }
+        }
+        if (scale == 0 || scale == Double.POSITIVE_INFINITY) return NONE;
+        double factor = scale;
+        return (vertex, target) -> (int) Math.min(DijkstraSearch.UNREACHABLE - 1,
+                Math.floor(factor * Math.abs((long) heights[vertex] - heights[target])));
+    }
+
+    /**
+     * @param first  admissible heuristic
+     * @param second admissible heuristic
+     * @return bigger of the two bounds, admissible (and consistent if both are)
+     */
+    static Heuristic max(Heuristic first, Heuristic second) {
+        return (vertex, target) -> Math.max(first.estimate(vertex, target), second.estimate(vertex, target));
+    }
+}
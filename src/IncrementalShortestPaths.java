@@ -0,0 +1,384 @@
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * Shortest path trees from a set of source vertices that are kept up to date
+ * while the graph changes, instead of running the search again for every
+ * source. The object listens to the graph: a new arc or a lower arc weight
+ * can only make paths shorter, so the search continues from the target of
+ * the arc and only vertices that get a shorter path are visited. A higher
+ * weight of a tree arc is repaired in the way of Ramalingam and Reps: first
+ * the vertices below the arc in the tree are checked in the order of their
+ * old length, a vertex that still has an equally short path from an
+ * unaffected vertex keeps its length, the others are affected. Then the
+ * affected vertices get their best path from the unaffected ones and a
+ * search among the affected vertices only finds their new lengths. Lengths
+ * are compared together with the amount of arcs like in DijkstraSearch, so
+ * every vertex gets the same length and amount of arcs as in a new search.
+ * The arcs of the tree are not always the same: among paths of equal length
+ * and amount of arcs the tree keeps the one it found first, while a new
+ * DijkstraSearch takes the arc with the smallest index in the snapshot.
+ * <p>
+ * The object keeps its own copy of the structure of the graph, with arcs
+ * into every vertex for the repair of higher weights. Weights are read from
+ * the Arc objects. Changes must go through the methods of the graph
+ * (createVertex, createArc, setArcWeight), direct changes of the fields are
+ * not noticed. Methods are synchronized, queries wait for a repair to end.
+ */
+public class IncrementalShortestPaths implements GraphListener, AutoCloseable {
+
+    public static final int UNREACHABLE = DijkstraSearch.UNREACHABLE;
+    public static final int NO_ARC = DijkstraSearch.NO_ARC;
+    private static final long NOT_REACHED = Long.MAX_VALUE;
+
+    private final Graph graph;
+    private final Map<Vertex, Integer> vertexIndex = new IdentityHashMap<>();
+    private final Map<Arc, Integer> arcIndex = new IdentityHashMap<>();
+    private final Map<Vertex, Tree> trees = new IdentityHashMap<>();
+    private Vertex[] vertices = new Vertex[16];
+    private int vertexCount = 0;
+    private Arc[] arcs = new Arc[16];
+    private int[] arcSource = new int[16];
+    private int[] arcTarget = new int[16];
+    private int arcCount = 0;
+    private int[][] out = new int[16][]; // arcs by source, out[v][0] is the amount
+    private int[][] in = new int[16][]; // arcs by target, in[v][0] is the amount
+    // work space of one update
+    private IndexedMinHeap heap = new IndexedMinHeap(16);
+    private int[] mark = new int[16]; // mark[v] == epoch for affected vertices
+    private int epoch = 0;
+    private int[] affected = new int[16];
+    private int touched = 0;
+
+    /**
+     * @param graph graph to follow, the object registers itself as its listener
+     */
+    IncrementalShortestPaths(Graph graph) {
+        this.graph = graph;
+        for (Vertex v = graph.first; v != null; v = v.next) {
+            addVertex(v);
+        }
+        for (Vertex v = graph.first; v != null; v = v.next) {
+            for (Arc a = v.first; a != null; a = a.next) {
+                addArc(v, a);
+            }
+        }
+        graph.addListener(this);
+    }
+
+    /**
+     * Start keeping the shortest path tree of the source, built with one full search.
+     *
+     * @param source source vertex of the graph
+     */
+    public synchronized void addSource(Vertex source) {
+        if (trees.containsKey(source)) return;
+        Tree tree = new Tree(index(source));
+        trees.put(source, tree);
+        tree.key[tree.source] = 0;
+        heap.insertOrDecrease(tree.source, 0);
+        propagate(tree, false);
+    }
+
+    public synchronized void removeSource(Vertex source) {
+        trees.remove(source);
+    }
+
+    /**
+     * @param source source vertex added with addSource
+     * @param target vertex of the graph
+     * @return length of the shortest path or UNREACHABLE
+     */
+    public synchronized int distance(Vertex source, Vertex target) {
+        long key = tree(source).key[index(target)];
+        return key == NOT_REACHED ? UNREACHABLE : (int) (key >>> 32);
+    }
+
+    /**
+     * @param source source vertex added with addSource
+     * @param target vertex of the graph
+     * @return right ordered arcs of the shortest path with smallest amount of arcs
+     */
+    public synchronized LinkedList<Arc> getPath(Vertex source, Vertex target) {
+        Tree tree = tree(source);
+        int vertex = index(target);
+        if (tree.key[vertex] == NOT_REACHED)
+            throw new RuntimeException(String.format("Vertex %s has no connection to vertex %s in graph", target.id, source.id));
+        LinkedList<Arc> res = new LinkedList<>();
+        while (vertex != tree.source) {
+            int arc = tree.parentArc[vertex];
+            res.addFirst(arcs[arc]);
+            vertex = arcSource[arc];
+        }
+        return res;
+    }
+
+    /**
+     * @return amount of vertices the last change visited, summed over all trees
+     */
+    public synchronized int lastTouchedCount() {
+        return touched;
+    }
+
+    @Override
+    public synchronized void vertexCreated(Vertex vertex) {
+        addVertex(vertex);
+        touched = 0;
+    }
+
+    @Override
+    public synchronized void arcCreated(Vertex from, Arc arc) {
+        int a = addArc(from, arc);
+        touched = 0;
+        for (Tree tree : trees.values()) {
+            decrease(tree, a);
+        }
+    }
+
+    @Override
+    public synchronized void arcWeightChanged(Vertex from, Arc arc, int oldWeight) {
+        Integer a = arcIndex.get(arc);
+        if (a == null) throw new RuntimeException(String.format("Arc %s is not known", arc.id));
+        touched = 0;
+        if (arc.weight < 0)
+            throw new RuntimeException(String.format("Arc %s has negative weight %s", arc.id, arc.weight));
+        if (arc.weight == oldWeight) return;
+        for (Tree tree : trees.values()) {
+            if (arc.weight < oldWeight) decrease(tree, a);
+            else increase(tree, a);
+        }
+    }
+
+    @Override
+    public synchronized void graphCleared() {
+        vertexIndex.clear();
+        arcIndex.clear();
+        trees.clear();
+        Arrays.fill(vertices, 0, vertexCount, null);
+        Arrays.fill(arcs, 0, arcCount, null);
+        vertexCount = 0;
+        arcCount = 0;
+    }
+
+    @Override
+    public void close() {
+        graph.removeListener(this);
+    }
+
+    /**
+     * [arcCreated and arcWeightChanged help method]
+     * The arc got shorter or is new: continue the search from its target if that gives it a shorter path.
+     */
+    private void decrease(Tree tree, int a) {
+        int from = arcSource[a];
+        int to = arcTarget[a];
+        if (tree.key[from] == NOT_REACHED) return;
+        long candidate = join(tree.key[from], a);
+        if (candidate < tree.key[to]) {
+            tree.key[to] = candidate;
+            tree.parentArc[to] = a;
+            heap.insertOrDecrease(to, candidate);
+            propagate(tree, false);
+        }
+    }
+
+    /**
+     * [arcWeightChanged help method]
+     * The arc got longer: only a tree arc changes lengths, see the class comment.
+     */
+    private void increase(Tree tree, int a) {
+        int to = arcTarget[a];
+        if (tree.parentArc[to] != a) return;
+        if (++epoch == 0) {
+            Arrays.fill(mark, 0);
+            epoch = 1;
+        }
+        // find the affected vertices, parents are decided before their children
+        int affectedCount = 0;
+        heap.insertOrDecrease(to, tree.key[to]);
+        while (!heap.isEmpty()) {
+            int vertex = heap.poll();
+            touched++;
+            int alternative = equalParent(tree, vertex);
+            if (alternative != NO_ARC) {
+                tree.parentArc[vertex] = alternative;
+                continue;
+            }
+            mark[vertex] = epoch;
+            affected[affectedCount++] = vertex;
+            int[] arcList = out[vertex];
+            for (int i = 1; i <= arcList[0]; i++) {
+                int b = arcList[i];
+                int child = arcTarget[b];
+                if (tree.parentArc[child] == b) heap.insertOrDecrease(child, tree.key[child]);
+            }
+        }
+        // best paths of the affected vertices from the unaffected ones
+        for (int i = 0; i < affectedCount; i++) {
+            tree.key[affected[i]] = NOT_REACHED;
+            tree.parentArc[affected[i]] = NO_ARC;
+        }
+        for (int i = 0; i < affectedCount; i++) {
+            int vertex = affected[i];
+            int[] arcList = in[vertex];
+            for (int j = 1; j <= arcList[0]; j++) {
+                int b = arcList[j];
+                int parent = arcSource[b];
+                if (mark[parent] == epoch || tree.key[parent] == NOT_REACHED) continue;
+                long candidate = join(tree.key[parent], b);
+                if (candidate < tree.key[vertex]) {
+                    tree.key[vertex] = candidate;
+                    tree.parentArc[vertex] = b;
+                }
+            }
+            if (tree.key[vertex] != NOT_REACHED) heap.insertOrDecrease(vertex, tree.key[vertex]);
+        }
+        propagate(tree, true);
+    }
+
+    /**
+     * [increase help method]
+     * Arc from a vertex that is not affected which gives the vertex the same length as before.
+     *
+     * @return arc index or NO_ARC
+     */
+    private int equalParent(Tree tree, int vertex) {
+        int[] arcList = in[vertex];
+        for (int i = 1; i <= arcList[0]; i++) {
+            int b = arcList[i];
+            int parent = arcSource[b];
+            if (mark[parent] == epoch || tree.key[parent] == NOT_REACHED) continue;
+            if (join(tree.key[parent], b) == tree.key[vertex]) return b;
+        }
+        return NO_ARC;
+    }
+
+    /**
+     * Dijkstra's algorithm from the vertices in the heap.
+     *
+     * @param onlyAffected only vertices marked as affected may get new lengths
+     */
+    private void propagate(Tree tree, boolean onlyAffected) {
+        while (!heap.isEmpty()) {
+            int vertex = heap.poll();
+            touched++;
+            long key = tree.key[vertex];
+            int[] arcList = out[vertex];
+            for (int i = 1; i <= arcList[0]; i++) {
+                int b = arcList[i];
+                int next = arcTarget[b];
+                if (onlyAffected && mark[next] != epoch) continue;
+                long candidate = join(key, b);
+                if (candidate < tree.key[next]) {
+                    tree.key[next] = candidate;
+                    tree.parentArc[next] = b;
+                    heap.insertOrDecrease(next, candidate);
+                }
+            }
+        }
+    }
+
+    /**
+     * Key of the path to the source of the arc followed by the arc: length in the
+     * high half and amount of arcs in the low half.
+     */
+    private long join(long key, int a) {
+        int weight = arcs[a].weight;
+        if (weight < 0)
+            throw new RuntimeException(String.format("Arc %s has negative weight %s", arcs[a].id, weight));
+        if ((key >>> 32) + weight >= UNREACHABLE)
+            throw new RuntimeException(String.format("Path length to vertex %s is too big", vertices[arcTarget[a]].id));
+        return key + ((long) weight << 32) + 1;
+    }
+
+    private Tree tree(Vertex source) {
+        Tree tree = trees.get(source);
+        if (tree == null) throw new RuntimeException(String.format("Vertex %s is not a source", source.id));
+        return tree;
+    }
+
+    private int index(Vertex vertex) {
+        Integer position = vertexIndex.get(vertex);
+        if (position == null) throw new RuntimeException(String.format("Vertex %s is not part of the graph", vertex.id));
+        return position;
+    }
+
+    private void addVertex(Vertex vertex) {
+        if (vertexIndex.containsKey(vertex)) return;
+        if (vertexCount == vertices.length) {
+            int capacity = vertices.length * 2;
+            vertices = Arrays.copyOf(vertices, capacity);
+            out = Arrays.copyOf(out, capacity);
+            in = Arrays.copyOf(in, capacity);
+            mark = Arrays.copyOf(mark, capacity);
+            affected = new int[capacity];
+            heap = new IndexedMinHeap(capacity);
+            for (Tree tree : trees.values()) {
+                tree.grow(capacity);
+            }
+        }
+        int v = vertexCount++;
+        vertices[v] = vertex;
+        out[v] = new int[4];
+        in[v] = new int[4];
+        vertexIndex.put(vertex, v);
+        for (Tree tree : trees.values()) {
+            tree.key[v] = NOT_REACHED;
+            tree.parentArc[v] = NO_ARC;
+        }
+    }
+
+    private int addArc(Vertex from, Arc arc) {
+        if (arcCount == arcs.length) {
+            int capacity = arcs.length * 2;
+            arcs = Arrays.copyOf(arcs, capacity);
+            arcSource = Arrays.copyOf(arcSource, capacity);
+            arcTarget = Arrays.copyOf(arcTarget, capacity);
+        }
+        int a = arcCount++;
+        arcs[a] = arc;
+        arcSource[a] = index(from);
+        arcTarget[a] = index(arc.target);
+        arcIndex.put(arc, a);
+        out[arcSource[a]] = append(out[arcSource[a]], a);
+        in[arcTarget[a]] = append(in[arcTarget[a]], a);
+        return a;
+    }
+
+    private static int[] append(int[] list, int value) {
+        int size = list[0] + 1;
+        if (size == list.length) list = Arrays.copyOf(list, list.length * 2);
+        list[size] = value;
+        list[0] = size;
+        return list;
+    }
+
+    /**
+     * Shortest path tree of one source: key of the best path to every vertex and
+     * the last arc of the path.
+     */
+    private class Tree {
+
+        final int source;
+        long[] key;
+        int[] parentArc;
+
+        Tree(int source) {
+            this.source = source;
+            key = new long[vertices.length];
+            parentArc = new int[vertices.length];
+            Arrays.fill(key, NOT_REACHED);
+            Arrays.fill(parentArc, NO_ARC);
+        }
+
+        void grow(int capacity) {
+            int old = key.length;
+            key = Arrays.copyOf(key, capacity);
+            parentArc = Arrays.copyOf(parentArc, capacity);
+            Arrays.fill(key, old, capacity, NOT_REACHED);
+            Arrays.fill(parentArc, old, capacity, NO_ARC);
+        }
+    }
+}
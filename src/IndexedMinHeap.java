@@ -0,0 +1,136 @@
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of vertex indexes with primitive long keys. Every vertex can
+ * be in the heap at most once, its position is tracked so decreaseKey
+ * works in O(log n) without searching and without boxing.
+ */
+public class IndexedMinHeap {
+
+    private final int[] heap; // vertex indexes in heap order
+    private final int[] position; // position of each vertex in heap or -1
+    private final long[] keys; // key of each vertex
+    private int size = 0;
+
+    IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new long[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int vertex) {
+        return position[vertex] >= 0;
+    }
+
+    /**
+     * @param vertex vertex in the heap
+     * @return current key of the vertex
+     */
+    public long key(int vertex) {
+        return keys[vertex];
+    }
+
+    /**
+     * @return key of the vertex at the top of the heap
+     */
+    public long minKey() {
+        if (size == 0) throw new RuntimeException("Heap is empty");
+        return keys[heap[0]];
+    }
+
+    /**
+     * Add vertex to the heap or lower its key if it is already there.
+     *
+     * @param vertex vertex index
+     * @param key    new key
+     * @return true if vertex was added or its key was lowered
+     */
+    public boolean insertOrDecrease(int vertex, long key) {
+        int pos = position[vertex];
+        if (pos < 0) {
+            keys[vertex] = key;
+            heap[size] = vertex;
+            position[vertex] = size;
+            siftUp(size++);
+            return true;
+        }
+        if (key >= keys[vertex]) return false;
+        keys[vertex] = key;
+        siftUp(pos);
+        return true;
+    }
+
+    /**
+     * Remove the vertex with the smallest key.
+     *
+     * @return removed vertex index
+     */
+    public int poll() {
+        if (size == 0) throw new RuntimeException("Heap is empty");
+        int result = heap[0];
+        position[result] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        return result;
+    }
+
+    /**
+     * Remove all vertices, takes time proportional to the current size only.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int pos) {
+        int vertex = heap[pos];
+        long key = keys[vertex];
+        while (pos > 0) {
+            int parentPos = (pos - 1) >>> 1;
+            int parent = heap[parentPos];
+            if (keys[parent] <= key) break;
+            heap[pos] = parent;
+            position[parent] = pos;
+            pos = parentPos;
+        }
+        heap[pos] = vertex;
+        position[vertex] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int vertex = heap[pos];
+        long key = keys[vertex];
+        int half = size >>> 1;
+        while (pos < half) {
+            int childPos = 2 * pos + 1;
+            int child = heap[childPos];
+            int rightPos = childPos + 1;
+            if (rightPos < size && keys[heap[rightPos]] < keys[child]) {
+                childPos = rightPos;
+                child = heap[childPos];
+            }
+            if (key <= keys[child]) break;
+            heap[pos] = child;
+            position[child] = pos;
+            pos = childPos;
+        }
+        heap[pos] = vertex;
+        position[vertex] = pos;
+    }
+}
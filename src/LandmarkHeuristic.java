@@ -0,0 +1,135 @@
+/**
+ * ALT heuristic (A*, landmarks, triangle inequality). Shortest path lengths
+ * from and to a few landmark vertices are computed once, then for every
+ * landmark L the triangle inequality gives two lower bounds of the path length
+ * from v to t: d(L, t) - d(L, v) and d(v, L) - d(t, L). The heuristic is the
+ * biggest of them, it is admissible and consistent. Landmarks at the border of
+ * the graph give the best bounds, so by default they are chosen one by one as
+ * the vertex farthest from all landmarks chosen before. Distances are stored
+ * vertex by vertex, so one estimate reads two short continuous ranges.
+ * The heuristic is read-only after construction and can be shared by threads.
+ */
+public class LandmarkHeuristic implements Heuristic {
+
+    private static final int UNREACHABLE = DijkstraSearch.UNREACHABLE;
+
+    private final GraphSnapshot snapshot;
+    private final int[] landmarks;
+    private final int[] fromLandmark; // d(L, v) at v * landmarks + L
+    private final int[] toLandmark; // d(v, L) at v * landmarks + L
+
+    /**
+     * Heuristic with landmarks chosen by the farthest vertex rule, the first
+     * landmark is the vertex farthest from vertex 0.
+     *
+     * @param snapshot      snapshot of the graph
+     * @param landmarkCount amount of landmarks, 8 to 16 is usually enough
+     */
+    LandmarkHeuristic(GraphSnapshot snapshot, int landmarkCount) {
+        this(snapshot, chooseLandmarks(snapshot, landmarkCount));
+    }
+
+    /**
+     * @param snapshot  snapshot of the graph
+     * @param landmarks indexes of landmark vertices
+     */
+    LandmarkHeuristic(GraphSnapshot snapshot, int[] landmarks) {
+        int n = snapshot.vertexCount();
+        int k = landmarks.length;
+        if ((long) n * k > Integer.MAX_VALUE)
+            throw new IllegalArgumentException(String.format("Too many landmarks for %d vertices: %d", n, k));
+        this.snapshot = snapshot;
+        this.landmarks = landmarks.clone();
+        this.fromLandmark = new int[n * k];
+        this.toLandmark = new int[n * k];
+        DijkstraSearch forward = new DijkstraSearch(snapshot);
+        DijkstraSearch backward = new DijkstraSearch(snapshot.reverse());
+        for (int l = 0; l < k; l++) {
+            forward.run(landmarks[l]);
+            backward.run(landmarks[l]);
+            for (int v = 0; v < n; v++) {
+                fromLandmark[v * k + l] = forward.distance(v);
+                toLandmark[v * k + l] = backward.distance(v);
+            }
+        }
+    }
+
+    public GraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return indexes of landmark vertices
+     */
+    public int[] getLandmarks() {
+        return landmarks.clone();
+    }
+
+    @Override
+    public int estimate(int vertex, int target) {
+        int k = landmarks.length;
+        int v = vertex * k;
+        int t = target * k;
+        int best = 0;
+        for (int l = 0; l < k; l++) {
+            int fromToVertex = fromLandmark[v + l];
+            int fromToTarget = fromLandmark[t + l];
+            if (fromToVertex != UNREACHABLE) {
+                if (fromToTarget == UNREACHABLE) return UNREACHABLE; // L reaches v but not t, so v does not reach t
+                best = Math.max(best, fromToTarget - fromToVertex);
+            }
+            int vertexTo = toLandmark[v + l];
+            int targetTo = toLandmark[t + l];
+            if (vertexTo != UNREACHABLE && targetTo != UNREACHABLE) best = Math.max(best, vertexTo - targetTo);
+        }
+        return best;
+    }
+
+    /**
+     * [LandmarkHeuristic help method]
+     * Farthest vertex rule: every next landmark is the vertex with the biggest distance
+     * to its closest landmark. Vertices no landmark reaches count as farthest, so every
+     * part of a disconnected graph gets a landmark while landmarks last.
+     */
+    private static int[] chooseLandmarks(GraphSnapshot snapshot, int landmarkCount) {
+        int n = snapshot.vertexCount();
+        if (landmarkCount <= 0) throw new IllegalArgumentException("Too few landmarks: " + landmarkCount);
+        int count = Math.min(landmarkCount, n);
+        int[] result = new int[count];
+        int[] closest = new int[n]; // distance from the closest landmark
+        DijkstraSearch search = new DijkstraSearch(snapshot);
+        search.run(0);
+        for (int v = 0; v < n; v++) {
+            closest[v] = UNREACHABLE;
+        }
+        int next = farthest(search, n, null);
+        for (int l = 0; l < count; l++) {
+            result[l] = next;
+            search.run(next);
+            for (int v = 0; v < n; v++) {
+                closest[v] = Math.min(closest[v], search.distance(v));
+            }
+            next = farthest(search, n, closest);
+        }
+        return result;
+    }
+
+    /**
+     * [chooseLandmarks help method]
+     *
+     * @param closest distances to the closest landmark or null to use the distances of the search
+     * @return vertex with the biggest distance, unreachable vertices first
+     */
+    private static int farthest(DijkstraSearch search, int n, int[] closest) {
+        int best = 0;
+        int bestDistance = -1;
+        for (int v = 0; v < n; v++) {
+            int distance = closest != null ? closest[v] : search.distance(v);
+            if (distance > bestDistance) {
+                best = v;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+}
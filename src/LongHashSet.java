@@ -0,0 +1,96 @@
+import java.util.Arrays;
+
+/**
+ * Set of long values with open addressing and linear probing, without
+ * boxing. Used for duplicate detection of undirected edges packed into
+ * one long as smaller vertex index * n + bigger vertex index, where n is
+ * the amount of vertices. Not thread-safe, reads from several threads
+ * are safe while nobody adds.
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = 0; // slot marker, the value 0 itself is kept in containsZero
+
+    private long[] table;
+    private int size = 0;
+    private boolean containsZero = false;
+
+    LongHashSet() {
+        this(16);
+    }
+
+    /**
+     * @param expected amount of values the set can hold without growing
+     */
+    LongHashSet(int expected) {
+        int capacity = 16;
+        while (capacity < expected * 2L && capacity < 1 << 30) capacity <<= 1;
+        table = new long[capacity];
+    }
+
+    /**
+     * @return amount of values in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) return containsZero;
+        int mask = table.length - 1;
+        for (int slot = slot(value, mask); table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (table[slot] == value) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param value value to add
+     * @return true if the value was not in the set before
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = table.length - 1;
+        int slot = slot(value, mask);
+        while (table[slot] != EMPTY) {
+            if (table[slot] == value) return false;
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+        if (++size * 2 > table.length) grow();
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        size = 0;
+        containsZero = false;
+    }
+
+    /**
+     * [add help method]
+     * Double the table, all values get new slots.
+     */
+    private void grow() {
+        if (table.length == 1 << 30) throw new RuntimeException("Too many values in the set: " + size);
+        long[] old = table;
+        table = new long[old.length * 2];
+        int mask = table.length - 1;
+        for (long value : old) {
+            if (value == EMPTY) continue;
+            int slot = slot(value, mask);
+            while (table[slot] != EMPTY) slot = (slot + 1) & mask;
+            table[slot] = value;
+        }
+    }
+
+    private static int slot(long value, int mask) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -1,19 +1,203 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Container class to different classes, that makes the whole
  * set of classes one class formally.
  */
 public class Matrix {
 
-    private final Graph graph;
+    private static final int PARALLEL_THRESHOLD = 512; // rows, smaller matrices are processed in one thread
+    private static final int SPARSE_DEGREE = 16; // average out degree below which condensation is used
+
+    private final GraphSnapshot snapshot;
+    private final ForkJoinPool pool;
 
     Matrix(Graph graph) {
-        this.graph = graph;
+        this(graph.createSnapshot());
+    }
+
+    Matrix(GraphSnapshot snapshot) {
+        this(snapshot, ForkJoinPool.commonPool());
+    }
+
+    Matrix(GraphSnapshot snapshot, ForkJoinPool pool) {
+        this.snapshot = snapshot;
+        this.pool = pool;
     }
 
     public void run() {
-        int[][] adjMatrix = graph.createAdjMatrix();
-        transitiveClosureFloydWarshall(adjMatrix);
-        System.out.println(createGraphFromAdjMatrix(adjMatrix));
+        System.out.println(createGraphFromBitMatrix(transitiveClosure()));
+    }
+
+    /**
+     * Find the transitive closure of the graph as bit rows. Sparse graphs go through the
+     * condensation of strongly connected components, dense ones through the bit-packed
+     * Floyd Warshall's algorithm.
+     *
+     * @return closure, bit j of row i is set if there is a path of at least one arc from i to j
+     */
+    public long[][] transitiveClosure() {
+        if (snapshot.arcCount() < (long) snapshot.vertexCount() * SPARSE_DEGREE) {
+            return transitiveClosureByCondensation();
+        }
+        long[][] rows = createBitMatrix();
+        transitiveClosureFloydWarshall(rows);
+        return rows;
+    }
+
+    /**
+     * Create an adjacency matrix of the snapshot where every row is a bit set packed into longs,
+     * bit j of row i is word j / 64, bit j % 64.
+     *
+     * @return bit adjacency matrix
+     */
+    public long[][] createBitMatrix() {
+        int n = snapshot.vertexCount();
+        long[][] rows = new long[n][words(n)];
+        for (int i = 0; i < n; i++) {
+            for (int e = snapshot.offsets[i]; e < snapshot.offsets[i + 1]; e++) {
+                int j = snapshot.targets[e];
+                rows[i][j >>> 6] |= 1L << j;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Floyd Warshall's transitive closure on bit rows. For every k, each row that reaches k gets
+     * all of row k with word-wide ORs. Rows are independent for a fixed k, so on large matrices
+     * they are split between the threads of the fork-join pool.
+     *
+     * @param rows bit adjacency matrix, replaced by its closure
+     */
+    public void transitiveClosureFloydWarshall(long[][] rows) {
+        int n = rows.length;
+        for (int k = 0; k < n; k++) {
+            if (n < PARALLEL_THRESHOLD) {
+                orRowInto(rows, k, 0, n);
+            } else {
+                pool.invoke(new RowRange(rows, k, 0, n));
+            }
+        }
+    }
+
+    /**
+     * [transitiveClosureFloydWarshall help method]
+     * Add row k to every row in the range that has bit k set.
+     */
+    private static void orRowInto(long[][] rows, int k, int from, int to) {
+        long[] rowK = rows[k];
+        int word = k >>> 6;
+        long bit = 1L << k;
+        for (int i = from; i < to; i++) {
+            long[] row = rows[i];
+            if ((row[word] & bit) == 0) continue;
+            for (int w = 0; w < row.length; w++) {
+                row[w] |= rowK[w];
+            }
+        }
+    }
+
+    /**
+     * Rows of one k step of the closure, split in halves until small enough.
+     */
+    private static class RowRange extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long[][] rows;
+        private final int k;
+        private final int from;
+        private final int to;
+
+        RowRange(long[][] rows, int k, int from, int to) {
+            this.rows = rows;
+            this.k = k;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD / 4) {
+                orRowInto(rows, k, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RowRange(rows, k, from, middle), new RowRange(rows, k, middle, to));
+        }
+    }
+
+    /**
+     * Transitive closure through the condensation of strongly connected components.
+     * Components are numbered so that arcs lead to smaller numbers, so going up from 0
+     * every component can take the reachable set of its successors, which are already done.
+     * All vertices of one component share one row.
+     *
+     * @return closure, bit j of row i is set if there is a path of at least one arc from i to j
+     */
+    public long[][] transitiveClosureByCondensation() {
+        int n = snapshot.vertexCount();
+        int words = words(n);
+        StronglyConnectedComponents components = new StronglyConnectedComponents(snapshot);
+        int count = components.count();
+        int[][] dag = components.condensation();
+        int[] members = components.membersByComponent();
+        int[] memberOffsets = components.memberOffsets();
+        long[][] reach = new long[count][]; // vertices reachable from the component, members included
+        long[][] closure = new long[count][]; // vertices reachable by at least one arc
+        for (int c = 0; c < count; c++) {
+            long[] row = new long[words];
+            for (int e = dag[0][c]; e < dag[0][c + 1]; e++) {
+                long[] next = reach[dag[1][e]];
+                for (int w = 0; w < words; w++) {
+                    row[w] |= next[w];
+                }
+            }
+            long[] withMembers = components.isCyclic(c) ? row : row.clone();
+            for (int i = memberOffsets[c]; i < memberOffsets[c + 1]; i++) {
+                int v = members[i];
+                withMembers[v >>> 6] |= 1L << v;
+            }
+            reach[c] = withMembers;
+            closure[c] = row;
+        }
+        long[][] rows = new long[n][];
+        for (int v = 0; v < n; v++) {
+            rows[v] = closure[components.componentOf(v)];
+        }
+        return rows;
+    }
+
+    /**
+     * Create a graph from a bit matrix, the same way as createGraphFromAdjMatrix.
+     *
+     * @param rows bit adjacency matrix of a graph
+     */
+    public Graph createGraphFromBitMatrix(long[][] rows) {
+        Graph graph = new Graph(" GRAPH FROM MATRIX");
+        Vertex[] vertices = new Vertex[rows.length];
+
+        for (int i = 0; i < rows.length; i++) {
+            vertices[i] = graph.createVertex(String.valueOf(rows.length - 1 - i));
+        }
+
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < rows.length; j++) {
+                if ((rows[i][j >>> 6] & 1L << j) != 0) {
+                    graph.createArc("", vertices[rows.length - 1 - i], vertices[rows.length - 1 - j]);
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * @return amount of longs needed for n bits
+     */
+    private static int words(int n) {
+        return (n + 63) >>> 6;
     }
 
     /**
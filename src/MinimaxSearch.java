@@ -0,0 +1,125 @@
+import java.util.Arrays;
+
+/**
+ * Minimax (bottleneck) variant of Dijkstra's algorithm for HeightPath.
+ * The cost of a path is the height of its highest vertex, not counting the
+ * start and the destination. A path that goes from start directly to the
+ * destination costs the higher of those two, as in GraphPathManager.
+ * A single search finds the path whose highest point is the lowest, among
+ * such paths the one with the smallest amount of arcs.
+ * Entries of the arrays are stamped with the number of the search, so one
+ * object can be reused from the pool of the snapshot without clearing.
+ * An interrupted search stops with a CancellationException like DijkstraSearch.
+ */
+public class MinimaxSearch {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final GraphSnapshot snapshot;
+    private final int[] cost; // highest point of the best path found so far
+    private final int[] hops;
+    private final int[] parentArc;
+    private final int[] stamp;
+    private final IndexedMinHeap heap;
+    private int epoch = 0;
+
+    MinimaxSearch(GraphSnapshot snapshot) {
+        this.snapshot = snapshot;
+        int n = snapshot.vertexCount();
+        cost = new int[n];
+        hops = new int[n];
+        parentArc = new int[n];
+        stamp = new int[n];
+        heap = new IndexedMinHeap(n);
+    }
+
+    /**
+     * @param snapshot snapshot of the graph
+     * @return pool of searches shared by every user of the snapshot
+     */
+    public static SearchContextPool<MinimaxSearch> pool(GraphSnapshot snapshot) {
+        return snapshot.getPool(MinimaxSearch.class, MinimaxSearch::new);
+    }
+
+    /**
+     * Find the path from start to destination whose highest point is the lowest.
+     *
+     * @param start       index of start vertex
+     * @param destination index of destination vertex
+     * @return highest point of the best path or UNREACHABLE if there is no path
+     */
+    public int run(int start, int destination) {
+        int[] offsets = snapshot.offsets;
+        int[] targets = snapshot.targets;
+        int[] heights = snapshot.heights;
+        int searchNumber = nextEpoch();
+        int directCost = Math.max(heights[start], heights[destination]);
+        heap.clear();
+        stamp[start] = searchNumber;
+        cost[start] = Integer.MIN_VALUE;
+        hops[start] = 0;
+        heap.insertOrDecrease(start, key(Integer.MIN_VALUE, 0));
+        int polled = 0;
+        while (!heap.isEmpty()) {
+            DijkstraSearch.checkInterrupt(++polled);
+            int vertex = heap.poll();
+            if (vertex == destination) return cost[vertex];
+            int viaCost = vertex == start ? Integer.MIN_VALUE : Math.max(cost[vertex], heights[vertex]);
+            int nextHops = hops[vertex] + 1;
+            for (int e = offsets[vertex]; e < offsets[vertex + 1]; e++) {
+                int next = targets[e];
+                if (next == start) continue;
+                int candidate = vertex == start && next == destination ? directCost : viaCost;
+                if (stamp[next] != searchNumber) {
+                    stamp[next] = searchNumber;
+                    cost[next] = UNREACHABLE;
+                } else if (!heap.contains(next)) {
+                    continue; // already settled
+                }
+                if (candidate < cost[next] || candidate == cost[next] && nextHops < hops[next]) {
+                    cost[next] = candidate;
+                    hops[next] = nextHops;
+                    parentArc[next] = e;
+                    heap.insertOrDecrease(next, key(candidate, nextHops));
+                }
+            }
+        }
+        return UNREACHABLE;
+    }
+
+    /**
+     * @param vertex index of vertex reached by the last search
+     * @return arc used to reach the vertex
+     */
+    public int parentArc(int vertex) {
+        return parentArc[vertex];
+    }
+
+    /**
+     * @return read-only view of the parent arcs, valid for vertices on the found path
+     */
+    int[] parentArcs() {
+        return parentArc;
+    }
+
+    /**
+     * [run help method]
+     * Heap key that orders by cost first and amount of arcs second, packed like in
+     * DijkstraSearch. Costs may be negative, the shift keeps their sign.
+     */
+    private static long key(int cost, int hops) {
+        return (long) cost << 32 | hops;
+    }
+
+    /**
+     * [run help method]
+     * Start a new search number, all entries written by earlier searches become invalid.
+     */
+    private int nextEpoch() {
+        if (++epoch == 0) {
+            Arrays.fill(stamp, 0);
+            epoch = 1;
+        }
+        return epoch;
+    }
+}
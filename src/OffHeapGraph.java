@@ -0,0 +1,608 @@
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Graph stored outside of the Java heap, for graphs with so many arcs that
+ * Vertex and Arc objects would take gigabytes of heap and long collections.
+ * The arrays of a GraphSnapshot (offsets, targets, weights, heights) are
+ * kept in direct byte buffers, vertex ids as UTF-8 bytes with a hash table
+ * for indexOf, arc ids only if some arc has an id other than "a" + source
+ * id + "_" + target id (like in SnapshotFile). Garbage collection only sees
+ * a few buffer objects, whatever the size of the graph.
+ * <p>
+ * Callers that need a single Vertex or Arc object, for example to print a
+ * path, get it through getVertex and getArc. These are views created on
+ * first use and kept for the life of the graph, so the same vertex always
+ * gives the same object. A view of a vertex gets its chain of arcs only when
+ * getVertex is called for it: a vertex reached through Arc.target has
+ * first == null until then, so following Vertex.first and Arc.target from a
+ * view does not see the whole graph. The views are not a graph for the
+ * existing algorithms, which must run on toSnapshot (or toGraph for the ones
+ * that need a linked Graph), both copy the graph to the heap.
+ * <p>
+ * Memory is released by close, not by the garbage collector, so the graph
+ * must be closed after use, best with try-with-resources. Any use after
+ * close other than getId, isClosed and toString throws an
+ * IllegalStateException. Reading is thread-safe, but close and setWeight
+ * must not run at the same time as other calls.
+ */
+public class OffHeapGraph implements AutoCloseable {
+
+    private static final Method INVOKE_CLEANER;
+    private static final Object UNSAFE;
+
+    static {
+        Method invokeCleaner = null;
+        Object unsafe = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // buffers are released by the garbage collector instead
+        }
+        INVOKE_CLEANER = invokeCleaner;
+        UNSAFE = unsafe;
+    }
+
+    private final String id;
+    private final int vertexCount;
+    private final int arcCount;
+    private ByteBuffer offsets; // n + 1 ints, first arc of each vertex
+    private ByteBuffer targets; // m ints
+    private ByteBuffer weights; // m ints
+    private ByteBuffer heights; // n ints
+    private Strings vertexIds;
+    private Strings arcIds; // null if arc ids follow the default pattern
+    private ByteBuffer idTable; // vertex index + 1 by hash of the id, 0 for an empty slot
+    private boolean closed = false;
+    private final Map<Integer, Vertex> vertexViews = new ConcurrentHashMap<>();
+    private final Map<Integer, Arc> arcViews = new ConcurrentHashMap<>();
+
+    /**
+     * Copy the graph out of the heap. The graph itself is not changed, it can be dropped afterwards.
+     *
+     * @param graph graph to copy
+     */
+    OffHeapGraph(Graph graph) {
+        this(graph.id, graph.createSnapshot());
+    }
+
+    /**
+     * Copy the snapshot out of the heap.
+     *
+     * @param id       id of the graph
+     * @param snapshot snapshot to copy
+     */
+    OffHeapGraph(String id, GraphSnapshot snapshot) {
+        this.id = id;
+        vertexCount = snapshot.vertexCount();
+        arcCount = snapshot.arcCount();
+        offsets = copy(snapshot.offsets);
+        targets = copy(snapshot.targets);
+        weights = copy(snapshot.weights);
+        heights = copy(snapshot.heights);
+        vertexIds = new Strings(vertexCount);
+        for (int v = 0; v < vertexCount; v++) {
+            vertexIds.add(snapshot.vertexId(v));
+        }
+        for (int e = 0; e < arcCount; e++) {
+            String arcId = snapshot.arcId(e);
+            if (arcIds == null) {
+                if (arcId.equals(defaultArcId(e))) continue;
+                arcIds = new Strings(arcCount);
+                for (int before = 0; before < e; before++) {
+                    arcIds.add(snapshot.arcId(before));
+                }
+            }
+            arcIds.add(arcId);
+        }
+        idTable = buildIdTable();
+    }
+
+    /**
+     * [Builder help constructor]
+     */
+    private OffHeapGraph(String id, int vertexCount, int arcCount, ByteBuffer offsets, ByteBuffer targets,
+                         ByteBuffer weights, ByteBuffer heights, Strings vertexIds) {
+        this.id = id;
+        this.vertexCount = vertexCount;
+        this.arcCount = arcCount;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.heights = heights;
+        this.vertexIds = vertexIds;
+        this.idTable = buildIdTable();
+    }
+
+    /**
+     * [constructor help method]
+     * Open addressing table of vertex ids, the same layout as the table of SnapshotFile.
+     */
+    private ByteBuffer buildIdTable() {
+        int size = 2;
+        while (size < 2 * vertexCount) size <<= 1;
+        ByteBuffer table = allocate(size);
+        int mask = size - 1;
+        for (int v = 0; v < vertexCount; v++) {
+            int slot = mix(vertexIds.hash(v)) & mask;
+            while (table.getInt(slot * 4) != 0) slot = (slot + 1) & mask;
+            table.putInt(slot * 4, v + 1);
+        }
+        return table;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return number of vertices in the graph
+     */
+    public int vertexCount() {
+        check();
+        return vertexCount;
+    }
+
+    /**
+     * @return number of arcs in the graph
+     */
+    public int arcCount() {
+        check();
+        return arcCount;
+    }
+
+    /**
+     * @param v vertex index
+     * @return index of the first arc of the vertex, offset(vertexCount()) is the amount of arcs
+     */
+    public int offset(int v) {
+        check();
+        return offsets.getInt(v * 4);
+    }
+
+    /**
+     * @param e arc index
+     * @return index of the target vertex of the arc
+     */
+    public int target(int e) {
+        check();
+        return targets.getInt(e * 4);
+    }
+
+    /**
+     * @param e arc index
+     * @return weight of the arc
+     */
+    public int weight(int e) {
+        check();
+        return weights.getInt(e * 4);
+    }
+
+    /**
+     * Change the weight of an arc, the view of the arc is changed too if it exists.
+     *
+     * @param e      arc index
+     * @param weight new weight
+     */
+    public void setWeight(int e, int weight) {
+        check();
+        weights.putInt(e * 4, weight);
+        Arc view = arcViews.get(e);
+        if (view != null) view.weight = weight;
+    }
+
+    /**
+     * @param v vertex index
+     * @return height of the vertex
+     */
+    public int height(int v) {
+        check();
+        return heights.getInt(v * 4);
+    }
+
+    /**
+     * @param v vertex index
+     * @return id of the vertex, without creating Vertex objects
+     */
+    public String vertexId(int v) {
+        check();
+        return vertexIds.get(v);
+    }
+
+    /**
+     * @param e arc index
+     * @return id of the arc, without creating Arc objects
+     */
+    public String arcId(int e) {
+        check();
+        return arcIds != null ? arcIds.get(e) : defaultArcId(e);
+    }
+
+    private String defaultArcId(int e) {
+        return "a" + vertexIds.get(arcSource(e)) + "_" + vertexIds.get(targets.getInt(e * 4));
+    }
+
+    /**
+     * Find the vertex that owns the given arc with a binary search over offsets.
+     *
+     * @param e arc index
+     * @return index of the arc source vertex
+     */
+    public int arcSource(int e) {
+        check();
+        int low = 0;
+        int high = vertexCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (offsets.getInt(middle * 4) <= e) low = middle;
+            else high = middle - 1;
+        }
+        return low;
+    }
+
+    /**
+     * Find the index of the vertex with the given id.
+     *
+     * @param id vertex id
+     * @return vertex index or -1 if the graph has no such vertex
+     */
+    public int indexOf(String id) {
+        check();
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int mask = idTable.capacity() / 4 - 1;
+        int slot = mix(id.hashCode()) & mask;
+        int entry;
+        while ((entry = idTable.getInt(slot * 4)) != 0) {
+            if (vertexIds.equals(entry - 1, key)) return entry - 1;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Find the index of a vertex view of this graph.
+     *
+     * @param vertex vertex returned by getVertex or reached through the arcs of the views
+     * @return vertex index
+     */
+    public int indexOf(Vertex vertex) {
+        int position = indexOf(vertex.id);
+        if (position < 0 || vertexViews.get(position) != vertex)
+            throw new RuntimeException(String.format("Vertex %s is not part of the graph", vertex.id));
+        return position;
+    }
+
+    /**
+     * View of the vertex with its chain of arcs, created on first use. The targets
+     * of the arcs are views without arcs until getVertex is called for them.
+     *
+     * @param v vertex index
+     * @return Vertex with the given index
+     */
+    public Vertex getVertex(int v) {
+        check();
+        Vertex vertex = view(v);
+        synchronized (vertex) {
+            if (vertex.first == null) {
+                for (int e = offset(v + 1) - 1; e >= offset(v); e--) {
+                    Arc arc = arcViews.computeIfAbsent(e, this::createArc);
+                    arc.next = vertex.first;
+                    vertex.first = arc;
+                }
+            }
+        }
+        return vertex;
+    }
+
+    /**
+     * @param e arc index
+     * @return Arc with the given index
+     */
+    public Arc getArc(int e) {
+        getVertex(arcSource(e));
+        return arcViews.get(e);
+    }
+
+    /**
+     * [getVertex help method]
+     * View of the vertex without arcs.
+     */
+    private Vertex view(int v) {
+        return vertexViews.computeIfAbsent(v, index -> {
+            Vertex vertex = new Vertex(vertexId(index));
+            vertex.height = height(index);
+            return vertex;
+        });
+    }
+
+    /**
+     * [getVertex help method]
+     */
+    private Arc createArc(int e) {
+        Arc arc = new Arc(arcId(e), view(target(e)), null);
+        arc.weight = weight(e);
+        return arc;
+    }
+
+    /**
+     * Turn arc indexes of a path into arcs, for example for ShortestPath.pathToString.
+     *
+     * @param path arc indexes in right order
+     * @return right ordered arcs
+     */
+    public LinkedList<Arc> getPath(int[] path) {
+        LinkedList<Arc> res = new LinkedList<>();
+        for (int e : path) {
+            res.add(getArc(e));
+        }
+        return res;
+    }
+
+    /**
+     * Copy the arrays to the heap for the algorithms that run on snapshots. Ids stay
+     * outside of the heap and are decoded when they are asked for, so the snapshot
+     * can only be used until the graph is closed.
+     *
+     * @return snapshot with the same vertex and arc indexes
+     */
+    public GraphSnapshot toSnapshot() {
+        check();
+        return new GraphSnapshot(this::vertexId, arcIds == null ? null : this::arcId, this::indexOf,
+                toArray(offsets, vertexCount + 1), toArray(targets, arcCount),
+                toArray(weights, arcCount), toArray(heights, vertexCount));
+    }
+
+    /**
+     * Build a new linked graph with the vertices, arcs, ids and heights of this one,
+     * in the same order. The new graph does not depend on this one.
+     *
+     * @param id id of the new graph
+     * @return new graph
+     */
+    public Graph toGraph(String id) {
+        check();
+        return toSnapshot().toGraph(id);
+    }
+
+    /**
+     * @return bytes of memory outside of the heap taken by the graph
+     */
+    public long offHeapBytes() {
+        check();
+        long bytes = (long) offsets.capacity() + targets.capacity() + weights.capacity()
+                + heights.capacity() + idTable.capacity() + vertexIds.bytes();
+        return arcIds == null ? bytes : bytes + arcIds.bytes();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Release the memory of the graph. Views that were already created keep their ids,
+     * heights and weights, the graph itself can not be used any more.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        free(offsets);
+        free(targets);
+        free(weights);
+        free(heights);
+        free(idTable);
+        vertexIds.free();
+        if (arcIds != null) arcIds.free();
+        offsets = targets = weights = heights = idTable = null;
+        vertexIds = arcIds = null;
+    }
+
+    private void check() {
+        if (closed) throw new IllegalStateException(String.format("Off-heap graph %s is closed", id));
+    }
+
+    @Override
+    public String toString() {
+        return closed ? id + " (closed)" : String.format("%s: %d vertices, %d arcs off heap", id, vertexCount, arcCount);
+    }
+
+    /**
+     * Direct buffer of ints in native order.
+     */
+    private static ByteBuffer allocate(int ints) {
+        if (ints > Integer.MAX_VALUE / 4) throw new RuntimeException("Too many ints for one buffer: " + ints);
+        return ByteBuffer.allocateDirect(ints * 4).order(ByteOrder.nativeOrder());
+    }
+
+    private static ByteBuffer copy(int[] values) {
+        ByteBuffer buffer = allocate(values.length);
+        buffer.asIntBuffer().put(values);
+        return buffer;
+    }
+
+    private static int[] toArray(ByteBuffer buffer, int count) {
+        int[] result = new int[count];
+        buffer.asIntBuffer().get(result);
+        return result;
+    }
+
+    /**
+     * Release a direct buffer now through the cleaner of the JDK, if it is available.
+     */
+    private static void free(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) return;
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException e) {
+            // released by the garbage collector
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Strings as UTF-8 bytes in one direct buffer, with the end offset of every string in another.
+     */
+    private static final class Strings {
+
+        private ByteBuffer bytes = ByteBuffer.allocateDirect(1024);
+        private ByteBuffer ends; // end of string i in bytes, the start is the end of i - 1
+        private int count = 0;
+
+        Strings(int capacity) {
+            ends = allocate(capacity);
+        }
+
+        void add(String value) {
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            int start = count == 0 ? 0 : ends.getInt((count - 1) * 4);
+            if ((long) start + encoded.length > Integer.MAX_VALUE)
+                throw new RuntimeException("Ids of the graph are too long to keep off heap");
+            if (start + encoded.length > bytes.capacity()) {
+                long capacity = Math.max((long) bytes.capacity() * 2, (long) start + encoded.length);
+                ByteBuffer larger = ByteBuffer.allocateDirect((int) Math.min(Integer.MAX_VALUE, capacity));
+                ByteBuffer used = bytes.duplicate();
+                used.position(0).limit(start);
+                larger.put(used);
+                OffHeapGraph.free(bytes);
+                bytes = larger;
+            }
+            bytes.position(start);
+            bytes.put(encoded);
+            ends.putInt(count * 4, start + encoded.length);
+            count++;
+        }
+
+        private int start(int i) {
+            return i == 0 ? 0 : ends.getInt((i - 1) * 4);
+        }
+
+        String get(int i) {
+            int start = start(i);
+            byte[] result = new byte[ends.getInt(i * 4) - start];
+            bytes.duplicate().position(start).get(result);
+            return new String(result, StandardCharsets.UTF_8);
+        }
+
+        boolean equals(int i, byte[] other) {
+            int start = start(i);
+            if (ends.getInt(i * 4) - start != other.length) return false;
+            for (int k = 0; k < other.length; k++) {
+                if (bytes.get(start + k) != other[k]) return false;
+            }
+            return true;
+        }
+
+        /**
+         * @return String.hashCode of string i
+         */
+        int hash(int i) {
+            return get(i).hashCode();
+        }
+
+        long bytes() {
+            return (long) bytes.capacity() + ends.capacity();
+        }
+
+        void free() {
+            OffHeapGraph.free(bytes);
+            OffHeapGraph.free(ends);
+        }
+    }
+
+    /**
+     * Builds an off-heap graph vertex by vertex and arc by arc, without Vertex and Arc
+     * objects on the heap at all. Arcs are added in the order of their source vertices.
+     */
+    public static final class Builder {
+
+        private final String id;
+        private final int vertexCount;
+        private final int arcCount;
+        private final ByteBuffer offsets;
+        private final ByteBuffer targets;
+        private final ByteBuffer weights;
+        private final ByteBuffer heights;
+        private final Strings vertexIds;
+        private int vertices = 0;
+        private int arcs = 0;
+        private int lastSource = 0;
+        private boolean built = false;
+
+        /**
+         * @param id          id of the graph
+         * @param vertexCount amount of vertices that will be added
+         * @param arcCount    amount of arcs that will be added
+         */
+        Builder(String id, int vertexCount, int arcCount) {
+            this.id = id;
+            this.vertexCount = vertexCount;
+            this.arcCount = arcCount;
+            offsets = allocate(vertexCount + 1);
+            targets = allocate(arcCount);
+            weights = allocate(arcCount);
+            heights = allocate(vertexCount);
+            vertexIds = new Strings(vertexCount);
+        }
+
+        /**
+         * Add the next vertex, vertices get indexes in the order they are added.
+         *
+         * @param vertexId id of the vertex
+         * @param height   height of the vertex
+         * @return index of the vertex
+         */
+        public int addVertex(String vertexId, int height) {
+            if (vertices == vertexCount) throw new RuntimeException(String.format("Graph %s already has %d vertices", id, vertexCount));
+            heights.putInt(vertices * 4, height);
+            vertexIds.add(vertexId);
+            return vertices++;
+        }
+
+        /**
+         * Add the next arc, sources must not decrease.
+         *
+         * @param source index of the source vertex
+         * @param target index of the target vertex
+         * @param weight weight of the arc
+         * @return index of the arc
+         */
+        public int addArc(int source, int target, int weight) {
+            if (arcs == arcCount) throw new RuntimeException(String.format("Graph %s already has %d arcs", id, arcCount));
+            if (source < lastSource)
+                throw new RuntimeException(String.format("Arcs of vertex %d must be added before arcs of vertex %d", source, lastSource));
+            if (source >= vertexCount || target < 0 || target >= vertexCount)
+                throw new RuntimeException(String.format("Arc from %d to %d is outside of the graph", source, target));
+            while (lastSource < source) offsets.putInt(++lastSource * 4, arcs);
+            targets.putInt(arcs * 4, target);
+            weights.putInt(arcs * 4, weight);
+            return arcs++;
+        }
+
+        /**
+         * @return the graph, the builder can not be used any more
+         */
+        public OffHeapGraph build() {
+            if (built) throw new RuntimeException(String.format("Graph %s is already built", id));
+            if (vertices != vertexCount || arcs != arcCount)
+                throw new RuntimeException(String.format("Graph %s has %d of %d vertices and %d of %d arcs",
+                        id, vertices, vertexCount, arcs, arcCount));
+            while (lastSource < vertexCount) offsets.putInt(++lastSource * 4, arcs);
+            built = true;
+            return new OffHeapGraph(id, vertexCount, arcCount, offsets, targets, weights, heights, vertexIds);
+        }
+    }
+}
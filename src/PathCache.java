@@ -0,0 +1,291 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of shortest path results of one graph, for traffic where the
+ * same pairs of vertices are asked again and again. A result (path length
+ * and arcs) is kept per start vertex, end vertex and search mode. The cache
+ * is split into segments by the hash of the key, every segment is a
+ * LinkedHashMap in access order under its own lock, so the least recently
+ * used entry of a segment is dropped when the segment is full and threads
+ * asking for different pairs rarely wait for each other. Searches run
+ * outside of the locks.
+ * <p>
+ * Every entry remembers the version of the graph it was computed for
+ * (Graph.getVersion). An entry of an older version is never returned, it is
+ * computed again and replaced, stale entries that are not asked for any
+ * more are dropped by the LRU order. Searches run on a snapshot of the
+ * current version, which is taken again after the graph changes. As the
+ * graph itself is not thread-safe, it must not be changed while queries run.
+ */
+public class PathCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Graph graph;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile Versioned current; // snapshot of the graph for searches
+    private final Object snapshotLock = new Object(); // one snapshot is taken for a version
+
+    /**
+     * @param graph    graph whose paths are cached
+     * @param capacity maximal amount of cached results
+     */
+    PathCache(Graph graph, int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Too small cache capacity: " + capacity);
+        this.graph = graph;
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(capacity));
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(capacity / count + (i < capacity % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * Shortest path with the smallest amount of arcs, from the cache if the graph
+     * has not changed since it was found.
+     *
+     * @param from start vertex
+     * @param to   end vertex
+     * @param mode way to search the path if it is not in the cache
+     * @return new list of the arcs of the path
+     */
+    public LinkedList<Arc> getPath(Vertex from, Vertex to, ShortestPath.Mode mode) {
+        Result result = get(from, to, mode);
+        if (result.path == null)
+            throw new RuntimeException(String.format("Vertex %s has no connection to vertex %s in graph", to.id, from.id));
+        return new LinkedList<>(Arrays.asList(result.path));
+    }
+
+    /**
+     * Length of the shortest path, from the cache if the graph has not changed since it was found.
+     *
+     * @param from start vertex
+     * @param to   end vertex
+     * @param mode way to search the path if it is not in the cache
+     * @return path length or DijkstraSearch.UNREACHABLE
+     */
+    public int distance(Vertex from, Vertex to, ShortestPath.Mode mode) {
+        return get(from, to, mode).distance;
+    }
+
+    /**
+     * @return amount of queries answered from the cache
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return amount of queries that needed a search, including stale entries
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return part of queries answered from the cache, 0 before the first query
+     */
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return amount of cached results, stale ones included
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Drop all cached results, the counters are kept.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * [getPath and distance help method]
+     * Cached result of the current version or a new one.
+     */
+    private Result get(Vertex from, Vertex to, ShortestPath.Mode mode) {
+        long version = graph.getVersion();
+        Key key = new Key(from.id, to.id, mode);
+        Segment segment = segments[mix(key.hashCode()) & (segments.length - 1)];
+        Result result;
+        synchronized (segment) {
+            result = segment.get(key);
+        }
+        if (result != null && result.version == version) {
+            hits.increment();
+            return result;
+        }
+        misses.increment();
+        result = search(from, to, mode, version);
+        synchronized (segment) {
+            segment.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * [get help method]
+     * Run the search on the snapshot of the given version.
+     */
+    private Result search(Vertex from, Vertex to, ShortestPath.Mode mode, long version) {
+        GraphSnapshot snapshot = snapshot(version);
+        int source = snapshot.indexOf(from);
+        int target = snapshot.indexOf(to);
+        int distance;
+        int[] arcs = null;
+        if (mode == ShortestPath.Mode.BIDIRECTIONAL) {
+            SearchContextPool<BidirectionalSearch> pool = BidirectionalSearch.pool(snapshot);
+            BidirectionalSearch search = pool.acquire();
+            try {
+                search.run(source, target);
+                distance = search.distance();
+                if (search.isReached()) arcs = search.arcPath();
+            } finally {
+                pool.release(search);
+            }
+        } else {
+            SearchContextPool<DijkstraSearch> pool = DijkstraSearch.pool(snapshot);
+            DijkstraSearch search = pool.acquire();
+            try {
+                search.run(source, target);
+                distance = search.distance(target);
+                if (search.isReached(target)) arcs = search.arcPath(target);
+            } finally {
+                pool.release(search);
+            }
+        }
+        Arc[] path = null;
+        if (arcs != null) {
+            path = new Arc[arcs.length];
+            for (int i = 0; i < arcs.length; i++) {
+                path[i] = snapshot.getArc(arcs[i]);
+            }
+        }
+        return new Result(version, distance, path);
+    }
+
+    /**
+     * [search help method]
+     * Snapshot of the graph for the version, taken again when the version changed.
+     * Misses that come at the same time after a change wait for the first one to
+     * take the snapshot instead of taking their own.
+     */
+    private GraphSnapshot snapshot(long version) {
+        Versioned snapshot = current;
+        if (snapshot == null || snapshot.version != version) {
+            synchronized (snapshotLock) {
+                snapshot = current;
+                if (snapshot == null || snapshot.version != version) {
+                    snapshot = new Versioned(version, graph.createSnapshot());
+                    current = snapshot;
+                }
+            }
+        }
+        return snapshot.snapshot;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Start and end vertex ids and search mode of a query.
+     */
+    private static final class Key {
+
+        final String from;
+        final String to;
+        final ShortestPath.Mode mode;
+        final int hash;
+
+        Key(String from, String to, ShortestPath.Mode mode) {
+            this.from = from;
+            this.to = to;
+            this.mode = mode;
+            this.hash = (from.hashCode() * 31 + to.hashCode()) * 31 + mode.ordinal();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return mode == other.mode && from.equals(other.from) && to.equals(other.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Result of one search, path is null if the end vertex is not reachable.
+     */
+    private static final class Result {
+
+        final long version;
+        final int distance;
+        final Arc[] path;
+
+        Result(long version, int distance, Arc[] path) {
+            this.version = version;
+            this.distance = distance;
+            this.path = path;
+        }
+    }
+
+    private static final class Versioned {
+
+        final long version;
+        final GraphSnapshot snapshot;
+
+        Versioned(long version, GraphSnapshot snapshot) {
+            this.version = version;
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * Part of the cache under one lock, drops its least recently used entry when full.
+     */
+    private static final class Segment extends LinkedHashMap<Key, Result> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Result> eldest) {
+            return size() > capacity;
+        }
+    }
+}
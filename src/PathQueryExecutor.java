@@ -0,0 +1,200 @@
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Runs path queries against one snapshot of the graph on a pool of worker
+ * threads. Search state lives in the pooled contexts of the snapshot, so
+ * workers share the snapshot without copying the graph. The amount of
+ * queries waiting for a worker is bounded: submit blocks the caller while
+ * the queue is full. Every query has a timeout. A query that is still
+ * waiting in the queue when its time is over, or when its result is
+ * cancelled, is removed from the queue and not run at all. A query that is
+ * already running is interrupted. The searches of ShortestPath and
+ * HeightPath (DijkstraSearch, BidirectionalSearch, MinimaxSearch and the
+ * enumeration of HeightPath) check the interrupt status every 1024 vertices
+ * and stop with a CancellationException, so the worker and its place in the
+ * queue are free soon after the timeout. Other requests stop only if they
+ * check the interrupt status themselves.
+ */
+public class PathQueryExecutor implements AutoCloseable {
+
+    private final GraphSnapshot snapshot;
+    private final ThreadPoolExecutor workers;
+    private final Semaphore capacity; // bounds the queue, a worker may release its permit before taking the next query
+    private final long defaultTimeoutMillis;
+
+    /**
+     * @param snapshot             snapshot of the graph all queries run against
+     * @param threads              amount of worker threads
+     * @param queueCapacity        amount of queries that can wait for a worker
+     * @param defaultTimeoutMillis timeout of queries submitted without one
+     */
+    PathQueryExecutor(GraphSnapshot snapshot, int threads, int queueCapacity, long defaultTimeoutMillis) {
+        if (threads <= 0) throw new IllegalArgumentException("Too few threads: " + threads);
+        if (queueCapacity <= 0) throw new IllegalArgumentException("Too small queue: " + queueCapacity);
+        this.snapshot = snapshot;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.capacity = new Semaphore(threads + queueCapacity);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "path-query-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Executor with one worker per processor.
+     *
+     * @param snapshot snapshot of the graph all queries run against
+     */
+    PathQueryExecutor(GraphSnapshot snapshot) {
+        this(snapshot, Runtime.getRuntime().availableProcessors(), 1024, 10_000);
+    }
+
+    /**
+     * Query that can be run against a snapshot of the graph.
+     *
+     * @param <T> type of the result
+     */
+    public interface PathRequest<T> {
+        T run(GraphSnapshot snapshot);
+    }
+
+    /**
+     * @return request of the shortest path, same as ShortestPath.getPath
+     */
+    public static PathRequest<LinkedList<Arc>> shortestPath(Vertex from, Vertex to) {
+        ShortestPath shortestPath = new ShortestPath();
+        return snapshot -> shortestPath.getPath(from, to, false, snapshot);
+    }
+
+    /**
+     * @return request of the path with the lowest highest point, same as HeightPath.getOptimizedPath
+     */
+    public static PathRequest<HeightPath.Path> heightPath(String startId, String destinationId) {
+        HeightPath heightPath = new HeightPath();
+        return snapshot -> heightPath.getOptimizedPath(snapshot, startId, destinationId);
+    }
+
+    /**
+     * Submit the query with the default timeout.
+     */
+    public <T> CompletableFuture<T> submit(PathRequest<T> request) {
+        return submit(request, defaultTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Submit the query, blocks while the queue is full.
+     *
+     * @param request query
+     * @param timeout time given to the query from now on
+     * @param unit    unit of the timeout
+     * @return result that fails with TimeoutException if the query takes too long,
+     *         cancelling it cancels the query in the same way as a timeout
+     */
+    public <T> CompletableFuture<T> submit(PathRequest<T> request, long timeout, TimeUnit unit) {
+        if (workers.isShutdown()) throw new IllegalStateException("Executor is closed");
+        Query<T> query = new Query<>(request);
+        capacity.acquireUninterruptibly();
+        try {
+            workers.execute(query);
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+        query.result.orTimeout(timeout, unit).whenComplete((value, failure) -> {
+            if (failure instanceof TimeoutException || failure instanceof CancellationException) query.cancel();
+        });
+        return query.result;
+    }
+
+    /**
+     * Submit every query of the stream with the default timeout, in stream order.
+     *
+     * @return results in the same order as queries
+     */
+    public <T> List<CompletableFuture<T>> submitAll(Stream<? extends PathRequest<T>> requests) {
+        List<CompletableFuture<T>> results = new ArrayList<>();
+        requests.forEachOrdered(request -> results.add(submit(request)));
+        return results;
+    }
+
+    /**
+     * Query in the queue of the workers together with its result. The state is
+     * changed under the lock of the query, so a timeout interrupts the worker
+     * only while it runs this query and never the next one.
+     */
+    private final class Query<T> implements Runnable {
+
+        private static final int WAITING = 0;
+        private static final int RUNNING = 1;
+        private static final int DONE = 2;
+
+        private final PathRequest<T> request;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private int state = WAITING;
+        private Thread worker;
+
+        private Query(PathRequest<T> request) {
+            this.request = request;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (state != WAITING) return; // cancelled, the permit is already released
+                state = RUNNING;
+                worker = Thread.currentThread();
+            }
+            try {
+                result.complete(request.run(snapshot));
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    state = DONE;
+                    worker = null;
+                }
+                Thread.interrupted(); // clear an interrupt that came too late to stop the request
+                capacity.release();
+            }
+        }
+
+        /**
+         * [submit help method]
+         * Remove the query from the queue if it has not started, otherwise interrupt its worker.
+         */
+        private void cancel() {
+            boolean waiting;
+            synchronized (this) {
+                waiting = state == WAITING;
+                if (waiting) state = DONE;
+                else if (state == RUNNING) worker.interrupt();
+            }
+            if (waiting) {
+                workers.remove(this);
+                capacity.release();
+            }
+        }
+    }
+
+    /**
+     * Stop accepting queries, queries already submitted are finished.
+     */
+    @Override
+    public void close() {
+        workers.shutdown();
+    }
+}
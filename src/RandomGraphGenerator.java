@@ -0,0 +1,333 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Generator of large random graphs for load testing. Graphs are built
+ * straight into snapshot arrays, vertex ids "v1".."vn" are only turned into
+ * strings when they are asked for. The same seed always gives the same
+ * graph, also when edges are sampled in parallel: the work is split into a
+ * fixed amount of chunks with their own random generators, whatever the
+ * amount of threads is. Duplicate edges are found with a LongHashSet, so
+ * memory use is linear in the size of the graph. All models create
+ * undirected graphs (an arc in both directions for every edge). Use
+ * GraphSnapshot.toGraph to get a linked Graph.
+ */
+public class RandomGraphGenerator {
+
+    private static final int CHUNKS = 64; // independent parts of parallel sampling
+
+    private final long seed;
+    private final int maxWeight;
+    private final ForkJoinPool pool; // null for sampling in the calling thread
+
+    /**
+     * Generator with arc weights from 0 to 99, working in the calling thread.
+     *
+     * @param seed seed of the random generator
+     */
+    RandomGraphGenerator(long seed) {
+        this(seed, 100, null);
+    }
+
+    /**
+     * @param seed      seed of the random generator
+     * @param maxWeight arc weights are from 0 to maxWeight - 1
+     * @param pool      pool for parallel sampling of edges, or null
+     */
+    RandomGraphGenerator(long seed, int maxWeight, ForkJoinPool pool) {
+        if (maxWeight <= 0) throw new IllegalArgumentException("Too small max weight: " + maxWeight);
+        this.seed = seed;
+        this.maxWeight = maxWeight;
+        this.pool = pool;
+    }
+
+    /**
+     * Connected simple graph, as Graph.createRandomSimpleGraph: a random tree
+     * and random edges on top of it.
+     *
+     * @param n number of vertices
+     * @param m number of edges, at least n - 1
+     * @return snapshot of the graph
+     */
+    public GraphSnapshot simpleGraph(int n, long m) {
+        checkEdgeCount(n, m, n - 1);
+        SplittableRandom random = new SplittableRandom(seed);
+        Edges edges = new Edges(n, m);
+        for (int v = 1; v < n; v++) {
+            edges.add(random.nextInt(v), v, random.nextInt(maxWeight));
+        }
+        sample(edges, random, m - edges.size);
+        return edges.toSnapshot(randomWalkHeights(n, random));
+    }
+
+    /**
+     * Erdos-Renyi G(n, m) graph: m different edges chosen uniformly, the graph may be disconnected.
+     *
+     * @param n number of vertices
+     * @param m number of edges
+     * @return snapshot of the graph
+     */
+    public GraphSnapshot erdosRenyi(int n, long m) {
+        checkEdgeCount(n, m, 0);
+        SplittableRandom random = new SplittableRandom(seed);
+        Edges edges = new Edges(n, m);
+        sample(edges, random, m);
+        return edges.toSnapshot(randomWalkHeights(n, random));
+    }
+
+    /**
+     * Grid of rows x columns vertices, every vertex is connected to its neighbours
+     * on the left, right, top and bottom. Heights form a terrain: every height is
+     * close to the heights of the vertices above and to the left of it.
+     * Vertex r * columns + c is in row r and column c.
+     *
+     * @param rows    number of rows
+     * @param columns number of columns
+     * @return snapshot of the graph
+     */
+    public GraphSnapshot grid(int rows, int columns) {
+        if (rows <= 0 || columns <= 0 || (long) rows * columns > Integer.MAX_VALUE)
+            throw new IllegalArgumentException(String.format("Impossible grid size: %d x %d", rows, columns));
+        int n = rows * columns;
+        SplittableRandom random = new SplittableRandom(seed);
+        Edges edges = new Edges(n, 2L * n);
+        int[] heights = new int[n];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                int v = r * columns + c;
+                if (r == 0 && c == 0) {
+                    heights[v] = Graph.HeightGenerator.startHeight;
+                } else {
+                    int around = r == 0 ? heights[v - 1] : c == 0 ? heights[v - columns]
+                            : (heights[v - 1] + heights[v - columns]) / 2;
+                    heights[v] = nextHeight(around, random);
+                }
+                if (c > 0) edges.add(v - 1, v, random.nextInt(maxWeight));
+                if (r > 0) edges.add(v - columns, v, random.nextInt(maxWeight));
+            }
+        }
+        return edges.toSnapshot(heights);
+    }
+
+    /**
+     * Scale-free graph with the Barabasi-Albert model: every new vertex is connected to
+     * edgesPerVertex different older vertices, chosen with probability proportional
+     * to their degree, so degrees follow a power law.
+     *
+     * @param n              number of vertices
+     * @param edgesPerVertex edges of every new vertex
+     * @return snapshot of the graph
+     */
+    public GraphSnapshot powerLaw(int n, int edgesPerVertex) {
+        if (n <= 0) throw new IllegalArgumentException("Too few vertices: " + n);
+        if (edgesPerVertex <= 0) throw new IllegalArgumentException("Too few edges per vertex: " + edgesPerVertex);
+        SplittableRandom random = new SplittableRandom(seed);
+        long m = (long) n * edgesPerVertex;
+        if (m > Integer.MAX_VALUE / 2) throw new IllegalArgumentException("Too many edges: " + m);
+        Edges edges = new Edges(n, m);
+        int[] endpoints = new int[(int) (2 * m)]; // every vertex once per edge end
+        int endpointCount = 0;
+        int[] chosen = new int[edgesPerVertex];
+        for (int v = 1; v < n; v++) {
+            int count = Math.min(v, edgesPerVertex);
+            for (int i = 0; i < count; i++) {
+                int target;
+                boolean repeated;
+                do {
+                    target = v <= edgesPerVertex ? i : endpoints[random.nextInt(endpointCount)];
+                    repeated = false;
+                    for (int j = 0; j < i; j++) repeated |= chosen[j] == target;
+                } while (repeated);
+                chosen[i] = target;
+            }
+            for (int i = 0; i < count; i++) {
+                edges.add(chosen[i], v, random.nextInt(maxWeight));
+                endpoints[endpointCount++] = chosen[i];
+                endpoints[endpointCount++] = v;
+            }
+        }
+        return edges.toSnapshot(randomWalkHeights(n, random));
+    }
+
+    /**
+     * [simpleGraph and erdosRenyi help method]
+     * Add count new random edges. Every chunk samples its share into its own set with its
+     * own generator, possibly in parallel, then chunks are merged in order. Edges that more
+     * than one chunk found are replaced by sampling in the calling thread.
+     */
+    private void sample(Edges edges, SplittableRandom random, long count) {
+        if (count <= 0) return;
+        int n = edges.vertexCount;
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        long[][] keys = new long[CHUNKS][];
+        int[][] weights = new int[CHUNKS][];
+        for (int c = 0; c < CHUNKS; c++) {
+            int share = (int) (count / CHUNKS + (c < count % CHUNKS ? 1 : 0));
+            SplittableRandom chunkRandom = random.split();
+            int chunk = c;
+            Runnable work = () -> {
+                keys[chunk] = new long[share];
+                weights[chunk] = new int[share];
+                sampleChunk(n, edges.keys, chunkRandom, keys[chunk], weights[chunk]);
+            };
+            if (pool == null) work.run();
+            else tasks.add(pool.submit(work));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        for (int c = 0; c < CHUNKS; c++) {
+            for (int i = 0; i < keys[c].length; i++) {
+                edges.addKey(keys[c][i], weights[c][i]);
+            }
+        }
+        while (edges.size < edges.capacity) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            if (u != v) edges.add(u, v, random.nextInt(maxWeight));
+        }
+    }
+
+    /**
+     * [sample help method]
+     * Fill the arrays with different edges that are not in the existing set.
+     */
+    private void sampleChunk(int n, LongHashSet existing, SplittableRandom random, long[] keys, int[] weights) {
+        LongHashSet found = new LongHashSet(keys.length);
+        int size = 0;
+        while (size < keys.length) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            if (u == v) continue;
+            long key = Edges.key(u, v, n);
+            if (existing.contains(key) || !found.add(key)) continue;
+            keys[size] = key;
+            weights[size] = random.nextInt(maxWeight);
+            size++;
+        }
+    }
+
+    /**
+     * [model help method]
+     * Heights of a seeded random walk over the vertices in index order.
+     */
+    private static int[] randomWalkHeights(int n, SplittableRandom random) {
+        HeightProvider walk = HeightProvider.randomWalk(random.nextLong());
+        int[] heights = new int[n];
+        for (int v = 0; v < n; v++) {
+            heights[v] = walk.height(null, v);
+        }
+        return heights;
+    }
+
+    /**
+     * [model help method]
+     * Random step from the previous height with the limits of Graph.HeightGenerator.
+     */
+    private static int nextHeight(int previous, SplittableRandom random) {
+        int value = random.nextInt(Graph.HeightGenerator.maxValueElevation);
+        if (random.nextBoolean()) value = -value;
+        return Math.max(Graph.HeightGenerator.heightMin, Math.min(Graph.HeightGenerator.heightMax, previous + value));
+    }
+
+    /**
+     * [model help method]
+     */
+    private static void checkEdgeCount(int n, long m, long min) {
+        if (n <= 0) throw new IllegalArgumentException("Too few vertices: " + n);
+        if (m < min || m > (long) n * (n - 1) / 2 || m > Integer.MAX_VALUE / 2)
+            throw new IllegalArgumentException("Impossible number of edges: " + m);
+    }
+
+    /**
+     * Undirected edges without duplicates, in the order they were added.
+     * An edge is known by its key, smaller vertex * n + bigger vertex.
+     */
+    private static class Edges {
+
+        final int vertexCount;
+        final long capacity;
+        final LongHashSet keys;
+        final int[] from;
+        final int[] to;
+        final int[] weights;
+        int size = 0;
+
+        Edges(int vertexCount, long capacity) {
+            this.vertexCount = vertexCount;
+            this.capacity = capacity;
+            this.keys = new LongHashSet((int) Math.min(capacity, 1 << 29));
+            this.from = new int[(int) capacity];
+            this.to = new int[(int) capacity];
+            this.weights = new int[(int) capacity];
+        }
+
+        static long key(int u, int v, int n) {
+            return u < v ? (long) u * n + v : (long) v * n + u;
+        }
+
+        /**
+         * @return false if the edge already exists
+         */
+        boolean add(int u, int v, int weight) {
+            return addKey(key(u, v, vertexCount), weight);
+        }
+
+        boolean addKey(long key, int weight) {
+            if (size == capacity || !keys.add(key)) return false;
+            from[size] = (int) (key / vertexCount);
+            to[size] = (int) (key % vertexCount);
+            weights[size] = weight;
+            size++;
+            return true;
+        }
+
+        /**
+         * Arcs in both directions grouped by source with a counting sort.
+         */
+        GraphSnapshot toSnapshot(int[] heights) {
+            int n = vertexCount;
+            int[] offsets = new int[n + 1];
+            for (int e = 0; e < size; e++) {
+                offsets[from[e] + 1]++;
+                offsets[to[e] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            int[] fill = Arrays.copyOf(offsets, n);
+            int[] targets = new int[2 * size];
+            int[] arcWeights = new int[2 * size];
+            for (int e = 0; e < size; e++) {
+                int forward = fill[from[e]]++;
+                targets[forward] = to[e];
+                arcWeights[forward] = weights[e];
+                int backward = fill[to[e]]++;
+                targets[backward] = from[e];
+                arcWeights[backward] = weights[e];
+            }
+            return new GraphSnapshot(v -> "v" + (v + 1), null, id -> {
+                int v = indexOf(id);
+                return v < n ? v : -1;
+            }, offsets, targets, arcWeights, heights);
+        }
+
+        /**
+         * Index of id "v" + (index + 1) without a map.
+         */
+        private static int indexOf(String id) {
+            if (id.length() < 2 || id.length() > 11 || id.charAt(0) != 'v' || id.charAt(1) == '0') return -1;
+            long value = 0;
+            for (int i = 1; i < id.length(); i++) {
+                char c = id.charAt(i);
+                if (c < '0' || c > '9') return -1;
+                value = value * 10 + c - '0';
+            }
+            return value <= Integer.MAX_VALUE ? (int) value - 1 : -1;
+        }
+    }
+}
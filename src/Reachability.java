@@ -0,0 +1,283 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reachability queries on a snapshot of the graph without building the
+ * transitive closure. Vertices are grouped into strongly connected
+ * components and queries run on the condensation, which has no cycles.
+ * Every component gets interval labels from a few depth-first traversals
+ * of the condensation (GRAIL): if v can be reached from u, the intervals of
+ * v lie inside the intervals of u, so most negative answers need no search.
+ * Remaining queries are answered with a depth-first search over the
+ * condensation that skips components whose labels rule them out.
+ * Here "reachable" means there is a path of at least one arc, the same as
+ * in the closure of Matrix: a vertex reaches itself only on a cycle.
+ */
+public class Reachability {
+
+    private static final int LABELS = 2; // amount of traversals, more labels filter more but cost memory
+
+    private final GraphSnapshot snapshot;
+    private final StronglyConnectedComponents components;
+    private final int[] dagOffsets;
+    private final int[] dagTargets;
+    private final int[] members;
+    private final int[] memberOffsets;
+    private final int[][] low; // low[t][c] smallest post-order rank below component c in traversal t
+    private final int[][] rank; // rank[t][c] post-order rank of component c in traversal t
+    private final SearchContextPool<SearchState> pool;
+
+    Reachability(Graph graph) {
+        this(graph.createSnapshot());
+    }
+
+    Reachability(GraphSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.components = new StronglyConnectedComponents(snapshot);
+        int[][] dag = components.condensation();
+        this.dagOffsets = dag[0];
+        this.dagTargets = dag[1];
+        this.members = components.membersByComponent();
+        this.memberOffsets = components.memberOffsets();
+        int count = components.count();
+        this.low = new int[LABELS][count];
+        this.rank = new int[LABELS][count];
+        for (int t = 0; t < LABELS; t++) {
+            label(t, t % 2 == 1);
+        }
+        this.pool = new SearchContextPool<>(() -> new SearchState(count));
+    }
+
+    public GraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public StronglyConnectedComponents getComponents() {
+        return components;
+    }
+
+    /**
+     * @return true if there is a path of at least one arc from one vertex to the other
+     */
+    public boolean reachable(Vertex from, Vertex to) {
+        return reachable(snapshot.indexOf(from), snapshot.indexOf(to));
+    }
+
+    /**
+     * Check if there is a path of at least one arc from one vertex to the other.
+     *
+     * @param from index of start vertex
+     * @param to   index of destination vertex
+     * @return true if the destination can be reached
+     */
+    public boolean reachable(int from, int to) {
+        int source = components.componentOf(from);
+        int target = components.componentOf(to);
+        if (source == target) return components.isCyclic(source);
+        if (source < target || !contains(source, target)) return false;
+        SearchState state = pool.acquire();
+        try {
+            return search(source, target, state);
+        } finally {
+            pool.release(state);
+        }
+    }
+
+    /**
+     * @param from index of start vertex
+     * @return indexes of all vertices reachable from the vertex by at least one arc, in ascending order
+     */
+    public int[] reachableFrom(int from) {
+        int source = components.componentOf(from);
+        SearchState state = pool.acquire();
+        try {
+            int[] result = new int[snapshot.vertexCount()];
+            int size = 0;
+            int found = collect(source, state);
+            for (int i = 0; i < found; i++) {
+                int c = state.stack[i];
+                for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                    result[size++] = members[m];
+                }
+            }
+            result = Arrays.copyOf(result, size);
+            Arrays.sort(result);
+            return result;
+        } finally {
+            pool.release(state);
+        }
+    }
+
+    /**
+     * Go through the transitive closure pair by pair. Pairs are produced while iterating,
+     * only the reachable set of the current start vertex is kept in memory.
+     *
+     * @return iterator of {from, to} index pairs, ordered by start vertex and then destination
+     */
+    public Iterator<int[]> closure() {
+        return new Iterator<int[]>() {
+            private int from = -1;
+            private int[] reached = new int[0];
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (position == reached.length) {
+                    if (from + 1 >= snapshot.vertexCount()) return false;
+                    reached = reachableFrom(++from);
+                    position = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return new int[]{from, reached[position++]};
+            }
+        };
+    }
+
+    /**
+     * [reachable help method]
+     * Check that the labels of the target component lie inside the labels of the source.
+     */
+    private boolean contains(int source, int target) {
+        for (int t = 0; t < LABELS; t++) {
+            if (low[t][target] < low[t][source] || rank[t][target] > rank[t][source]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * [reachable help method]
+     * Depth-first search over the condensation, components that can not lead to the target are skipped.
+     */
+    private boolean search(int source, int target, SearchState state) {
+        int visit = state.nextSearch();
+        int size = 0;
+        state.stack[size++] = source;
+        state.visited[source] = visit;
+        while (size > 0) {
+            int c = state.stack[--size];
+            for (int e = dagOffsets[c]; e < dagOffsets[c + 1]; e++) {
+                int next = dagTargets[e];
+                if (next == target) return true;
+                if (next < target || state.visited[next] == visit || !contains(next, target)) continue;
+                state.visited[next] = visit;
+                state.stack[size++] = next;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * [reachableFrom help method]
+     * Put every component reachable from the source by at least one arc at the start of the stack.
+     *
+     * @return amount of components found
+     */
+    private int collect(int source, SearchState state) {
+        int visit = state.nextSearch();
+        int found = 0;
+        int[] stack = state.stack;
+        if (components.isCyclic(source)) {
+            state.visited[source] = visit;
+            stack[found++] = source;
+        }
+        for (int e = dagOffsets[source]; e < dagOffsets[source + 1]; e++) {
+            int next = dagTargets[e];
+            if (state.visited[next] == visit) continue;
+            state.visited[next] = visit;
+            stack[found++] = next;
+        }
+        for (int i = components.isCyclic(source) ? 1 : 0; i < found; i++) {
+            int c = stack[i];
+            for (int e = dagOffsets[c]; e < dagOffsets[c + 1]; e++) {
+                int next = dagTargets[e];
+                if (state.visited[next] == visit) continue;
+                state.visited[next] = visit;
+                stack[found++] = next;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * [constructor help method]
+     * Post-order traversal of the condensation from every component without incoming arcs,
+     * children in the given order. Sets rank and low of traversal t.
+     */
+    private void label(int t, boolean reversed) {
+        int count = components.count();
+        boolean[] hasParent = new boolean[count];
+        for (int target : dagTargets) {
+            hasParent[target] = true;
+        }
+        boolean[] visited = new boolean[count];
+        int[] callComponent = new int[count];
+        int[] callArc = new int[count];
+        int[] ranks = rank[t];
+        int[] lows = low[t];
+        int next = 0;
+        for (int i = 0; i < count; i++) {
+            int root = reversed ? i : count - 1 - i;
+            if (hasParent[root] || visited[root]) continue;
+            int depth = 0;
+            callComponent[0] = root;
+            callArc[0] = 0;
+            visited[root] = true;
+            lows[root] = Integer.MAX_VALUE;
+            while (depth >= 0) {
+                int c = callComponent[depth];
+                int from = dagOffsets[c];
+                int degree = dagOffsets[c + 1] - from;
+                if (callArc[depth] < degree) {
+                    int j = callArc[depth]++;
+                    int child = dagTargets[reversed ? from + degree - 1 - j : from + j];
+                    if (!visited[child]) {
+                        visited[child] = true;
+                        lows[child] = Integer.MAX_VALUE;
+                        depth++;
+                        callComponent[depth] = child;
+                        callArc[depth] = 0;
+                    } else {
+                        lows[c] = Math.min(lows[c], lows[child]);
+                    }
+                    continue;
+                }
+                ranks[c] = next++;
+                lows[c] = Math.min(lows[c], ranks[c]);
+                depth--;
+                if (depth >= 0) {
+                    int parent = callComponent[depth];
+                    lows[parent] = Math.min(lows[parent], lows[c]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scratch arrays of one query, taken from the pool.
+     */
+    static class SearchState {
+
+        final int[] stack;
+        final int[] visited;
+        private int visit = 0;
+
+        SearchState(int count) {
+            stack = new int[count];
+            visited = new int[count];
+        }
+
+        int nextSearch() {
+            if (++visit == 0) {
+                Arrays.fill(visited, 0);
+                visit = 1;
+            }
+            return visit;
+        }
+    }
+}
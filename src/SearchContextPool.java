@@ -0,0 +1,39 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Pool of reusable per-query search contexts (scratch arrays indexed by
+ * vertex number). A context is taken for one query and given back after
+ * it, so any number of threads can query the same read-only snapshot
+ * without allocating new arrays for every query.
+ *
+ * @param <T> type of the search context
+ */
+public class SearchContextPool<T> {
+
+    private final ConcurrentLinkedQueue<T> free = new ConcurrentLinkedQueue<>();
+    private final Supplier<T> factory;
+
+    SearchContextPool(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Take a free context or create a new one if all contexts are in use.
+     *
+     * @return context owned by the caller until release
+     */
+    public T acquire() {
+        T context = free.poll();
+        return context != null ? context : factory.get();
+    }
+
+    /**
+     * Give the context back to the pool, the caller must not use it afterwards.
+     *
+     * @param context context taken with acquire
+     */
+    public void release(T context) {
+        free.offer(context);
+    }
+}
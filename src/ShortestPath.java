@@ -1,5 +1,3 @@
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.LinkedList;
 
 /**
@@ -8,53 +6,159 @@ import java.util.LinkedList;
  */
 public class ShortestPath {
 
+    /**
+     * Way to search a path between two vertices.
+     */
+    public enum Mode {
+        DIJKSTRA, // one search from the start vertex until the end vertex is settled
+        BIDIRECTIONAL // searches from both vertices until they meet
+    }
+
     /**
      * Create a list of arcs which creates path from
-     * start vertex to the end vertex
+     * start vertex to the end vertex. The search always prefers the path
+     * with smallest amount of arcs among the shortest ones, so the path
+     * is taken directly from the predecessor arcs of the search.
+     * The bidirectional search is used, so only the neighbourhood of the
+     * two vertices is searched and the rest of the graph does not have to
+     * be connected to them.
      *
      * @param from     start vertex
      * @param to       end vertex
-     * @param smallest true if need path with smallest amount of arcs
-     * @return first suitable path or path with smallest amount of arcs
+     * @param smallest kept for compatibility, the path always has smallest amount of arcs
+     * @return shortest path with smallest amount of arcs
      */
     public LinkedList<Arc> getPath(Vertex from, Vertex to, boolean smallest, Graph c) {
-        setVerticesPathLength(from, c);
-        LinkedList<Vertex> rightPath = new LinkedList<>();
-        LinkedList<Vertex> path = new LinkedList<>();
-        ArrayList<Vertex> deadlock = new ArrayList<>();
-        Vertex vertex = to;
-        int min = Integer.MAX_VALUE;
-        path.add(vertex);
-        Vertex checkVertex;
-        do {
-            checkVertex = vertex;
-            Arc arc = vertex.first;
-            int currentWeight = vertex.weight;
-            while (arc != null) {
-                if (arc.target.weight + arc.weight == currentWeight &&
-                        !path.contains(arc.target) && !deadlock.contains(arc.target)) {
-                    vertex = arc.target;
-                    path.add(vertex);
-                    break;
-                }
-                arc = arc.next;
-            }
-            if (vertex == from) {
-                rightPath = path;
-                if (!smallest) break;
-                min = rightPath.size();
-                path = new LinkedList<>();
-                vertex = to;
-                path.add(vertex);
-            } else if (arc == null || path.size() >= min - 1) {
-                deadlock.add(vertex);
-                path = new LinkedList<>();
-                vertex = to;
-                path.add(vertex);
-            }
-        } while (vertex != checkVertex && min > 2);
-        Collections.reverse(rightPath);
-        return getArcPath(rightPath);
+        return getPath(from, to, c.createSnapshot(), Mode.BIDIRECTIONAL);
+    }
+
+    /**
+     * Create a list of arcs which creates path from start vertex to the end
+     * vertex using a snapshot of the graph. Path lengths are kept in a search
+     * context from the pool of the snapshot instead of the weight fields of the
+     * vertices, so the graph itself is not modified and many threads can search
+     * the same snapshot at once.
+     *
+     * @param from     start vertex
+     * @param to       end vertex
+     * @param smallest kept for compatibility, the path always has smallest amount of arcs
+     * @param snapshot snapshot of the graph that contains both vertices
+     * @return shortest path with smallest amount of arcs
+     */
+    public LinkedList<Arc> getPath(Vertex from, Vertex to, boolean smallest, GraphSnapshot snapshot) {
+        int source = snapshot.indexOf(from);
+        int target = snapshot.indexOf(to);
+        SearchContextPool<DijkstraSearch> pool = DijkstraSearch.pool(snapshot);
+        DijkstraSearch search = pool.acquire();
+        try {
+            search.run(source, target);
+            return search.getPath(target);
+        } finally {
+            pool.release(search);
+        }
+    }
+
+    /**
+     * Create a list of arcs which creates path from start vertex to the end
+     * vertex using a snapshot of the graph with the chosen mode. Both modes
+     * give a shortest path with the smallest amount of arcs.
+     *
+     * @param from     start vertex
+     * @param to       end vertex
+     * @param snapshot snapshot of the graph that contains both vertices
+     * @param mode     way to search the path
+     * @return shortest path with smallest amount of arcs
+     */
+    public LinkedList<Arc> getPath(Vertex from, Vertex to, GraphSnapshot snapshot, Mode mode) {
+        if (mode == Mode.DIJKSTRA) return getPath(from, to, false, snapshot);
+        int source = snapshot.indexOf(from);
+        int target = snapshot.indexOf(to);
+        SearchContextPool<BidirectionalSearch> pool = BidirectionalSearch.pool(snapshot);
+        BidirectionalSearch search = pool.acquire();
+        try {
+            search.run(source, target);
+            return search.getPath();
+        } finally {
+            pool.release(search);
+        }
+    }
+
+    /**
+     * Create a list of arcs which creates path from start vertex to the end
+     * vertex with the A* search. The path is as short as the one of getPath,
+     * but the heuristic leads the search towards the end vertex, so much less
+     * of the graph is searched. Heuristic.NONE gives plain Dijkstra's algorithm,
+     * a LandmarkHeuristic built once for the snapshot works for any weights.
+     *
+     * @param from      start vertex
+     * @param to        end vertex
+     * @param snapshot  snapshot of the graph that contains both vertices
+     * @param heuristic admissible lower bound of path lengths in the snapshot
+     * @return shortest path with smallest amount of arcs
+     */
+    public LinkedList<Arc> getPath(Vertex from, Vertex to, GraphSnapshot snapshot, Heuristic heuristic) {
+        int source = snapshot.indexOf(from);
+        int target = snapshot.indexOf(to);
+        SearchContextPool<AStarSearch> pool = AStarSearch.pool(snapshot);
+        AStarSearch search = pool.acquire();
+        try {
+            search.run(source, target, heuristic);
+            return search.getPath(target);
+        } finally {
+            pool.release(search);
+        }
+    }
+
+    /**
+     * Create a list of arcs which creates path from start vertex to the end
+     * vertex with a contraction hierarchy built once for a graph that does not
+     * change. Shortcuts are unpacked, so the list holds the arcs of the graph
+     * and can be printed with pathToString.
+     *
+     * @param from      start vertex
+     * @param to        end vertex
+     * @param hierarchy contraction hierarchy of the graph that contains both vertices
+     * @return shortest path with smallest amount of arcs
+     */
+    public LinkedList<Arc> getPath(Vertex from, Vertex to, ContractionHierarchy hierarchy) {
+        return hierarchy.getPath(from, to);
+    }
+
+    /**
+     * Create a list of arcs which creates path from start vertex to the end
+     * vertex of the graph of the cache. Repeated queries are answered from
+     * the cache until the graph changes.
+     *
+     * @param from  start vertex
+     * @param to    end vertex
+     * @param cache path cache of the graph that contains both vertices
+     * @return shortest path with smallest amount of arcs
+     */
+    public LinkedList<Arc> getPath(Vertex from, Vertex to, PathCache cache) {
+        return cache.getPath(from, to, Mode.BIDIRECTIONAL);
+    }
+
+    /**
+     * Create a list of arcs which creates path from start vertex to the end
+     * vertex with the smallest amount of arcs, weights are not taken into
+     * account. The path is found with the parallel breadth-first search.
+     *
+     * @param from     start vertex
+     * @param to       end vertex
+     * @param snapshot snapshot of the graph that contains both vertices
+     * @return path with smallest amount of arcs
+     */
+    public LinkedList<Arc> getFewestArcsPath(Vertex from, Vertex to, GraphSnapshot snapshot) {
+        int source = snapshot.indexOf(from);
+        int target = snapshot.indexOf(to);
+        SearchContextPool<BreadthFirstSearch> pool = BreadthFirstSearch.pool(snapshot);
+        BreadthFirstSearch search = pool.acquire();
+        try {
+            search.run(source, target, BreadthFirstSearch.ALL);
+            return search.getPath(target);
+        } finally {
+            pool.release(search);
+        }
     }
 
     /**
@@ -90,36 +194,72 @@ public class ShortestPath {
      */
     public void setVerticesPathLength(Vertex from, Graph graph) {
         setVertexWeightAsMax(graph);
-        LinkedList<Vertex> queue = new LinkedList<>();
-        ArrayList<Vertex> seen = new ArrayList<>();
-        queue.add(from);
-        from.weight = 0;
-        Vertex vertex;
-        while (queue.size() != 0) {
-            vertex = queue.removeFirst();
-            seen.add(vertex);
-            Arc arc = vertex.first;
-            while (arc != null) {
-                if (!seen.contains(arc.target) && !queue.contains(arc.target)) {
-                    queue.add(arc.target);
-                }
-                if (arc.target.weight > arc.weight + vertex.weight) {
-                    arc.target.weight = arc.weight + vertex.weight;
-                    if (!queue.contains(arc.target)) {
-                        seen.remove(arc.target);
-                        queue.add(arc.target);
-                    }
+        findPathLengths(from, graph.createSnapshot());
+    }
+
+    /**
+     * [setVerticesPathLength help method]
+     * Run the search from start vertex and write path lengths to the weight fields of the vertices.
+     *
+     * @param from     start vertex
+     * @param snapshot snapshot of the graph
+     * @return finished search
+     */
+    private DijkstraSearch findPathLengths(Vertex from, GraphSnapshot snapshot) {
+        DijkstraSearch search = new DijkstraSearch(snapshot);
+        search.run(snapshot.indexOf(from));
+        for (int vertex = 0; vertex < snapshot.vertexCount(); vertex++) {
+            if (!search.isReached(vertex)) {
+                throw new RuntimeException(String.format("Vertex %s has no connection to the root in graph", snapshot.getVertex(vertex).id));
+            }
+            snapshot.getVertex(vertex).weight = search.distance(vertex);
+        }
+        return search;
+    }
+
+    /**
+     * Find length of the path to each vertex of the snapshot from start vertex
+     *
+     * @param from     index of start vertex
+     * @param snapshot snapshot of the graph
+     * @return path lengths indexed by vertex
+     */
+    public int[] getPathLengths(int from, GraphSnapshot snapshot) {
+        SearchContextPool<DijkstraSearch> pool = DijkstraSearch.pool(snapshot);
+        DijkstraSearch search = pool.acquire();
+        try {
+            search.run(from);
+            int[] length = new int[snapshot.vertexCount()];
+            for (int vertex = 0; vertex < length.length; vertex++) {
+                if (!search.isReached(vertex)) {
+                    throw new RuntimeException(String.format("Vertex %s has no connection to the root in graph", snapshot.getVertex(vertex).id));
                 }
-                arc = arc.next;
+                length[vertex] = search.distance(vertex);
             }
+            return length;
+        } finally {
+            pool.release(search);
         }
-        vertex = graph.first;
-        while (vertex != null) {
-            if (!seen.contains(vertex)) {
-                throw new RuntimeException(String.format("Vertex %s has no connection to the root in graph", vertex.id));
+    }
+
+    /**
+     * Find length of the path to each vertex of the snapshot of the search from
+     * start vertex with the parallel delta-stepping search. The lengths are the
+     * same as the ones of the sequential getPathLengths.
+     *
+     * @param from   index of start vertex
+     * @param search delta-stepping search of the snapshot, used by one thread at a time
+     * @return path lengths indexed by vertex
+     */
+    public int[] getPathLengths(int from, DeltaSteppingSearch search) {
+        search.run(from);
+        int[] length = search.distances();
+        for (int vertex = 0; vertex < length.length; vertex++) {
+            if (length[vertex] == DeltaSteppingSearch.UNREACHABLE) {
+                throw new RuntimeException(String.format("Vertex %s has no connection to the root in graph", search.getSnapshot().getVertex(vertex).id));
             }
-            vertex = vertex.next;
         }
+        return length;
     }
 
     /**
@@ -140,7 +280,7 @@ public class ShortestPath {
         for (Arc arc : path) {
             res.add(String.format("(%s) ", length) + arc.id + String.format(" (%s)", length += arc.weight));
         }
-        return String.format("Path length from %s to %s is %s \n", from, to, to.weight) +
+        return String.format("Path length from %s to %s is %s \n", from, to, length) +
                 "Path of arcs: " + String.join(" --> ", res);
     }
 
@@ -0,0 +1,247 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Answers many shortest path queries against one snapshot of the graph.
+ * Queries are grouped by start vertex, every start vertex gets a single
+ * search that stops as soon as all end vertices of its group are settled.
+ * Every batch takes its search from the pool of the snapshot, so one
+ * object can be used by many threads.
+ */
+public class ShortestPathBatch {
+
+    private final GraphSnapshot snapshot;
+    private final SearchContextPool<DijkstraSearch> pool;
+
+    ShortestPathBatch(GraphSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.pool = DijkstraSearch.pool(snapshot);
+    }
+
+    ShortestPathBatch(Graph graph) {
+        this(graph.createSnapshot());
+    }
+
+    /**
+     * Find path lengths from one start vertex to every end vertex.
+     *
+     * @param source    start vertex
+     * @param targets   end vertices
+     * @param withPaths true if paths must be saved too
+     * @return table with one row
+     */
+    public DistanceTable oneToMany(Vertex source, Collection<Vertex> targets, boolean withPaths) {
+        return manyToMany(List.of(source), targets, withPaths);
+    }
+
+    /**
+     * Find path lengths from every start vertex to every end vertex.
+     * Repeated start vertices share one search.
+     *
+     * @param sources   start vertices
+     * @param targets   end vertices
+     * @param withPaths true if paths must be saved too
+     * @return table with a row for each start vertex and a column for each end vertex
+     */
+    public DistanceTable manyToMany(Collection<Vertex> sources, Collection<Vertex> targets, boolean withPaths) {
+        Vertex[] rows = sources.toArray(new Vertex[0]);
+        Vertex[] columns = targets.toArray(new Vertex[0]);
+        int[] targetIndexes = indexesOf(columns);
+        int[] sourceIndexes = indexesOf(rows);
+        int[][] distances = new int[rows.length][];
+        int[][][] paths = withPaths ? new int[rows.length][][] : null;
+
+        int[] order = sortedBySource(sourceIndexes);
+        DijkstraSearch search = pool.acquire();
+        try {
+            fillTable(search, order, sourceIndexes, targetIndexes, distances, paths);
+        } finally {
+            pool.release(search);
+        }
+        return new DistanceTable(snapshot, rows, columns, distances, paths);
+    }
+
+    /**
+     * [manyToMany help method]
+     * Run one search per distinct start vertex and fill the rows of the table.
+     */
+    private void fillTable(DijkstraSearch search, int[] order, int[] sourceIndexes, int[] targetIndexes,
+                           int[][] distances, int[][][] paths) {
+        boolean withPaths = paths != null;
+        int columns = targetIndexes.length;
+        for (int i = 0; i < order.length; i++) {
+            int row = order[i];
+            if (i > 0 && sourceIndexes[order[i - 1]] == sourceIndexes[row]) {
+                int previous = order[i - 1];
+                distances[row] = distances[previous];
+                if (withPaths) paths[row] = paths[previous];
+                continue;
+            }
+            search.run(sourceIndexes[row], targetIndexes);
+            distances[row] = new int[columns];
+            if (withPaths) paths[row] = new int[columns][];
+            for (int column = 0; column < columns; column++) {
+                int target = targetIndexes[column];
+                distances[row][column] = search.distance(target);
+                if (withPaths && search.isReached(target)) paths[row][column] = search.arcPath(target);
+            }
+        }
+    }
+
+    /**
+     * Find path lengths for arbitrary pairs of vertices. Pairs with the same
+     * start vertex share one search.
+     *
+     * @param from start vertex of each pair
+     * @param to   end vertex of each pair
+     * @return path length of each pair or DijkstraSearch.UNREACHABLE
+     */
+    public int[] distances(Vertex[] from, Vertex[] to) {
+        if (from.length != to.length) throw new IllegalArgumentException("Every pair needs start and end vertex");
+        int[] sourceIndexes = indexesOf(from);
+        int[] targetIndexes = indexesOf(to);
+        int[] order = sortedBySource(sourceIndexes);
+        int[] res = new int[from.length];
+        DijkstraSearch search = pool.acquire();
+        try {
+            fillDistances(search, order, sourceIndexes, targetIndexes, res);
+        } finally {
+            pool.release(search);
+        }
+        return res;
+    }
+
+    /**
+     * [distances help method]
+     * Run one search per group of pairs with the same start vertex.
+     */
+    private void fillDistances(DijkstraSearch search, int[] order, int[] sourceIndexes, int[] targetIndexes, int[] res) {
+        int groupStart = 0;
+        while (groupStart < order.length) {
+            int source = sourceIndexes[order[groupStart]];
+            int groupEnd = groupStart;
+            while (groupEnd < order.length && sourceIndexes[order[groupEnd]] == source) groupEnd++;
+            int[] groupTargets = new int[groupEnd - groupStart];
+            for (int i = groupStart; i < groupEnd; i++) {
+                groupTargets[i - groupStart] = targetIndexes[order[i]];
+            }
+            search.run(source, groupTargets);
+            for (int i = groupStart; i < groupEnd; i++) {
+                res[order[i]] = search.distance(targetIndexes[order[i]]);
+            }
+            groupStart = groupEnd;
+        }
+    }
+
+    /**
+     * [batch help method]
+     * Map vertices to their indexes in the snapshot.
+     */
+    private int[] indexesOf(Vertex[] vertices) {
+        int[] res = new int[vertices.length];
+        for (int i = 0; i < vertices.length; i++) {
+            res[i] = snapshot.indexOf(vertices[i]);
+        }
+        return res;
+    }
+
+    /**
+     * [batch help method]
+     * Order positions of queries so that queries with the same start vertex are next to each other.
+     * Vertex index and position are packed into one long, so sorting needs no boxing.
+     *
+     * @param sourceIndexes start vertex index of each query
+     * @return query positions ordered by start vertex
+     */
+    private int[] sortedBySource(int[] sourceIndexes) {
+        long[] keys = new long[sourceIndexes.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (long) sourceIndexes[i] << 32 | i;
+        }
+        Arrays.sort(keys);
+        int[] res = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            res[i] = (int) keys[i];
+        }
+        return res;
+    }
+
+    /**
+     * Result of a batch, path lengths between start vertices (rows) and end vertices (columns).
+     */
+    public static class DistanceTable {
+
+        private final GraphSnapshot snapshot;
+        private final Vertex[] sources;
+        private final Vertex[] targets;
+        private final int[][] distances;
+        private final int[][][] paths; // arc indexes of each path or null if paths were not saved
+
+        DistanceTable(GraphSnapshot snapshot, Vertex[] sources, Vertex[] targets, int[][] distances, int[][][] paths) {
+            this.snapshot = snapshot;
+            this.sources = sources;
+            this.targets = targets;
+            this.distances = distances;
+            this.paths = paths;
+        }
+
+        public Vertex getSource(int row) {
+            return sources[row];
+        }
+
+        public Vertex getTarget(int column) {
+            return targets[column];
+        }
+
+        public int rowCount() {
+            return sources.length;
+        }
+
+        public int columnCount() {
+            return targets.length;
+        }
+
+        /**
+         * @return path length or DijkstraSearch.UNREACHABLE
+         */
+        public int distance(int row, int column) {
+            return distances[row][column];
+        }
+
+        public boolean isReachable(int row, int column) {
+            return distances[row][column] != DijkstraSearch.UNREACHABLE;
+        }
+
+        /**
+         * @return right ordered arcs of the path
+         */
+        public LinkedList<Arc> getPath(int row, int column) {
+            if (paths == null) throw new RuntimeException("Paths were not saved in this batch");
+            int[] arcs = paths[row][column];
+            if (arcs == null)
+                throw new RuntimeException(String.format("Vertex %s has no connection to vertex %s in graph", targets[column], sources[row]));
+            LinkedList<Arc> res = new LinkedList<>();
+            for (int e : arcs) {
+                res.add(snapshot.getArc(e));
+            }
+            return res;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (Vertex target : targets) {
+                sb.append('\t').append(target);
+            }
+            for (int row = 0; row < sources.length; row++) {
+                sb.append('\n').append(sources[row]);
+                for (int column = 0; column < targets.length; column++) {
+                    sb.append('\t').append(isReachable(row, column) ? String.valueOf(distances[row][column]) : "-");
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,291 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary file of a graph snapshot. The file has a header and then sections
+ * in the same layout as the arrays of GraphSnapshot, so loading is a bulk
+ * copy of every int section from the mapped file. Vertex and arc ids are
+ * kept in a table of distinct strings and decoded from the mapped file only
+ * when they are asked for, a hash table of vertex ids in the file answers
+ * indexOf without decoding the other ids. Arc ids are only stored when some
+ * arc has an id other than "a" + source id + "_" + target id.
+ * <p>
+ * Layout (big-endian): magic, version, flags, vertex count, arc count,
+ * string count, hash table size, string bytes length (long); then int
+ * sections heights, offsets, targets, weights, vertex id strings, arc id
+ * strings (only with the flag), string offsets, hash table; then the UTF-8
+ * bytes of the strings.
+ */
+public class SnapshotFile {
+
+    private static final int MAGIC = 0x47534E50; // "GSNP"
+    private static final int VERSION = 1;
+    private static final int ARC_IDS = 1; // flag, arc id strings are stored
+    private static final int HEADER_BYTES = 8 * 4 + 8;
+    private static final long WINDOW = 1 << 30; // bytes of an int section mapped at once
+
+    private final Path path;
+
+    SnapshotFile(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Write the snapshot to the file, an existing file is replaced.
+     *
+     * @param snapshot snapshot to write
+     */
+    public void save(GraphSnapshot snapshot) {
+        int n = snapshot.vertexCount();
+        int m = snapshot.arcCount();
+        Map<String, Integer> strings = new HashMap<>();
+        List<byte[]> encoded = new ArrayList<>();
+        int[] vertexStrings = new int[n];
+        for (int v = 0; v < n; v++) {
+            vertexStrings[v] = intern(snapshot.vertexId(v), strings, encoded);
+        }
+        int[] arcStrings = null;
+        for (int v = 0; v < n; v++) {
+            for (int e = snapshot.offsets[v]; e < snapshot.offsets[v + 1]; e++) {
+                String id = snapshot.arcId(e);
+                if (arcStrings == null) {
+                    if (id.equals("a" + snapshot.vertexId(v) + "_" + snapshot.vertexId(snapshot.targets[e]))) continue;
+                    arcStrings = new int[m];
+                    for (int before = 0; before < e; before++) {
+                        arcStrings[before] = intern(snapshot.arcId(before), strings, encoded);
+                    }
+                }
+                arcStrings[e] = intern(id, strings, encoded);
+            }
+        }
+
+        int[] stringOffsets = new int[encoded.size() + 1];
+        long stringBytes = 0;
+        for (int i = 0; i < encoded.size(); i++) {
+            stringBytes += encoded.get(i).length;
+            if (stringBytes > Integer.MAX_VALUE) throw new RuntimeException("Ids of the snapshot are too long to save");
+            stringOffsets[i + 1] = (int) stringBytes;
+        }
+        int[] hashTable = new int[tableSize(n)];
+        int mask = hashTable.length - 1;
+        for (int v = 0; v < n; v++) {
+            String id = snapshot.vertexId(v);
+            int slot = mix(id.hashCode()) & mask;
+            boolean duplicate = false;
+            while (hashTable[slot] != 0 && !duplicate) {
+                duplicate = snapshot.vertexId(hashTable[slot] - 1).equals(id);
+                slot = (slot + 1) & mask;
+            }
+            if (!duplicate) hashTable[slot] = v + 1; // first vertex with the id, as in GraphSnapshot.indexOf
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(arcStrings != null ? ARC_IDS : 0);
+            out.writeInt(n);
+            out.writeInt(m);
+            out.writeInt(encoded.size());
+            out.writeInt(hashTable.length);
+            out.writeInt(0);
+            out.writeLong(stringBytes);
+            writeInts(out, snapshot.heights);
+            writeInts(out, snapshot.offsets);
+            writeInts(out, snapshot.targets);
+            writeInts(out, snapshot.weights);
+            writeInts(out, vertexStrings);
+            if (arcStrings != null) writeInts(out, arcStrings);
+            writeInts(out, stringOffsets);
+            writeInts(out, hashTable);
+            for (byte[] bytes : encoded) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Load the snapshot. Int sections are copied from the mapped file, ids stay in the
+     * mapped file until they are used.
+     *
+     * @return loaded snapshot
+     */
+    public GraphSnapshot load() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) throw new RuntimeException(String.format("File %s is not a graph snapshot", path));
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) throw new RuntimeException(String.format("File %s is not a graph snapshot", path));
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new RuntimeException(String.format("Version %d of snapshot file %s is not supported", version, path));
+            int flags = header.getInt();
+            int n = header.getInt();
+            int m = header.getInt();
+            int stringCount = header.getInt();
+            int tableSize = header.getInt();
+            header.getInt();
+            long stringBytes = header.getLong();
+
+            long position = HEADER_BYTES;
+            int[] heights = readInts(channel, position, n);
+            position += 4L * n;
+            int[] offsets = readInts(channel, position, n + 1);
+            position += 4L * (n + 1);
+            int[] targets = readInts(channel, position, m);
+            position += 4L * m;
+            int[] weights = readInts(channel, position, m);
+            position += 4L * m;
+            int[] vertexStrings = readInts(channel, position, n);
+            position += 4L * n;
+            int[] arcStrings = null;
+            if ((flags & ARC_IDS) != 0) {
+                arcStrings = readInts(channel, position, m);
+                position += 4L * m;
+            }
+            int[] stringOffsets = readInts(channel, position, stringCount + 1);
+            position += 4L * (stringCount + 1);
+            int[] hashTable = readInts(channel, position, tableSize);
+            position += 4L * tableSize;
+            if (position + stringBytes != channel.size())
+                throw new RuntimeException(String.format("Snapshot file %s is damaged", path));
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, position, stringBytes);
+
+            StringTable table = new StringTable(bytes, stringOffsets);
+            IdIndex index = new IdIndex(table, vertexStrings, hashTable);
+            int[] arcIdStrings = arcStrings;
+            return new GraphSnapshot(v -> table.get(vertexStrings[v]),
+                    arcIdStrings == null ? null : e -> table.get(arcIdStrings[e]),
+                    index::indexOf, offsets, targets, weights, heights);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * [save help method]
+     * Give the string a number in the table, equal strings share one number.
+     */
+    private static int intern(String id, Map<String, Integer> strings, List<byte[]> encoded) {
+        Integer number = strings.get(id);
+        if (number == null) {
+            number = encoded.size();
+            strings.put(id, number);
+            encoded.add(id.getBytes(StandardCharsets.UTF_8));
+        }
+        return number;
+    }
+
+    /**
+     * [save help method]
+     */
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * [load help method]
+     * Copy an int section of the file to an array, window by window.
+     */
+    private static int[] readInts(FileChannel channel, long position, int count) throws IOException {
+        if (position + 4L * count > channel.size()) throw new RuntimeException("Snapshot file is damaged");
+        int[] result = new int[count];
+        int done = 0;
+        while (done < count) {
+            int part = (int) Math.min(count - done, WINDOW / 4);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position + 4L * done, 4L * part);
+            buffer.asIntBuffer().get(result, done, part);
+            done += part;
+        }
+        return result;
+    }
+
+    /**
+     * @return power of two at least twice the amount of vertices
+     */
+    private static int tableSize(int n) {
+        int size = 2;
+        while (size < 2 * n) size <<= 1;
+        return size;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Strings of the mapped file, decoded on every request.
+     */
+    private static class StringTable {
+
+        private final ByteBuffer bytes;
+        private final int[] offsets;
+
+        StringTable(ByteBuffer bytes, int[] offsets) {
+            this.bytes = bytes;
+            this.offsets = offsets;
+        }
+
+        String get(int number) {
+            int start = offsets[number];
+            byte[] result = new byte[offsets[number + 1] - start];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = bytes.get(start + i);
+            }
+            return new String(result, StandardCharsets.UTF_8);
+        }
+
+        boolean equals(int number, byte[] other) {
+            int start = offsets[number];
+            if (offsets[number + 1] - start != other.length) return false;
+            for (int i = 0; i < other.length; i++) {
+                if (bytes.get(start + i) != other[i]) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Vertex index by id through the hash table of the file, compares encoded bytes.
+     */
+    private static class IdIndex {
+
+        private final StringTable table;
+        private final int[] vertexStrings;
+        private final int[] hashTable;
+
+        IdIndex(StringTable table, int[] vertexStrings, int[] hashTable) {
+            this.table = table;
+            this.vertexStrings = vertexStrings;
+            this.hashTable = hashTable;
+        }
+
+        int indexOf(String id) {
+            byte[] key = id.getBytes(StandardCharsets.UTF_8);
+            int mask = hashTable.length - 1;
+            int slot = mix(id.hashCode()) & mask;
+            while (hashTable[slot] != 0) {
+                int vertex = hashTable[slot] - 1;
+                if (table.equals(vertexStrings[vertex], key)) return vertex;
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of a snapshot of the graph, found with
+ * Tarjan's algorithm. The depth-first search keeps its own stack of
+ * vertices and arc positions instead of recursion, so it works on graphs
+ * of any depth. Components are numbered in reverse topological order:
+ * every arc between two components goes from a higher number to a lower
+ * one (or stays inside one component).
+ */
+public class StronglyConnectedComponents {
+
+    private final GraphSnapshot snapshot;
+    private final int[] component;
+    private final int[] size;
+    private final boolean[] cyclic;
+    private final int count;
+
+    StronglyConnectedComponents(GraphSnapshot snapshot) {
+        this.snapshot = snapshot;
+        int n = snapshot.vertexCount();
+        int[] offsets = snapshot.offsets;
+        int[] targets = snapshot.targets;
+        component = new int[n];
+        int[] order = new int[n]; // discovery number starting from 1, 0 means not visited
+        int[] low = new int[n];
+        int[] stack = new int[n]; // Tarjan's stack of vertices
+        boolean[] onStack = new boolean[n];
+        int[] callVertex = new int[n]; // depth-first search stack
+        int[] callArc = new int[n];
+        int stackSize = 0;
+        int counter = 0;
+        int components = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (order[root] != 0) continue;
+            int depth = 0;
+            callVertex[0] = root;
+            callArc[0] = offsets[root];
+            order[root] = low[root] = ++counter;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                int vertex = callVertex[depth];
+                int e = callArc[depth];
+                if (e < offsets[vertex + 1]) {
+                    callArc[depth] = e + 1;
+                    int next = targets[e];
+                    if (order[next] == 0) {
+                        order[next] = low[next] = ++counter;
+                        stack[stackSize++] = next;
+                        onStack[next] = true;
+                        depth++;
+                        callVertex[depth] = next;
+                        callArc[depth] = offsets[next];
+                    } else if (onStack[next]) {
+                        low[vertex] = Math.min(low[vertex], order[next]);
+                    }
+                    continue;
+                }
+                if (low[vertex] == order[vertex]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        onStack[member] = false;
+                        component[member] = components;
+                    } while (member != vertex);
+                    components++;
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = callVertex[depth];
+                    low[parent] = Math.min(low[parent], low[vertex]);
+                }
+            }
+        }
+        count = components;
+
+        size = new int[count];
+        cyclic = new boolean[count];
+        for (int v = 0; v < n; v++) {
+            size[component[v]]++;
+        }
+        for (int v = 0; v < n; v++) {
+            int c = component[v];
+            if (size[c] > 1) {
+                cyclic[c] = true;
+                continue;
+            }
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                if (targets[e] == v) cyclic[c] = true;
+            }
+        }
+    }
+
+    public GraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return amount of components
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @param vertex vertex index
+     * @return number of the component of the vertex
+     */
+    public int componentOf(int vertex) {
+        return component[vertex];
+    }
+
+    /**
+     * @param c component number
+     * @return amount of vertices in the component
+     */
+    public int size(int c) {
+        return size[c];
+    }
+
+    /**
+     * @param c component number
+     * @return true if vertices of the component lie on a cycle (more than one vertex or a loop)
+     */
+    public boolean isCyclic(int c) {
+        return cyclic[c];
+    }
+
+    /**
+     * Build the condensation of the graph: one vertex per component, arcs between different
+     * components, without duplicates. Arcs of component c are at positions
+     * offsets[c]..offsets[c + 1] - 1 of the returned targets.
+     *
+     * @return {offsets, targets}
+     */
+    public int[][] condensation() {
+        int[] members = membersByComponent();
+        int[] memberOffsets = memberOffsets();
+        int[] offsets = new int[count + 1];
+        int[] targets = new int[snapshot.arcCount()];
+        int[] lastSeen = new int[count]; // component + 1 that added the arc last
+        int size = 0;
+        for (int c = 0; c < count; c++) {
+            offsets[c] = size;
+            for (int i = memberOffsets[c]; i < memberOffsets[c + 1]; i++) {
+                int v = members[i];
+                for (int e = snapshot.offsets[v]; e < snapshot.offsets[v + 1]; e++) {
+                    int target = component[snapshot.targets[e]];
+                    if (target == c || lastSeen[target] == c + 1) continue;
+                    lastSeen[target] = c + 1;
+                    targets[size++] = target;
+                }
+            }
+        }
+        offsets[count] = size;
+        return new int[][]{offsets, Arrays.copyOf(targets, size)};
+    }
+
+    /**
+     * @return vertex indexes grouped by component, see memberOffsets
+     */
+    public int[] membersByComponent() {
+        int[] offsets = memberOffsets();
+        int[] fill = Arrays.copyOf(offsets, count);
+        int[] members = new int[component.length];
+        for (int v = 0; v < component.length; v++) {
+            members[fill[component[v]]++] = v;
+        }
+        return members;
+    }
+
+    /**
+     * @return start of each component in membersByComponent, with the total amount at the end
+     */
+    public int[] memberOffsets() {
+        int[] offsets = new int[count + 1];
+        for (int c = 0; c < count; c++) {
+            offsets[c + 1] = offsets[c] + size[c];
+        }
+        return offsets;
+    }
+}
@@ -8,7 +8,7 @@ public class Vertex {
     public Vertex next;
     public Arc first;
     public int info = 0;
-    public int height = Graph.HeightGenerator.getHeight(); // param height from custom height generator
+    public int height; // set by Graph.createVertex from the height provider of the graph
     public int weight;
 
 
@@ -0,0 +1,28 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/** A* search with landmarks against DijkstraSearch.
+ */
+public class AStarSearchTest {
+
+    @Test (timeout=60000)
+    public void aStarWithLandmarks() {
+        for (GraphSnapshot snapshot : TestGraphs.searchGraphs(100)) {
+            int[] sources = TestGraphs.randomVertices(snapshot, 21);
+            int[] targets = TestGraphs.randomVertices(snapshot, 22);
+            DijkstraSearch[] expected = TestGraphs.dijkstraSearches(snapshot, sources);
+            LandmarkHeuristic heuristic = new LandmarkHeuristic(snapshot, 4);
+            AStarSearch search = new AStarSearch(snapshot);
+            for (int i = 0; i < TestGraphs.QUERIES; i++) {
+                DijkstraSearch dijkstra = expected[i];
+                boolean reached = search.run(sources[i], targets[i], heuristic);
+                assertEquals(dijkstra.isReached(targets[i]), reached);
+                if (!reached) continue;
+                assertEquals(dijkstra.distance(targets[i]), search.distance(targets[i]));
+                TestGraphs.assertPath(snapshot, sources[i], targets[i], dijkstra.distance(targets[i]),
+                        dijkstra.hops(targets[i]), search.arcPath(targets[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/** Bidirectional search against DijkstraSearch.
+ */
+public class BidirectionalSearchTest {
+
+    @Test (timeout=60000)
+    public void bidirectionalSearch() {
+        for (GraphSnapshot snapshot : TestGraphs.searchGraphs(100)) {
+            int[] sources = TestGraphs.randomVertices(snapshot, 11);
+            int[] targets = TestGraphs.randomVertices(snapshot, 12);
+            DijkstraSearch[] expected = TestGraphs.dijkstraSearches(snapshot, sources);
+            BidirectionalSearch search = new BidirectionalSearch(snapshot);
+            for (int i = 0; i < TestGraphs.QUERIES; i++) {
+                DijkstraSearch dijkstra = expected[i];
+                boolean reached = search.run(sources[i], targets[i]);
+                assertEquals(dijkstra.isReached(targets[i]), reached);
+                if (!reached) continue;
+                assertEquals(dijkstra.distance(targets[i]), search.distance());
+                TestGraphs.assertPath(snapshot, sources[i], targets[i], dijkstra.distance(targets[i]),
+                        dijkstra.hops(targets[i]), search.arcPath());
+            }
+        }
+    }
+}
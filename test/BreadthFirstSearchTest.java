@@ -0,0 +1,33 @@
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+/** Parallel breadth-first search against DijkstraSearch on graphs with all weights 0.
+ */
+public class BreadthFirstSearchTest {
+
+    @Test (timeout=60000)
+    public void breadthFirstSearch() {
+        // with all weights 0 Dijkstra's tie-break by amount of arcs gives the paths with fewest arcs
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (GraphSnapshot snapshot : TestGraphs.searchGraphs(1)) {
+                int[] sources = TestGraphs.randomVertices(snapshot, 51);
+                DijkstraSearch[] expected = TestGraphs.dijkstraSearches(snapshot, sources);
+                BreadthFirstSearch search = new BreadthFirstSearch(snapshot, pool);
+                for (int i = 0; i < 5; i++) {
+                    search.run(sources[i], BreadthFirstSearch.ALL);
+                    for (int v = 0; v < snapshot.vertexCount(); v++) {
+                        assertEquals(expected[i].isReached(v), search.isReached(v));
+                        if (!expected[i].isReached(v)) continue;
+                        assertEquals(expected[i].hops(v), search.hops(v));
+                        assertArrayEquals(expected[i].arcPath(v), search.arcPath(v));
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/** Contraction hierarchy queries against DijkstraSearch.
+ */
+public class ContractionHierarchyTest {
+
+    @Test (timeout=60000)
+    public void contractionHierarchy() {
+        for (GraphSnapshot snapshot : TestGraphs.searchGraphs(100)) {
+            int[] sources = TestGraphs.randomVertices(snapshot, 31);
+            int[] targets = TestGraphs.randomVertices(snapshot, 32);
+            DijkstraSearch[] expected = TestGraphs.dijkstraSearches(snapshot, sources);
+            ContractionHierarchy hierarchy = new ContractionHierarchy(snapshot);
+            for (int i = 0; i < TestGraphs.QUERIES; i++) {
+                DijkstraSearch dijkstra = expected[i];
+                int distance = hierarchy.distance(sources[i], targets[i]);
+                if (!dijkstra.isReached(targets[i])) {
+                    assertEquals(ContractionHierarchy.UNREACHABLE, distance);
+                    continue;
+                }
+                assertEquals(dijkstra.distance(targets[i]), distance);
+                TestGraphs.assertPath(snapshot, sources[i], targets[i], dijkstra.distance(targets[i]),
+                        dijkstra.hops(targets[i]), hierarchy.arcPath(sources[i], targets[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+/** Delta-stepping search against DijkstraSearch, the same distances, amounts of arcs and paths.
+ */
+public class DeltaSteppingSearchTest {
+
+    @Test (timeout=60000)
+    public void deltaSteppingSearch() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (GraphSnapshot snapshot : TestGraphs.searchGraphs(100)) {
+                int[] sources = TestGraphs.randomVertices(snapshot, 41);
+                DijkstraSearch[] expected = TestGraphs.dijkstraSearches(snapshot, sources);
+                for (int delta : new int[]{1, 30, 1000}) {
+                    DeltaSteppingSearch search = new DeltaSteppingSearch(snapshot, delta, pool);
+                    for (int i = 0; i < 5; i++) {
+                        search.run(sources[i]);
+                        for (int v = 0; v < snapshot.vertexCount(); v++) {
+                            assertEquals(expected[i].distance(v), search.distance(v));
+                            if (!expected[i].isReached(v)) continue;
+                            assertEquals(expected[i].hops(v), search.hops(v));
+                            assertArrayEquals(expected[i].arcPath(v), search.arcPath(v));
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import org.junit.Test;
+
+/** DijkstraSearch and ShortestPath.setVerticesPathLength against the label-correcting search they replaced.
+ */
+public class DijkstraSearchTest {
+
+    /**
+     * The label-correcting search of the old setVerticesPathLength, with the lengths kept
+     * in a map instead of the weight fields of the vertices.
+     */
+    private static Map<Vertex, Integer> labelCorrecting(Graph graph, Vertex from) {
+        Map<Vertex, Integer> length = new IdentityHashMap<>();
+        for (Vertex v = graph.first; v != null; v = v.next) {
+            length.put(v, Integer.MAX_VALUE);
+        }
+        LinkedList<Vertex> queue = new LinkedList<>();
+        ArrayList<Vertex> seen = new ArrayList<>();
+        queue.add(from);
+        length.put(from, 0);
+        while (queue.size() != 0) {
+            Vertex vertex = queue.removeFirst();
+            seen.add(vertex);
+            for (Arc arc = vertex.first; arc != null; arc = arc.next) {
+                if (!seen.contains(arc.target) && !queue.contains(arc.target)) {
+                    queue.add(arc.target);
+                }
+                if (length.get(arc.target) > arc.weight + length.get(vertex)) {
+                    length.put(arc.target, arc.weight + length.get(vertex));
+                    if (!queue.contains(arc.target)) {
+                        seen.remove(arc.target);
+                        queue.add(arc.target);
+                    }
+                }
+            }
+        }
+        return length;
+    }
+
+    @Test (timeout=20000)
+    public void setVerticesPathLengthGivesOldLengths() {
+        ShortestPath shortestPath = new ShortestPath();
+        for (long seed = 1; seed <= 20; seed++) {
+            Graph graph = TestGraphs.randomGraph(seed, 60, 120, seed % 2 == 0 ? 100 : 3);
+            for (Vertex from = graph.first; from != null; from = from.next.next) {
+                Map<Vertex, Integer> expected = labelCorrecting(graph, from);
+                shortestPath.setVerticesPathLength(from, graph);
+                for (Vertex v = graph.first; v != null; v = v.next) {
+                    assertEquals(v.id, (int) expected.get(v), v.weight);
+                }
+                if (from.next == null) break;
+            }
+        }
+    }
+
+    @Test (timeout=20000)
+    public void dijkstraSearchGivesOldLengthsAndPaths() {
+        ShortestPath shortestPath = new ShortestPath();
+        for (long seed = 21; seed <= 40; seed++) {
+            Graph graph = TestGraphs.randomGraph(seed, 60, 120, seed % 2 == 0 ? 100 : 3);
+            GraphSnapshot snapshot = graph.createSnapshot();
+            DijkstraSearch search = new DijkstraSearch(snapshot);
+            for (int from = 0; from < snapshot.vertexCount(); from += 3) {
+                Map<Vertex, Integer> expected = labelCorrecting(graph, snapshot.getVertex(from));
+                int[] lengths = shortestPath.getPathLengths(from, snapshot);
+                search.run(from);
+                for (int v = 0; v < snapshot.vertexCount(); v++) {
+                    int length = expected.get(snapshot.getVertex(v));
+                    assertEquals(length, lengths[v]);
+                    assertEquals(length, search.distance(v));
+                    TestGraphs.assertPath(snapshot, from, v, length, search.arcPath(v));
+                }
+            }
+        }
+    }
+
+    @Test (timeout=20000)
+    public void searchStopsAtTarget() {
+        Graph graph = TestGraphs.randomGraph(41, 200, 400, 100);
+        GraphSnapshot snapshot = graph.createSnapshot();
+        DijkstraSearch full = new DijkstraSearch(snapshot);
+        DijkstraSearch single = new DijkstraSearch(snapshot);
+        full.run(0);
+        for (int target = 0; target < snapshot.vertexCount(); target += 7) {
+            single.run(0, target);
+            assertEquals(full.distance(target), single.distance(target));
+            TestGraphs.assertPath(snapshot, 0, target, full.distance(target), single.arcPath(target));
+        }
+    }
+
+    @Test (timeout=20000)
+    public void unreachableVertexIsReported() {
+        Graph graph = TestGraphs.randomGraph(42, 10, 10, 100);
+        Vertex lonely = graph.createVertex("lonely");
+        try {
+            new ShortestPath().setVerticesPathLength(graph.first.next, graph);
+            fail("no error for vertex " + lonely);
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("lonely"));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** GraphLoader reads back the arcs and heights of a written graph.
+ */
+public class GraphLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test (timeout=20000)
+    public void loaderReadsWrittenFiles() throws IOException {
+        GraphSnapshot snapshot = TestGraphs.simpleGraph(1, 200, 300, 100).createSnapshot();
+        List<String> vertexLines = new ArrayList<>();
+        vertexLines.add("id,height");
+        for (int v = 0; v < snapshot.vertexCount(); v++) {
+            vertexLines.add(snapshot.getVertex(v).id + "," + snapshot.heights[v]);
+        }
+        List<String> arcLines = new ArrayList<>();
+        arcLines.add("from;to;weight");
+        arcLines.add("# comment");
+        for (int e = 0; e < snapshot.arcCount(); e++) {
+            arcLines.add(snapshot.getVertex(snapshot.arcSource(e)).id + (e % 2 == 0 ? ";" : "\t")
+                    + snapshot.getVertex(snapshot.targets[e]).id + " " + snapshot.weights[e]);
+            if (e % 50 == 0) arcLines.add("");
+        }
+        Path vertexFile = folder.newFile("vertices.csv").toPath();
+        Path arcFile = folder.newFile("arcs.csv").toPath();
+        Files.write(vertexFile, vertexLines, StandardCharsets.UTF_8);
+        Files.write(arcFile, arcLines, StandardCharsets.UTF_8);
+
+        GraphLoader loader = new GraphLoader(arcFile, vertexFile);
+        TestGraphs.assertSameSnapshot(snapshot, loader.loadSnapshot());
+        TestGraphs.assertSameSnapshot(snapshot, loader.loadGraph("loaded").createSnapshot());
+    }
+
+    @Test (timeout=20000)
+    public void missingWeightIsZero() throws IOException {
+        Path arcFile = folder.newFile("arcs.txt").toPath();
+        Files.write(arcFile, List.of("a b", "b c 4", "c a"), StandardCharsets.UTF_8);
+        GraphSnapshot snapshot = new GraphLoader(arcFile).loadSnapshot();
+        assertEquals(3, snapshot.vertexCount());
+        assertEquals(3, snapshot.arcCount());
+        assertArrayEquals(new int[]{0, 4, 0}, snapshot.weights);
+        assertArrayEquals(new int[]{1, 2, 0}, snapshot.targets);
+        assertEquals("c", snapshot.getVertex(2).id);
+    }
+}
@@ -0,0 +1,129 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+/** Graph.addGraph with vertex lists in different orders.
+ */
+public class GraphTest {
+
+    /** Target ids of the arcs of every vertex, by vertex id. */
+    private static Map<String, Set<String>> targets(Graph graph) {
+        Map<String, Set<String>> res = new HashMap<>();
+        for (Vertex v = graph.first; v != null; v = v.next) {
+            Set<String> set = res.computeIfAbsent(v.id, id -> new HashSet<>());
+            for (Arc a = v.first; a != null; a = a.next) {
+                set.add(a.target.id);
+            }
+        }
+        return res;
+    }
+
+    private static int arcCount(Graph graph) {
+        int count = 0;
+        for (Vertex v = graph.first; v != null; v = v.next) {
+            for (Arc a = v.first; a != null; a = a.next) count++;
+        }
+        return count;
+    }
+
+    private static Vertex findVertex(Graph graph, String id) {
+        for (Vertex v = graph.first; v != null; v = v.next) {
+            if (v.id.equals(id)) return v;
+        }
+        return null;
+    }
+
+    @Test (timeout=20000)
+    public void guestVerticesInOtherOrder() {
+        Graph home = new Graph("home");
+        Vertex c = home.createVertex("C");
+        Vertex b = home.createVertex("B");
+        Vertex a = home.createVertex("A");
+        home.createArc("aA_B", a, b, 5);
+        home.createArc("aB_C", b, c, 6);
+
+        Graph guest = new Graph("guest");
+        Vertex gb = guest.createVertex("B");
+        Vertex ga = guest.createVertex("A");
+        Vertex gd = guest.createVertex("D");
+        Vertex gc = guest.createVertex("C");
+        guest.createArc("aA_B", ga, gb, 1);
+        guest.createArc("aC_A", gc, ga, 2);
+        guest.createArc("aD_B", gd, gb, 3);
+        guest.createArc("aB_D", gb, gd, 4);
+
+        home.addGraph(guest);
+        assertEquals("home + guest", home.id);
+        Map<String, Set<String>> targets = targets(home);
+        assertEquals(Set.of("A", "B", "C", "D"), targets.keySet());
+        assertEquals(Set.of("B"), targets.get("A"));
+        assertEquals(Set.of("C", "D"), targets.get("B"));
+        assertEquals(Set.of("A"), targets.get("C"));
+        assertEquals(Set.of("B"), targets.get("D"));
+        assertEquals(5, arcCount(home));
+        assertEquals("existing arc keeps its weight", 5, a.first.weight);
+        for (Vertex v = home.first; v != null; v = v.next) {
+            for (Arc arc = v.first; arc != null; arc = arc.next) {
+                assertTrue("arc to a vertex of the guest graph", findVertex(home, arc.target.id) == arc.target);
+            }
+        }
+    }
+
+    @Test (timeout=20000)
+    public void randomGraphsGiveUnionOfArcs() {
+        for (long seed = 1; seed <= 10; seed++) {
+            Random random = new Random(seed);
+            Graph graph = TestGraphs.randomGraph(seed, 200, 400, 100);
+            List<String> ids = new ArrayList<>(targets(graph).keySet());
+            Graph home = new Graph("home");
+            Graph guest = new Graph("guest");
+            Collections.shuffle(ids, random);
+            for (String id : ids) {
+                if (random.nextInt(4) != 0) home.createVertex(id);
+            }
+            Collections.shuffle(ids, random);
+            for (String id : ids) {
+                guest.createVertex(id);
+            }
+            for (Vertex v = graph.first; v != null; v = v.next) {
+                for (Arc a = v.first; a != null; a = a.next) {
+                    Graph part = random.nextBoolean() ? home : guest;
+                    if (findVertex(part, v.id) == null || findVertex(part, a.target.id) == null) part = guest;
+                    part.createArc(a.id, findVertex(part, v.id), findVertex(part, a.target.id), a.weight);
+                }
+            }
+            // every target of the guest that the home vertex does not have yet gets one new arc
+            Map<String, Set<String>> homeTargets = targets(home);
+            int expectedCount = arcCount(home);
+            for (Map.Entry<String, Set<String>> entry : targets(guest).entrySet()) {
+                Set<String> known = homeTargets.getOrDefault(entry.getKey(), Set.of());
+                for (String target : entry.getValue()) {
+                    if (!known.contains(target)) expectedCount++;
+                }
+            }
+
+            home.addGraph(guest);
+            assertEquals(targets(graph), targets(home));
+            assertEquals(expectedCount, arcCount(home));
+        }
+    }
+
+    @Test (timeout=20000)
+    public void emptyGraphIsNotAdded() {
+        Graph home = TestGraphs.randomGraph(11, 3, 0, 1);
+        try {
+            home.addGraph(new Graph("empty"));
+            fail("empty graph was added");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("empty"));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+/** GraphsSum.merge against the graphs that were merged.
+ */
+public class GraphsSumTest {
+
+    /** Weight of every arc by "source id -> target id". */
+    private static Map<String, Integer> arcWeights(GraphSnapshot snapshot) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (int e = 0; e < snapshot.arcCount(); e++) {
+            String key = snapshot.getVertex(snapshot.arcSource(e)).id + "->" + snapshot.getVertex(snapshot.targets[e]).id;
+            assertNull("duplicate arc " + key, weights.put(key, snapshot.weights[e]));
+        }
+        return weights;
+    }
+
+    private static Vertex findVertex(Graph graph, String id) {
+        for (Vertex v = graph.first; v != null; v = v.next) {
+            if (v.id.equals(id)) return v;
+        }
+        return null;
+    }
+
+    @Test (timeout=20000)
+    public void mergeOfSplitGraphGivesGraphBack() {
+        Graph graph = TestGraphs.simpleGraph(3, 200, 300, 100);
+        GraphSnapshot snapshot = graph.createSnapshot();
+        Graph even = new Graph("even");
+        Graph odd = new Graph("odd");
+        for (int v = snapshot.vertexCount() - 1; v >= 0; v--) {
+            even.createVertex(snapshot.getVertex(v).id).height = snapshot.heights[v];
+            odd.createVertex(snapshot.getVertex(v).id).height = snapshot.heights[v] + 1;
+        }
+        for (int e = 0; e < snapshot.arcCount(); e++) {
+            Graph part = e % 2 == 0 ? even : odd;
+            String from = snapshot.getVertex(snapshot.arcSource(e)).id;
+            String to = snapshot.getVertex(snapshot.targets[e]).id;
+            part.createArc(snapshot.getArc(e).id, findVertex(part, from), findVertex(part, to), snapshot.weights[e]);
+            if (e % 3 == 0) {
+                // the same arc in the other graph with a higher weight
+                Graph other = part == even ? odd : even;
+                other.createArc("x" + e, findVertex(other, from), findVertex(other, to), snapshot.weights[e] + 10);
+            }
+        }
+
+        GraphSnapshot merged = new GraphsSum(Arrays.asList(even, odd), GraphsSum.ConflictPolicy.MIN).merge().createSnapshot();
+        assertEquals(arcWeights(snapshot), arcWeights(merged));
+        assertEquals(snapshot.vertexCount(), merged.vertexCount());
+        for (int v = 0; v < snapshot.vertexCount(); v++) {
+            assertEquals("height of the first graph is kept",
+                    snapshot.heights[v], merged.heights[merged.indexOf(snapshot.getVertex(v).id)]);
+        }
+
+        GraphSnapshot itself = new GraphsSum(graph, graph).merge().createSnapshot();
+        TestGraphs.assertSameSnapshot(snapshot, itself);
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            GraphSnapshot threaded = new GraphsSum(Arrays.asList(even, odd), GraphsSum.ConflictPolicy.MIN, pool)
+                    .merge().createSnapshot();
+            TestGraphs.assertSameSnapshot(merged, threaded);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test (timeout=20000)
+    public void conflictPolicyChoosesWeight() {
+        Graph[] graphs = new Graph[3];
+        for (int g = 0; g < graphs.length; g++) {
+            graphs[g] = new Graph("g" + g);
+            Vertex b = graphs[g].createVertex("b");
+            Vertex a = graphs[g].createVertex("a");
+            graphs[g].createArc("a" + g, a, b, new int[]{5, 2, 9}[g]);
+        }
+        int[] expected = {2, 9, 5};
+        GraphsSum.ConflictPolicy[] policies = {GraphsSum.ConflictPolicy.MIN, GraphsSum.ConflictPolicy.MAX, GraphsSum.ConflictPolicy.KEEP_FIRST};
+        for (int i = 0; i < policies.length; i++) {
+            Graph merged = new GraphsSum(Arrays.asList(graphs), policies[i]).merge();
+            Arc arc = findVertex(merged, "a").first;
+            assertEquals(policies[i].name(), expected[i], arc.weight);
+            assertEquals("id of the first arc is kept", "a0", arc.id);
+            assertNull(arc.next);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/** HeightPathIndex against the MINIMAX mode of HeightPath on graphs with arcs in both directions.
+ */
+public class HeightPathIndexTest {
+
+    /** Add count random edges as arcs in both directions, loops included. */
+    private static void addEdges(Graph graph, Random random, int count) {
+        GraphSnapshot snapshot = graph.createSnapshot();
+        for (int k = 0; k < count; k++) {
+            Vertex a = snapshot.getVertex(random.nextInt(snapshot.vertexCount()));
+            Vertex b = snapshot.getVertex(random.nextInt(snapshot.vertexCount()));
+            graph.createArc(a.id + "_" + b.id + "_" + k, a, b, 1);
+            graph.createArc(b.id + "_" + a.id + "_" + k, b, a, 1);
+        }
+    }
+
+    /** Answers of the index must be the answers of a minimax search in a snapshot of the graph. */
+    private static void assertSameAsMinimax(HeightPathIndex index, Graph graph, int step) {
+        GraphSnapshot snapshot = graph.createSnapshot();
+        HeightPath heightPath = new HeightPath();
+        for (int s = 0; s < snapshot.vertexCount(); s += step) {
+            for (int d = 1; d < snapshot.vertexCount(); d += step + 1) {
+                if (s == d) continue;
+                Vertex start = snapshot.getVertex(s);
+                Vertex destination = snapshot.getVertex(d);
+                String query = start.id + " -> " + destination.id;
+                HeightPath.Path minimax;
+                try {
+                    minimax = heightPath.getOptimizedPath(snapshot, start.id, destination.id, HeightPath.Mode.MINIMAX);
+                } catch (HeightPath.GraphPathException e) {
+                    assertEquals(query, HeightPathIndex.UNREACHABLE, index.lowestHighestPoint(start, destination));
+                    assertNull(query, index.findPath(start, destination));
+                    continue;
+                }
+                assertEquals(query, minimax.highestPoint, index.lowestHighestPoint(start, destination));
+                int ends = Math.max(start.height, destination.height);
+                assertEquals(query, Math.max(ends, minimax.highestPoint), index.bottleneck(start, destination));
+
+                HeightPath.Path path = heightPath.getOptimizedPath(index, graph, start.id, destination.id);
+                HeightPathTest.assertSimplePath(path, start, destination);
+                assertEquals(query, minimax.highestPoint, path.highestPoint);
+            }
+        }
+    }
+
+    @Test (timeout=20000)
+    public void indexGivesMinimaxAnswers() {
+        for (long seed = 1; seed <= 20; seed++) {
+            Graph graph = TestGraphs.randomGraph(seed, 50, 0, 1);
+            addEdges(graph, new Random(seed), seed % 2 == 0 ? 10 : 60);
+            try (HeightPathIndex index = new HeightPathIndex(graph)) {
+                assertSameAsMinimax(index, graph, 3);
+            }
+        }
+    }
+
+    @Test (timeout=20000)
+    public void newVerticesAndArcsAreMerged() {
+        for (long seed = 21; seed <= 30; seed++) {
+            Random random = new Random(seed);
+            Graph graph = TestGraphs.randomGraph(seed, 40, 0, 1);
+            try (HeightPathIndex index = new HeightPathIndex(graph)) {
+                for (int round = 0; round < 4; round++) {
+                    // a few new vertices, some of them connected only to each other
+                    Vertex previous = null;
+                    for (int i = 0; i < 5; i++) {
+                        Vertex vertex = graph.createVertex("n" + round + "_" + i);
+                        vertex.height = random.nextInt(1000) - 500;
+                        if (previous != null && i != 3) {
+                            graph.createArc("e" + round + "_" + i, previous, vertex, 1);
+                            graph.createArc("r" + round + "_" + i, vertex, previous, 1);
+                        }
+                        previous = vertex;
+                    }
+                    addEdges(graph, random, 8);
+                    assertSameAsMinimax(index, graph, 4);
+                }
+                index.rebuild();
+                assertSameAsMinimax(index, graph, 4);
+            }
+        }
+    }
+
+    @Test (timeout=20000)
+    public void unconnectedVerticesHaveNoPath() {
+        Graph graph = TestGraphs.randomGraph(31, 10, 0, 1);
+        try (HeightPathIndex index = new HeightPathIndex(graph)) {
+            Vertex lonely = graph.createVertex("lonely");
+            assertEquals(HeightPathIndex.UNREACHABLE, index.lowestHighestPoint(graph.first.next, lonely));
+            assertEquals(HeightPathIndex.UNREACHABLE, index.bottleneck(lonely, graph.first.next));
+            assertNull(index.findPath(graph.first.next, lonely));
+        }
+    }
+
+    @Test (timeout=20000)
+    public void pathThroughStartIsCut() {
+        // from s both neighbours a and b give the same highest point, the tree path from a to b goes back through s
+        Graph graph = new Graph("g");
+        Vertex d = graph.createVertex("d");
+        Vertex b = graph.createVertex("b");
+        Vertex a = graph.createVertex("a");
+        Vertex s = graph.createVertex("s");
+        s.height = 0;
+        d.height = 0;
+        a.height = 1;
+        b.height = 1;
+        for (Vertex[] edge : new Vertex[][]{{s, b}, {s, a}, {b, d}}) {
+            graph.createArc(edge[0].id + "_" + edge[1].id, edge[0], edge[1], 1);
+            graph.createArc(edge[1].id + "_" + edge[0].id, edge[1], edge[0], 1);
+        }
+        try (HeightPathIndex index = new HeightPathIndex(graph)) {
+            assertEquals(List.of(s, b, d), index.findPath(s, d));
+            assertEquals(List.of(d, b, s), index.findPath(d, s));
+            assertEquals(1, index.lowestHighestPoint(s, d));
+            assertEquals(3, new HashSet<>(index.findPath(s, d)).size());
+        }
+    }
+}
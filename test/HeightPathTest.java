@@ -0,0 +1,97 @@
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+/** MINIMAX mode of HeightPath against the ENUMERATION mode it replaces.
+ */
+public class HeightPathTest {
+
+    /** Highest point of the path counted from its own vertices, as HeightPath counts it. */
+    private static int highestPoint(List<Vertex> vertices) {
+        if (vertices.size() == 2) return Math.max(vertices.get(0).height, vertices.get(1).height);
+        int highest = Integer.MIN_VALUE;
+        for (int i = 1; i < vertices.size() - 1; i++) {
+            highest = Math.max(highest, vertices.get(i).height);
+        }
+        return highest;
+    }
+
+    /** Path must go from start to destination along its arcs without repeating a vertex. */
+    static void assertSimplePath(HeightPath.Path path, Vertex start, Vertex destination) {
+        List<Vertex> vertices = path.pathVertexPoints;
+        assertSame(start, vertices.get(0));
+        assertSame(destination, vertices.get(vertices.size() - 1));
+        Set<Vertex> seen = new HashSet<>(vertices);
+        assertEquals("vertex repeats in " + path, vertices.size(), seen.size());
+        assertEquals(vertices.size() - 1, path.pathArcPoints.size());
+        for (int i = 0; i < path.pathArcPoints.size(); i++) {
+            // arcs are from destination to start
+            assertSame(vertices.get(vertices.size() - 1 - i), path.pathArcPoints.get(i).target);
+        }
+        assertEquals(highestPoint(vertices), path.highestPoint);
+    }
+
+    @Test (timeout=20000)
+    public void minimaxGivesHighestPointOfEnumeration() {
+        HeightPath heightPath = new HeightPath();
+        for (long seed = 1; seed <= 20; seed++) {
+            GraphSnapshot snapshot = TestGraphs.randomGraph(seed, 40, seed % 2 == 0 ? 20 : 80, 100).createSnapshot();
+            for (int s = 0; s < snapshot.vertexCount(); s += 3) {
+                for (int d = 1; d < snapshot.vertexCount(); d += 4) {
+                    if (s == d) continue;
+                    String startId = snapshot.getVertex(s).id;
+                    String destinationId = snapshot.getVertex(d).id;
+                    HeightPath.Path expected = heightPath.getOptimizedPath(snapshot, startId, destinationId, HeightPath.Mode.ENUMERATION);
+                    HeightPath.Path minimax = heightPath.getOptimizedPath(snapshot, startId, destinationId, HeightPath.Mode.MINIMAX);
+                    assertEquals(startId + " -> " + destinationId, expected.highestPoint, minimax.highestPoint);
+                    assertSimplePath(expected, snapshot.getVertex(s), snapshot.getVertex(d));
+                    assertSimplePath(minimax, snapshot.getVertex(s), snapshot.getVertex(d));
+                }
+            }
+        }
+    }
+
+    @Test (timeout=20000)
+    public void directArcIsUsedOnlyIfItIsBest() {
+        // s -> d directly with s and d high, or around through a low vertex
+        Graph graph = new Graph("g");
+        Vertex low = graph.createVertex("low");
+        Vertex d = graph.createVertex("d");
+        Vertex s = graph.createVertex("s");
+        s.height = 100;
+        d.height = 50;
+        graph.createArc("s_d", s, d, 1);
+        graph.createArc("s_low", s, low, 1);
+        graph.createArc("low_d", low, d, 1);
+        HeightPath heightPath = new HeightPath();
+        for (HeightPath.Mode mode : HeightPath.Mode.values()) {
+            low.height = 10;
+            HeightPath.Path around = heightPath.getOptimizedPath(graph.createSnapshot(), "s", "d", mode);
+            assertEquals(mode.name(), 10, around.highestPoint);
+            assertEquals(mode.name(), 3, around.pathVertexPoints.size());
+            low.height = 200;
+            HeightPath.Path direct = heightPath.getOptimizedPath(graph.createSnapshot(), "s", "d", mode);
+            assertEquals(mode.name(), 100, direct.highestPoint);
+            assertEquals(mode.name(), 2, direct.pathVertexPoints.size());
+        }
+    }
+
+    @Test (timeout=20000)
+    public void unconnectedVerticesAreReported() {
+        Graph graph = TestGraphs.randomGraph(21, 10, 10, 100);
+        graph.createVertex("lonely");
+        GraphSnapshot snapshot = graph.createSnapshot();
+        HeightPath heightPath = new HeightPath();
+        for (HeightPath.Mode mode : HeightPath.Mode.values()) {
+            try {
+                heightPath.getOptimizedPath(snapshot, "v0", "lonely", mode);
+                fail("no error in mode " + mode);
+            } catch (HeightPath.GraphPathException e) {
+                // expected
+            }
+        }
+    }
+}
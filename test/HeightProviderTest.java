@@ -0,0 +1,85 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Heights of HeightProvider are repeatable and stay within the limits.
+ */
+public class HeightProviderTest {
+
+    private static final int COUNT = 100_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static int[] heights(HeightProvider provider, int count) {
+        int[] res = new int[count];
+        for (int i = 0; i < count; i++) {
+            res[i] = provider.height("v" + i, i);
+        }
+        return res;
+    }
+
+    private static void assertWithin(int[] heights, int low, int high) {
+        for (int height : heights) {
+            assertTrue(height + " below " + low, height >= low);
+            assertTrue(height + " above " + high, height <= high);
+        }
+    }
+
+    @Test (timeout=20000)
+    public void randomWalkIsRepeatable() {
+        for (long seed = 1; seed <= 5; seed++) {
+            int[] heights = heights(HeightProvider.randomWalk(seed), COUNT);
+            assertArrayEquals(heights, heights(HeightProvider.randomWalk(seed), COUNT));
+            assertWithin(heights, Graph.HeightGenerator.heightMin, Graph.HeightGenerator.heightMax);
+            int previous = Graph.HeightGenerator.startHeight;
+            for (int height : heights) {
+                assertTrue(Math.abs(height - previous) < Graph.HeightGenerator.maxValueElevation);
+                previous = height;
+            }
+        }
+        assertFalse(Arrays.equals(heights(HeightProvider.randomWalk(1), 100), heights(HeightProvider.randomWalk(2), 100)));
+    }
+
+    @Test (timeout=20000)
+    public void noiseIsRepeatableInAnyOrder() {
+        int low = Graph.HeightGenerator.heightMin;
+        int high = Graph.HeightGenerator.heightMax;
+        for (long seed = 1; seed <= 5; seed++) {
+            HeightProvider noise = HeightProvider.noise(seed, low, high, 500);
+            int[] heights = heights(noise, COUNT);
+            assertWithin(heights, low, high);
+            HeightProvider again = HeightProvider.noise(seed, low, high, 500);
+            for (int i = COUNT - 1; i >= 0; i -= 7) {
+                assertEquals(heights[i], again.height("other", i));
+            }
+        }
+        assertWithin(heights(HeightProvider.noise(6, 10, 20, 3), COUNT), 10, 20);
+        assertWithin(heights(HeightProvider.noise(7, 5, 5, 1), 1000), 5, 5);
+    }
+
+    @Test (timeout=20000)
+    public void graphTakesHeightsFromProvider() throws IOException {
+        Graph graph = new Graph("g");
+        graph.setHeightProvider(HeightProvider.randomWalk(8));
+        int[] expected = heights(HeightProvider.randomWalk(8), 50);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(expected[i], graph.createVertex("v" + i).height);
+        }
+
+        Path file = folder.newFile("heights.csv").toPath();
+        Files.write(file, List.of("id,height", "a,-3", "b,4000"), StandardCharsets.UTF_8);
+        HeightProvider fromFile = HeightProvider.fromFile(file, HeightProvider.noise(9, 0, 0, 1));
+        assertEquals(-3, fromFile.height("a", 5));
+        assertEquals(4000, fromFile.height("b", 0));
+        assertEquals(0, fromFile.height("c", 1));
+    }
+}
@@ -0,0 +1,113 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/** Incrementally repaired trees against a new DijkstraSearch after every change of the graph.
+ */
+public class IncrementalShortestPathsTest {
+
+    /** Distances and amounts of arcs of every source must be those of a new search in a snapshot. */
+    private static void assertSameAsNewSearch(IncrementalShortestPaths paths, Graph graph, List<Vertex> sources) {
+        GraphSnapshot snapshot = graph.createSnapshot();
+        DijkstraSearch search = new DijkstraSearch(snapshot);
+        for (Vertex source : sources) {
+            search.run(snapshot.indexOf(source));
+            for (int v = 0; v < snapshot.vertexCount(); v++) {
+                Vertex target = snapshot.getVertex(v);
+                String query = source.id + " -> " + target.id;
+                assertEquals(query, search.distance(v), paths.distance(source, target));
+                if (!search.isReached(v)) continue;
+                LinkedList<Arc> path = paths.getPath(source, target);
+                assertEquals(query, search.hops(v), path.size());
+                long length = 0;
+                for (Arc arc : path) length += arc.weight;
+                assertEquals(query, search.distance(v), length);
+                if (!path.isEmpty()) assertSame(target, path.getLast().target);
+            }
+        }
+    }
+
+    @Test (timeout=60000)
+    public void changesGiveLengthsOfNewSearch() {
+        for (long seed = 1; seed <= 6; seed++) {
+            Random random = new Random(seed);
+            Graph graph = TestGraphs.randomGraph(seed, 80, 80, seed % 2 == 0 ? 100 : 4);
+            List<Vertex> vertices = new ArrayList<>();
+            List<Vertex> arcSources = new ArrayList<>();
+            List<Arc> arcs = new ArrayList<>();
+            for (Vertex v = graph.first; v != null; v = v.next) {
+                vertices.add(v);
+                for (Arc a = v.first; a != null; a = a.next) {
+                    arcSources.add(v);
+                    arcs.add(a);
+                }
+            }
+            List<Vertex> sources = List.of(vertices.get(0), vertices.get(1), vertices.get(40));
+            try (IncrementalShortestPaths paths = new IncrementalShortestPaths(graph)) {
+                for (Vertex source : sources) paths.addSource(source);
+                assertSameAsNewSearch(paths, graph, sources);
+                for (int step = 0; step < 60; step++) {
+                    int kind = random.nextInt(6);
+                    if (kind <= 1) {
+                        // an arc of a tree: the last arc of the path to a random vertex
+                        Vertex source = sources.get(random.nextInt(sources.size()));
+                        LinkedList<Arc> path = paths.getPath(source, vertices.get(random.nextInt(vertices.size())));
+                        if (path.isEmpty()) continue;
+                        Arc arc = path.getLast();
+                        Vertex from = path.size() == 1 ? source : path.get(path.size() - 2).target;
+                        int weight = kind == 0 ? arc.weight + 1 + random.nextInt(50) : random.nextInt(arc.weight + 1);
+                        graph.setArcWeight(from, arc, weight);
+                    } else if (kind <= 3) {
+                        // any arc, mostly not in a tree
+                        int i = random.nextInt(arcs.size());
+                        graph.setArcWeight(arcSources.get(i), arcs.get(i), random.nextInt(100));
+                    } else if (kind == 4) {
+                        Vertex from = vertices.get(random.nextInt(vertices.size()));
+                        Vertex to = vertices.get(random.nextInt(vertices.size()));
+                        graph.createArc("n" + step, from, to, random.nextInt(100));
+                        arcSources.add(from);
+                        arcs.add(from.first);
+                    } else {
+                        Vertex vertex = graph.createVertex("new" + step);
+                        Vertex other = vertices.get(random.nextInt(vertices.size()));
+                        vertices.add(vertex);
+                        assertSameAsNewSearch(paths, graph, sources); // not reached yet
+                        graph.createArc("in" + step, other, vertex, random.nextInt(100));
+                        arcSources.add(other);
+                        arcs.add(other.first);
+                        if (random.nextBoolean()) {
+                            graph.createArc("out" + step, vertex, other, random.nextInt(100));
+                            arcSources.add(vertex);
+                            arcs.add(vertex.first);
+                        }
+                    }
+                    assertSameAsNewSearch(paths, graph, sources);
+                }
+            }
+        }
+    }
+
+    @Test (timeout=20000)
+    public void smallChangeVisitsFewVertices() {
+        Graph graph = TestGraphs.randomGraph(7, 500, 500, 100);
+        Vertex source = graph.first;
+        try (IncrementalShortestPaths paths = new IncrementalShortestPaths(graph)) {
+            paths.addSource(source);
+            Vertex leaf = graph.createVertex("leaf");
+            graph.createArc("to_leaf", source.next, leaf, 1);
+            assertSameAsNewSearch(paths, graph, List.of(source));
+            assertTrue(paths.lastTouchedCount() < 10);
+            paths.removeSource(source);
+            try {
+                paths.distance(source, leaf);
+                fail("source was removed");
+            } catch (RuntimeException e) {
+                // expected
+            }
+        }
+    }
+}
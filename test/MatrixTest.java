@@ -0,0 +1,108 @@
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+/** Bit-packed closures of Matrix against the int[][] Floyd Warshall's algorithm.
+ */
+public class MatrixTest {
+
+    /** Directed graph with m random arcs, loops and multiple arcs included. */
+    static GraphSnapshot randomDigraph(long seed, int n, int m) {
+        Random random = new Random(seed);
+        Graph graph = new Graph("d" + seed);
+        Vertex[] vertices = new Vertex[n];
+        for (int i = n - 1; i >= 0; i--) {
+            vertices[i] = graph.createVertex("v" + i);
+        }
+        for (int k = 0; k < m; k++) {
+            graph.createArc("x" + k, vertices[random.nextInt(n)], vertices[random.nextInt(n)], 1);
+        }
+        return graph.createSnapshot();
+    }
+
+    /** Closure by the int[][] algorithm, every pair with at least one arc counts as an arc. */
+    private static int[][] expectedClosure(Matrix matrix, GraphSnapshot snapshot) {
+        int[][] adjMatrix = snapshot.createAdjMatrix();
+        for (int[] row : adjMatrix) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = Math.min(row[j], 1);
+            }
+        }
+        matrix.transitiveClosureFloydWarshall(adjMatrix);
+        return adjMatrix;
+    }
+
+    private static void assertSameClosure(int[][] expected, long[][] rows) {
+        assertEquals(expected.length, rows.length);
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected.length; j++) {
+                boolean bit = (rows[i][j >>> 6] & 1L << j) != 0;
+                assertEquals(i + " -> " + j, expected[i][j] == 1, bit);
+            }
+        }
+    }
+
+    private static void assertAllClosures(GraphSnapshot snapshot, ForkJoinPool pool) {
+        Matrix matrix = new Matrix(snapshot, pool);
+        int[][] expected = expectedClosure(matrix, snapshot);
+        long[][] rows = matrix.createBitMatrix();
+        matrix.transitiveClosureFloydWarshall(rows);
+        assertSameClosure(expected, rows);
+        assertSameClosure(expected, matrix.transitiveClosureByCondensation());
+        assertSameClosure(expected, matrix.transitiveClosure());
+    }
+
+    @Test (timeout=20000)
+    public void closuresOfSmallGraphs() {
+        for (long seed = 1; seed <= 30; seed++) {
+            int n = 1 + (int) seed * 5; // one word and several words per row
+            assertAllClosures(randomDigraph(seed, n, (int) (seed % 3 + 1) * n / 2), ForkJoinPool.commonPool());
+        }
+    }
+
+    @Test (timeout=60000)
+    public void closuresOfLargeGraphsInPool() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            assertAllClosures(randomDigraph(31, 600, 700), pool);
+            assertAllClosures(randomDigraph(32, 600, 600 * 20), pool); // dense, goes through Floyd Warshall's algorithm
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test (timeout=20000)
+    public void multipleArcsAreArcs() {
+        // the int[][] algorithm takes only entries equal to 1, adjacency matrices count the arcs
+        Graph graph = new Graph("g");
+        Vertex c = graph.createVertex("c");
+        Vertex b = graph.createVertex("b");
+        Vertex a = graph.createVertex("a");
+        graph.createArc("a_b", a, b, 1);
+        graph.createArc("a_b2", a, b, 1);
+        graph.createArc("b_c", b, c, 1);
+        GraphSnapshot snapshot = graph.createSnapshot();
+        Matrix matrix = new Matrix(snapshot);
+        int[][] adjMatrix = snapshot.createAdjMatrix();
+        assertEquals(2, adjMatrix[0][1]);
+        matrix.transitiveClosureFloydWarshall(adjMatrix);
+        assertEquals(0, adjMatrix[0][2]);
+
+        long[][] closure = matrix.transitiveClosure();
+        assertSameClosure(new int[][]{{0, 1, 1}, {0, 0, 1}, {0, 0, 0}}, closure);
+        long[][] rows = matrix.createBitMatrix();
+        matrix.transitiveClosureFloydWarshall(rows);
+        assertSameClosure(new int[][]{{0, 1, 1}, {0, 0, 1}, {0, 0, 0}}, rows);
+    }
+
+    @Test (timeout=20000)
+    public void graphFromBitMatrixIsGraphFromAdjMatrix() {
+        GraphSnapshot snapshot = randomDigraph(33, 70, 100);
+        Matrix matrix = new Matrix(snapshot);
+        long[][] rows = matrix.transitiveClosure();
+        int[][] expected = expectedClosure(matrix, snapshot);
+        assertEquals(matrix.createGraphFromAdjMatrix(expected).toString(), matrix.createGraphFromBitMatrix(rows).toString());
+    }
+}
@@ -0,0 +1,163 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/** OffHeapGraph keeps the snapshot it was copied from, and can not be used after close.
+ */
+public class OffHeapGraphTest {
+
+    private interface Use {
+        void run(OffHeapGraph graph);
+    }
+
+    @Test (timeout=20000)
+    public void roundTripKeepsGraph() {
+        Graph graph = TestGraphs.simpleGraph(1, 300, 600, 100);
+        GraphSnapshot snapshot = graph.createSnapshot();
+        try (OffHeapGraph offHeap = new OffHeapGraph(graph)) {
+            assertEquals(snapshot.vertexCount(), offHeap.vertexCount());
+            assertEquals(snapshot.arcCount(), offHeap.arcCount());
+            for (int v = 0; v < snapshot.vertexCount(); v++) {
+                assertEquals(snapshot.offsets[v], offHeap.offset(v));
+                assertEquals(snapshot.heights[v], offHeap.height(v));
+                assertEquals(snapshot.vertexId(v), offHeap.vertexId(v));
+            }
+            for (int e = 0; e < snapshot.arcCount(); e++) {
+                assertEquals(snapshot.targets[e], offHeap.target(e));
+                assertEquals(snapshot.weights[e], offHeap.weight(e));
+                assertEquals(snapshot.arcSource(e), offHeap.arcSource(e));
+                assertEquals(snapshot.arcId(e), offHeap.arcId(e));
+            }
+            TestGraphs.assertSameSnapshot(snapshot, offHeap.toSnapshot());
+            TestGraphs.assertSameSnapshot(snapshot, offHeap.toGraph("copy").createSnapshot());
+            assertTrue(offHeap.offHeapBytes() > 4L * (snapshot.vertexCount() + 2 * snapshot.arcCount()));
+        }
+    }
+
+    @Test (timeout=20000)
+    public void indexOfFindsEveryId() {
+        Graph graph = TestGraphs.simpleGraph(2, 500, 100, 100);
+        graph.createVertex("\u00e4\u00f6 \u20ac");
+        graph.createVertex("");
+        GraphSnapshot snapshot = graph.createSnapshot();
+        try (OffHeapGraph offHeap = new OffHeapGraph("g", snapshot)) {
+            for (int v = 0; v < snapshot.vertexCount(); v++) {
+                assertEquals(v, offHeap.indexOf(snapshot.vertexId(v)));
+                Vertex view = offHeap.getVertex(v);
+                assertSame(view, offHeap.getVertex(v));
+                assertEquals(v, offHeap.indexOf(view));
+            }
+            assertEquals(-1, offHeap.indexOf("missing"));
+            assertEquals(-1, offHeap.indexOf("v500"));
+            try {
+                offHeap.indexOf(graph.first);
+                fail("vertex of another graph");
+            } catch (RuntimeException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test (timeout=20000)
+    public void customArcIdsAreKept() {
+        Graph graph = TestGraphs.simpleGraph(3, 50, 50, 100);
+        graph.createArc("custom", graph.first, graph.first.next, 7);
+        GraphSnapshot snapshot = graph.createSnapshot();
+        try (OffHeapGraph offHeap = new OffHeapGraph(graph)) {
+            List<String> ids = new ArrayList<>();
+            for (int e = 0; e < snapshot.arcCount(); e++) {
+                assertEquals(snapshot.arcId(e), offHeap.arcId(e));
+                assertEquals(snapshot.arcId(e), offHeap.getArc(e).id);
+                ids.add(offHeap.arcId(e));
+            }
+            assertTrue(ids.contains("custom"));
+            TestGraphs.assertSameSnapshot(snapshot, offHeap.toSnapshot());
+
+            int e = snapshot.offsets[0];
+            Arc view = offHeap.getArc(e);
+            offHeap.setWeight(e, 1234);
+            assertEquals(1234, offHeap.weight(e));
+            assertEquals(1234, view.weight);
+            assertEquals(1234, offHeap.toSnapshot().weights[e]);
+        }
+    }
+
+    @Test (timeout=20000)
+    public void everyMethodFailsAfterClose() {
+        OffHeapGraph offHeap = new OffHeapGraph(TestGraphs.simpleGraph(4, 20, 10, 100));
+        Vertex view = offHeap.getVertex(0);
+        offHeap.getArc(0);
+        offHeap.close();
+        assertTrue(offHeap.isClosed());
+        offHeap.close();
+        assertTrue(offHeap.toString().contains("closed"));
+        assertEquals("s4", offHeap.getId());
+        Use[] uses = {
+                OffHeapGraph::vertexCount, OffHeapGraph::arcCount, g -> g.offset(0), g -> g.target(0),
+                g -> g.weight(0), g -> g.setWeight(0, 1), g -> g.height(0), g -> g.vertexId(0),
+                g -> g.arcId(0), g -> g.arcSource(0), g -> g.indexOf("v0"), g -> g.indexOf(view),
+                g -> g.getVertex(0), g -> g.getVertex(1), g -> g.getArc(0), g -> g.getPath(new int[]{0}),
+                OffHeapGraph::toSnapshot, g -> g.toGraph("copy"), OffHeapGraph::offHeapBytes
+        };
+        for (int i = 0; i < uses.length; i++) {
+            try {
+                uses[i].run(offHeap);
+                fail("use " + i + " after close");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test (timeout=20000)
+    public void builderGivesSameGraph() {
+        GraphSnapshot snapshot = TestGraphs.simpleGraph(5, 100, 150, 100).createSnapshot();
+        OffHeapGraph.Builder builder = new OffHeapGraph.Builder("s5", snapshot.vertexCount(), snapshot.arcCount());
+        for (int v = 0; v < snapshot.vertexCount(); v++) {
+            assertEquals(v, builder.addVertex(snapshot.vertexId(v), snapshot.heights[v]));
+        }
+        for (int v = 0; v < snapshot.vertexCount(); v++) {
+            for (int e = snapshot.offsets[v]; e < snapshot.offsets[v + 1]; e++) {
+                assertEquals(e, builder.addArc(v, snapshot.targets[e], snapshot.weights[e]));
+            }
+        }
+        try (OffHeapGraph offHeap = builder.build()) {
+            TestGraphs.assertSameSnapshot(snapshot, offHeap.toSnapshot());
+        }
+    }
+
+    @Test (timeout=20000)
+    public void builderChecksOrderAndCounts() {
+        OffHeapGraph.Builder builder = new OffHeapGraph.Builder("b", 3, 2);
+        builder.addVertex("a", 0);
+        builder.addVertex("b", 0);
+        assertBuilderError(builder::build); // a vertex and the arcs are missing
+        builder.addVertex("c", 0);
+        assertBuilderError(() -> builder.addVertex("d", 0));
+        assertBuilderError(() -> builder.addArc(0, 3, 1));
+        assertBuilderError(() -> builder.addArc(3, 0, 1));
+        builder.addArc(1, 2, 1);
+        assertBuilderError(() -> builder.addArc(0, 2, 1));
+        assertBuilderError(builder::build);
+        builder.addArc(2, 0, 1);
+        assertBuilderError(() -> builder.addArc(2, 1, 1));
+        try (OffHeapGraph offHeap = builder.build()) {
+            assertEquals(0, offHeap.offset(1));
+            assertEquals(1, offHeap.offset(2));
+            assertEquals(2, offHeap.offset(3));
+            assertEquals("ab_c", offHeap.arcId(0));
+        }
+        assertBuilderError(builder::build);
+    }
+
+    private static void assertBuilderError(Runnable call) {
+        try {
+            call.run();
+            fail("no error");
+        } catch (RuntimeException e) {
+            assertFalse(e instanceof IllegalStateException);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+import static org.junit.Assert.*;
+
+import java.util.LinkedList;
+import org.junit.Test;
+
+/** PathCache answers, invalidation after changes of the graph, LRU bound and counters.
+ */
+public class PathCacheTest {
+
+    private static int length(LinkedList<Arc> path) {
+        int length = 0;
+        for (Arc arc : path) {
+            length += arc.weight;
+        }
+        return length;
+    }
+
+    @Test (timeout=20000)
+    public void cachedPathsAreShortestPaths() {
+        Graph graph = TestGraphs.randomGraph(1, 100, 200, 100);
+        GraphSnapshot snapshot = graph.createSnapshot();
+        ShortestPath shortestPath = new ShortestPath();
+        PathCache cache = new PathCache(graph, 1000);
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 50; i++) {
+                Vertex from = snapshot.getVertex(i * 7 % snapshot.vertexCount());
+                Vertex to = snapshot.getVertex(i * 13 % snapshot.vertexCount());
+                int expected = length(shortestPath.getPath(from, to, true, snapshot));
+                for (ShortestPath.Mode mode : ShortestPath.Mode.values()) {
+                    assertEquals(expected, cache.distance(from, to, mode));
+                    assertEquals(expected, length(cache.getPath(from, to, mode)));
+                }
+            }
+        }
+        // second round and getPath after distance are hits
+        assertEquals(100, cache.missCount());
+        assertEquals(300, cache.hitCount());
+        assertEquals(0.75, cache.hitRate(), 1e-9);
+        assertEquals(100, cache.size());
+    }
+
+    @Test (timeout=20000)
+    public void hitAndMissCounts() {
+        Graph graph = TestGraphs.randomGraph(2, 10, 10, 100);
+        Vertex a = graph.first;
+        Vertex b = graph.first.next;
+        PathCache cache = new PathCache(graph, 10);
+        assertEquals(0, cache.hitRate(), 0);
+        cache.distance(a, b, ShortestPath.Mode.DIJKSTRA);
+        cache.distance(a, b, ShortestPath.Mode.DIJKSTRA);
+        cache.getPath(a, b, ShortestPath.Mode.DIJKSTRA);
+        cache.distance(a, b, ShortestPath.Mode.BIDIRECTIONAL);
+        cache.distance(b, a, ShortestPath.Mode.DIJKSTRA);
+        assertEquals(3, cache.missCount());
+        assertEquals(2, cache.hitCount());
+        cache.clear();
+        assertEquals(0, cache.size());
+        cache.distance(a, b, ShortestPath.Mode.DIJKSTRA);
+        assertEquals("counters are kept by clear", 4, cache.missCount());
+    }
+
+    @Test (timeout=20000)
+    public void changeOfGraphInvalidatesEntries() {
+        Graph graph = TestGraphs.randomGraph(3, 50, 0, 100);
+        Vertex from = graph.first;
+        Vertex to = graph.first.next;
+        PathCache cache = new PathCache(graph, 10);
+        int before = length(new ShortestPath().getPath(from, to, true, graph.createSnapshot()));
+        assertEquals(before, cache.distance(from, to, ShortestPath.Mode.DIJKSTRA));
+
+        graph.createArc("short", from, to, 0);
+        assertEquals(0, cache.distance(from, to, ShortestPath.Mode.DIJKSTRA));
+        assertEquals(2, cache.missCount());
+        assertEquals(1, cache.size());
+
+        Vertex lonely = graph.createVertex("lonely");
+        assertEquals(0, cache.distance(from, to, ShortestPath.Mode.DIJKSTRA));
+        assertEquals("new vertex changes the version", 3, cache.missCount());
+        assertEquals(DijkstraSearch.UNREACHABLE, cache.distance(from, lonely, ShortestPath.Mode.DIJKSTRA));
+        assertEquals("unreachable result is cached", DijkstraSearch.UNREACHABLE, cache.distance(from, lonely, ShortestPath.Mode.DIJKSTRA));
+        assertEquals(1, cache.hitCount());
+        try {
+            cache.getPath(from, lonely, ShortestPath.Mode.DIJKSTRA);
+            fail("no path to a vertex without arcs");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("lonely"));
+        }
+    }
+
+    @Test (timeout=20000)
+    public void arcWeightChangeInvalidatesEntries() {
+        Graph graph = TestGraphs.randomGraph(6, 50, 50, 100);
+        GraphSnapshot snapshot = graph.createSnapshot();
+        PathCache cache = new PathCache(graph, 100);
+        ShortestPath shortestPath = new ShortestPath();
+        Vertex from = snapshot.getVertex(0);
+        for (int round = 0; round < 5; round++) {
+            // raise the first arc of the cached path, every second round also drop the first arc of every vertex to 0
+            Vertex to = snapshot.getVertex(10 + round);
+            LinkedList<Arc> path = cache.getPath(from, to, ShortestPath.Mode.BIDIRECTIONAL);
+            Arc arc = path.isEmpty() ? from.first : path.getFirst();
+            graph.setArcWeight(from, arc, arc.weight + 50);
+            for (Vertex v = graph.first; v != null; v = v.next) {
+                if (v.first != null && round % 2 == 0) graph.setArcWeight(v, v.first, 0);
+            }
+            int expected = length(shortestPath.getPath(from, to, true, graph.createSnapshot()));
+            assertEquals(expected, cache.distance(from, to, ShortestPath.Mode.BIDIRECTIONAL));
+            assertEquals(expected, length(cache.getPath(from, to, ShortestPath.Mode.BIDIRECTIONAL)));
+        }
+        assertEquals(10, cache.missCount());
+        assertEquals(5, cache.hitCount());
+    }
+
+    @Test (timeout=20000)
+    public void sizeStaysWithinCapacity() {
+        Graph graph = TestGraphs.randomGraph(4, 100, 100, 100);
+        GraphSnapshot snapshot = graph.createSnapshot();
+        for (int capacity : new int[]{1, 5, 16, 40}) {
+            PathCache cache = new PathCache(graph, capacity);
+            for (int i = 0; i < 300; i++) {
+                cache.distance(snapshot.getVertex(i % 100), snapshot.getVertex(i * 31 % 100), ShortestPath.Mode.DIJKSTRA);
+                assertTrue(cache.size() <= capacity);
+            }
+            assertEquals(capacity, cache.size());
+        }
+    }
+
+    @Test (timeout=20000)
+    public void leastRecentlyUsedEntryIsDropped() {
+        Graph graph = TestGraphs.randomGraph(5, 10, 10, 100);
+        Vertex a = graph.first;
+        Vertex b = a.next;
+        Vertex c = b.next;
+        PathCache cache = new PathCache(graph, 1);
+        cache.distance(a, b, ShortestPath.Mode.DIJKSTRA);
+        cache.distance(a, b, ShortestPath.Mode.DIJKSTRA);
+        cache.distance(a, c, ShortestPath.Mode.DIJKSTRA);
+        cache.distance(a, b, ShortestPath.Mode.DIJKSTRA);
+        assertEquals(3, cache.missCount());
+        assertEquals(1, cache.hitCount());
+    }
+}
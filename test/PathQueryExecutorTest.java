@@ -0,0 +1,97 @@
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/** Timeouts of PathQueryExecutor stop running searches.
+ */
+public class PathQueryExecutorTest {
+
+    private static final int RUNS = 10000; // far more than can run before the test times out
+
+    /** Run a timed out request on the only worker, then a small query must get the worker. */
+    private static void assertWorkerFreed(PathQueryExecutor.PathRequest<Integer> request, AtomicInteger runs) throws Exception {
+        GraphSnapshot snapshot = new RandomGraphGenerator(1).grid(300, 300);
+        try (PathQueryExecutor executor = new PathQueryExecutor(snapshot, 1, 4, 10_000)) {
+            CompletableFuture<Integer> slow = executor.submit(request, 1, TimeUnit.MILLISECONDS);
+            try {
+                slow.get();
+                fail("query was not timed out");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof TimeoutException);
+            }
+            assertEquals(Integer.valueOf(7), executor.submit(s -> 7).get(5, TimeUnit.SECONDS));
+            assertTrue("search did not stop, runs: " + runs.get(), runs.get() < RUNS);
+        }
+    }
+
+    @Test (timeout=20000)
+    public void timeoutStopsDijkstraSearch() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        ShortestPath shortestPath = new ShortestPath();
+        assertWorkerFreed(snapshot -> {
+            for (int i = 0; i < RUNS; i++) {
+                shortestPath.getPathLengths(i % snapshot.vertexCount(), snapshot);
+                runs.incrementAndGet();
+            }
+            return 0;
+        }, runs);
+    }
+
+    @Test (timeout=20000)
+    public void timeoutStopsBidirectionalSearch() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        assertWorkerFreed(snapshot -> {
+            BidirectionalSearch search = new BidirectionalSearch(snapshot);
+            for (int i = 0; i < RUNS; i++) {
+                search.run(0, snapshot.vertexCount() - 1);
+                runs.incrementAndGet();
+            }
+            return 0;
+        }, runs);
+    }
+
+    @Test (timeout=20000)
+    public void timeoutStopsHeightPath() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        HeightPath heightPath = new HeightPath();
+        assertWorkerFreed(snapshot -> {
+            for (int i = 0; i < RUNS; i++) {
+                HeightPath.Mode mode = i % 2 == 0 ? HeightPath.Mode.MINIMAX : HeightPath.Mode.ENUMERATION;
+                heightPath.getOptimizedPath(snapshot, snapshot.vertexId(0), snapshot.vertexId(snapshot.vertexCount() - 1), mode);
+                runs.incrementAndGet();
+            }
+            return 0;
+        }, runs);
+    }
+
+    @Test (timeout=20000)
+    public void queryWaitingInQueueIsNotRun() throws Exception {
+        GraphSnapshot snapshot = new RandomGraphGenerator(2).grid(10, 10);
+        AtomicInteger started = new AtomicInteger();
+        try (PathQueryExecutor executor = new PathQueryExecutor(snapshot, 1, 4, 10_000)) {
+            CompletableFuture<Integer> blocking = executor.submit(s -> {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    return -1;
+                }
+                return 1;
+            });
+            CompletableFuture<Integer> waiting = executor.submit(s -> started.incrementAndGet(), 1, TimeUnit.MILLISECONDS);
+            try {
+                waiting.get();
+                fail("query was not timed out");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof TimeoutException);
+            }
+            blocking.cancel(true);
+            assertEquals(Integer.valueOf(7), executor.submit(s -> 7).get(5, TimeUnit.SECONDS));
+            assertEquals(0, started.get());
+        }
+    }
+}
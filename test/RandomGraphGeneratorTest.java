@@ -0,0 +1,108 @@
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+/** Graphs of RandomGraphGenerator and Graph.createRandomSimpleGraph.
+ */
+public class RandomGraphGeneratorTest {
+
+    /** Every arc has an arc back, there are no loops and no multiple arcs. */
+    private static void assertSimpleUndirected(GraphSnapshot snapshot) {
+        Set<Long> pairs = new HashSet<>();
+        long n = snapshot.vertexCount();
+        for (int e = 0; e < snapshot.arcCount(); e++) {
+            int from = snapshot.arcSource(e);
+            int to = snapshot.targets[e];
+            assertNotEquals("loop", from, to);
+            assertTrue("multiple arc", pairs.add(from * n + to));
+        }
+        for (long pair : pairs) {
+            assertTrue("no arc back", pairs.contains(pair % n * n + pair / n));
+        }
+    }
+
+    private static void assertConnected(GraphSnapshot snapshot) {
+        DijkstraSearch search = new DijkstraSearch(snapshot);
+        search.run(0);
+        for (int v = 0; v < snapshot.vertexCount(); v++) {
+            assertTrue(search.isReached(v));
+        }
+    }
+
+    @Test (timeout=20000)
+    public void sameSeedGivesSameGraphInPool() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (long seed = 1; seed <= 3; seed++) {
+                RandomGraphGenerator alone = new RandomGraphGenerator(seed, 100, null);
+                RandomGraphGenerator parallel = new RandomGraphGenerator(seed, 100, pool);
+                TestGraphs.assertSameSnapshot(alone.simpleGraph(3000, 20000), parallel.simpleGraph(3000, 20000));
+                TestGraphs.assertSameSnapshot(alone.erdosRenyi(3000, 20000), parallel.erdosRenyi(3000, 20000));
+                TestGraphs.assertSameSnapshot(alone.grid(40, 50), parallel.grid(40, 50));
+                TestGraphs.assertSameSnapshot(alone.powerLaw(3000, 3), parallel.powerLaw(3000, 3));
+                TestGraphs.assertSameSnapshot(alone.simpleGraph(3000, 20000), new RandomGraphGenerator(seed).simpleGraph(3000, 20000));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        GraphSnapshot one = new RandomGraphGenerator(1).simpleGraph(100, 300);
+        GraphSnapshot two = new RandomGraphGenerator(2).simpleGraph(100, 300);
+        assertFalse(Arrays.equals(one.targets, two.targets));
+    }
+
+    @Test (timeout=20000)
+    public void modelsGiveSimpleGraphs() {
+        RandomGraphGenerator generator = new RandomGraphGenerator(4);
+        GraphSnapshot simple = generator.simpleGraph(2000, 5000);
+        assertEquals(2000, simple.vertexCount());
+        assertEquals(10000, simple.arcCount());
+        assertSimpleUndirected(simple);
+        assertConnected(simple);
+
+        GraphSnapshot erdosRenyi = generator.erdosRenyi(2000, 5000);
+        assertEquals(10000, erdosRenyi.arcCount());
+        assertSimpleUndirected(erdosRenyi);
+
+        GraphSnapshot grid = generator.grid(30, 40);
+        assertEquals(1200, grid.vertexCount());
+        assertEquals(2 * (29 * 40 + 30 * 39), grid.arcCount());
+        assertSimpleUndirected(grid);
+        assertConnected(grid);
+
+        GraphSnapshot powerLaw = generator.powerLaw(2000, 3);
+        assertEquals(2000, powerLaw.vertexCount());
+        assertSimpleUndirected(powerLaw);
+        assertConnected(powerLaw);
+    }
+
+    @Test (timeout=20000)
+    public void impossibleEdgeCountIsRejected() {
+        try {
+            new RandomGraphGenerator(5).simpleGraph(10, 8);
+            fail("tree needs 9 edges");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new RandomGraphGenerator(5).erdosRenyi(10, 46);
+            fail("10 vertices have only 45 pairs");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test (timeout=20000)
+    public void simpleGraphAboveOldLimit() {
+        Graph graph = new Graph("g");
+        graph.createRandomSimpleGraph(3000, 4500);
+        GraphSnapshot snapshot = graph.createSnapshot();
+        assertEquals(3000, snapshot.vertexCount());
+        assertEquals(9000, snapshot.arcCount());
+        assertSimpleUndirected(snapshot);
+        assertConnected(snapshot);
+    }
+}
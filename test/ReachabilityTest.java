@@ -0,0 +1,76 @@
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import org.junit.Test;
+
+/** Reachability queries against the transitive closure of Matrix.
+ */
+public class ReachabilityTest {
+
+    private static boolean bit(long[][] rows, int i, int j) {
+        return (rows[i][j >>> 6] & 1L << j) != 0;
+    }
+
+    private static void assertSameAsClosure(GraphSnapshot snapshot) {
+        long[][] closure = new Matrix(snapshot).transitiveClosure();
+        Reachability reachability = new Reachability(snapshot);
+        int n = snapshot.vertexCount();
+        Iterator<int[]> pairs = reachability.closure();
+        for (int i = 0; i < n; i++) {
+            int[] reachable = reachability.reachableFrom(i);
+            int next = 0;
+            for (int j = 0; j < n; j++) {
+                boolean expected = bit(closure, i, j);
+                assertEquals(i + " -> " + j, expected, reachability.reachable(i, j));
+                assertEquals(i + " -> " + j, expected, reachability.reachable(snapshot.getVertex(i), snapshot.getVertex(j)));
+                if (!expected) continue;
+                assertEquals(j, reachable[next++]);
+                assertTrue(pairs.hasNext());
+                assertArrayEquals(new int[]{i, j}, pairs.next());
+            }
+            assertEquals(next, reachable.length);
+        }
+        assertFalse(pairs.hasNext());
+    }
+
+    @Test (timeout=20000)
+    public void randomGraphsGiveClosure() {
+        for (long seed = 1; seed <= 30; seed++) {
+            int n = 1 + (int) seed * 4;
+            assertSameAsClosure(MatrixTest.randomDigraph(seed, n, (int) (seed % 4) * n / 2 + 1));
+        }
+    }
+
+    @Test (timeout=20000)
+    public void loopsAndSingleVertexComponents() {
+        // a -> b -> c -> b, d has a loop, e has no arcs, f -> a
+        Graph graph = new Graph("g");
+        Vertex f = graph.createVertex("f");
+        Vertex e = graph.createVertex("e");
+        Vertex d = graph.createVertex("d");
+        Vertex c = graph.createVertex("c");
+        Vertex b = graph.createVertex("b");
+        Vertex a = graph.createVertex("a");
+        graph.createArc("a_b", a, b, 1);
+        graph.createArc("b_c", b, c, 1);
+        graph.createArc("c_b", c, b, 1);
+        graph.createArc("d_d", d, d, 1);
+        graph.createArc("f_a", f, a, 1);
+        GraphSnapshot snapshot = graph.createSnapshot();
+        Reachability reachability = new Reachability(snapshot);
+        assertFalse(reachability.reachable(a, a));
+        assertTrue(reachability.reachable(b, b));
+        assertTrue(reachability.reachable(d, d));
+        assertFalse(reachability.reachable(e, e));
+        assertTrue(reachability.reachable(f, c));
+        assertFalse(reachability.reachable(c, a));
+        assertEquals(0, reachability.reachableFrom(snapshot.indexOf(e)).length);
+        assertArrayEquals(new int[]{snapshot.indexOf(d)}, reachability.reachableFrom(snapshot.indexOf(d)));
+        assertSameAsClosure(snapshot);
+    }
+
+    @Test (timeout=20000)
+    public void emptyGraphHasEmptyClosure() {
+        assertFalse(new Reachability(new Graph("empty")).closure().hasNext());
+    }
+}
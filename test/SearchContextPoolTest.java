@@ -0,0 +1,96 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+/** Queries of many threads on one snapshot give the results of sequential queries.
+ */
+public class SearchContextPoolTest {
+
+    private static final int THREADS = 4;
+
+    @Test (timeout=20000)
+    public void releasedContextIsReused() {
+        SearchContextPool<int[]> pool = new SearchContextPool<>(() -> new int[1]);
+        int[] first = pool.acquire();
+        int[] second = pool.acquire();
+        assertNotSame(first, second);
+        pool.release(first);
+        assertSame(first, pool.acquire());
+    }
+
+    @Test (timeout=60000)
+    public void concurrentQueriesGiveSequentialResults() throws Exception {
+        Graph graph = TestGraphs.randomGraph(1, 300, 900, 100);
+        GraphSnapshot snapshot = graph.createSnapshot();
+        ShortestPath shortestPath = new ShortestPath();
+        int[][] expected = new int[snapshot.vertexCount()][];
+        for (int from = 0; from < snapshot.vertexCount(); from++) {
+            expected[from] = shortestPath.getPathLengths(from, snapshot);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<int[][]>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t;
+                results.add(executor.submit(() -> {
+                    // every thread queries all vertices, each in its own order
+                    int[][] lengths = new int[snapshot.vertexCount()][];
+                    for (int i = 0; i < snapshot.vertexCount(); i++) {
+                        int from = (i * 7 + offset * 31) % snapshot.vertexCount();
+                        lengths[from] = shortestPath.getPathLengths(from, snapshot);
+                    }
+                    return lengths;
+                }));
+            }
+            for (Future<int[][]> result : results) {
+                int[][] lengths = result.get();
+                for (int from = 0; from < snapshot.vertexCount(); from++) {
+                    assertArrayEquals(expected[from], lengths[from]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test (timeout=60000)
+    public void concurrentPathQueriesGiveSequentialPaths() throws Exception {
+        Graph graph = TestGraphs.randomGraph(2, 300, 900, 100);
+        GraphSnapshot snapshot = graph.createSnapshot();
+        ShortestPath shortestPath = new ShortestPath();
+        int queries = 200;
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < queries; i++) {
+            Vertex from = snapshot.getVertex(i * 13 % snapshot.vertexCount());
+            Vertex to = snapshot.getVertex(i * 29 % snapshot.vertexCount());
+            expected.add(shortestPath.getPath(from, to, true, snapshot).toString());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    List<String> paths = new ArrayList<>();
+                    for (int i = 0; i < queries; i++) {
+                        Vertex from = snapshot.getVertex(i * 13 % snapshot.vertexCount());
+                        Vertex to = snapshot.getVertex(i * 29 % snapshot.vertexCount());
+                        paths.add(shortestPath.getPath(from, to, true, snapshot).toString());
+                    }
+                    return paths;
+                }));
+            }
+            for (Future<List<String>> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
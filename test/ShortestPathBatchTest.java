@@ -0,0 +1,100 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/** ShortestPathBatch against one getPath query per pair.
+ */
+public class ShortestPathBatchTest {
+
+    private static int length(LinkedList<Arc> path) {
+        int length = 0;
+        for (Arc arc : path) {
+            length += arc.weight;
+        }
+        return length;
+    }
+
+    /** Random vertices of the snapshot, every second one repeats an earlier one. */
+    private static List<Vertex> randomVertices(GraphSnapshot snapshot, Random random, int count) {
+        List<Vertex> vertices = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 1) vertices.add(vertices.get(random.nextInt(i)));
+            else vertices.add(snapshot.getVertex(random.nextInt(snapshot.vertexCount())));
+        }
+        return vertices;
+    }
+
+    @Test (timeout=20000)
+    public void manyToManyGivesPathLengths() {
+        ShortestPath shortestPath = new ShortestPath();
+        for (long seed = 1; seed <= 10; seed++) {
+            Graph graph = TestGraphs.randomGraph(seed, 80, 160, 100);
+            GraphSnapshot snapshot = graph.createSnapshot();
+            Random random = new Random(seed);
+            List<Vertex> sources = randomVertices(snapshot, random, 12);
+            List<Vertex> targets = randomVertices(snapshot, random, 9);
+            ShortestPathBatch.DistanceTable table = new ShortestPathBatch(snapshot).manyToMany(sources, targets, true);
+            assertEquals(sources.size(), table.rowCount());
+            assertEquals(targets.size(), table.columnCount());
+            for (int row = 0; row < sources.size(); row++) {
+                assertSame(sources.get(row), table.getSource(row));
+                for (int column = 0; column < targets.size(); column++) {
+                    assertSame(targets.get(column), table.getTarget(column));
+                    int expected = length(shortestPath.getPath(sources.get(row), targets.get(column), true, snapshot));
+                    assertEquals(expected, table.distance(row, column));
+                    LinkedList<Arc> path = table.getPath(row, column);
+                    assertEquals(expected, length(path));
+                    if (!path.isEmpty()) assertSame(targets.get(column), path.getLast().target);
+                }
+            }
+        }
+    }
+
+    @Test (timeout=20000)
+    public void distancesOfPairsGivePathLengths() {
+        ShortestPath shortestPath = new ShortestPath();
+        for (long seed = 11; seed <= 20; seed++) {
+            Graph graph = TestGraphs.randomGraph(seed, 80, 160, 100);
+            GraphSnapshot snapshot = graph.createSnapshot();
+            Random random = new Random(seed);
+            Vertex[] from = randomVertices(snapshot, random, 30).toArray(new Vertex[0]);
+            Vertex[] to = randomVertices(snapshot, random, 30).toArray(new Vertex[0]);
+            int[] distances = new ShortestPathBatch(snapshot).distances(from, to);
+            for (int i = 0; i < from.length; i++) {
+                assertEquals(length(shortestPath.getPath(from[i], to[i], true, snapshot)), distances[i]);
+            }
+        }
+    }
+
+    @Test (timeout=20000)
+    public void oneToManyReportsUnreachableVertex() {
+        Graph graph = TestGraphs.randomGraph(21, 30, 30, 100);
+        Vertex lonely = graph.createVertex("lonely");
+        ShortestPathBatch batch = new ShortestPathBatch(graph);
+        ShortestPathBatch.DistanceTable table = batch.oneToMany(lonely.next, List.of(lonely, lonely.next.next), false);
+        assertFalse(table.isReachable(0, 0));
+        assertEquals(DijkstraSearch.UNREACHABLE, table.distance(0, 0));
+        assertTrue(table.isReachable(0, 1));
+        try {
+            table.getPath(0, 1);
+            fail("paths were not saved");
+        } catch (RuntimeException e) {
+            // expected
+        }
+    }
+
+    @Test (timeout=20000)
+    public void pairsNeedSameLength() {
+        Graph graph = TestGraphs.randomGraph(22, 5, 5, 100);
+        try {
+            new ShortestPathBatch(graph).distances(new Vertex[]{graph.first}, new Vertex[0]);
+            fail("no error for pairs without end vertex");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
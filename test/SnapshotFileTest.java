@@ -0,0 +1,27 @@
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** SnapshotFile gives back the saved snapshot.
+ */
+public class SnapshotFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test (timeout=20000)
+    public void snapshotFileKeepsSnapshot() throws IOException {
+        Graph graph = TestGraphs.simpleGraph(2, 200, 300, 100);
+        GraphSnapshot snapshot = graph.createSnapshot();
+        SnapshotFile file = new SnapshotFile(folder.newFile("graph.bin").toPath());
+        file.save(snapshot);
+        TestGraphs.assertSameSnapshot(snapshot, file.load());
+
+        // arc ids that do not follow the default pattern are stored too
+        graph.createArc("\u00e4-special", graph.first, graph.first.next, 5);
+        GraphSnapshot withIds = graph.createSnapshot();
+        file.save(withIds);
+        TestGraphs.assertSameSnapshot(withIds, file.load());
+    }
+}
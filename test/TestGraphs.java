@@ -0,0 +1,162 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/** Seeded random graphs and checks shared by the tests.
+ */
+class TestGraphs {
+
+    static final int QUERIES = 40; // random queries per graph in the tests of search engines
+
+    /**
+     * Connected graph built through the methods of Graph: a random tree with
+     * arcs in both directions and m more arcs in one direction, so every
+     * vertex reaches every other one. Vertex ids are "v0".."v(n-1)".
+     *
+     * @param seed      seed of the random generator
+     * @param n         number of vertices
+     * @param m         number of arcs added to the tree, loops and multiple arcs included
+     * @param maxWeight arc weights are from 0 to maxWeight - 1
+     */
+    static Graph randomGraph(long seed, int n, int m, int maxWeight) {
+        Random random = new Random(seed);
+        Graph graph = new Graph("g" + seed);
+        Vertex[] vertices = new Vertex[n];
+        for (int i = n - 1; i >= 0; i--) {
+            vertices[i] = graph.createVertex("v" + i);
+            vertices[i].height = random.nextInt(1000) - 500;
+        }
+        for (int i = 1; i < n; i++) {
+            int parent = random.nextInt(i);
+            int weight = random.nextInt(maxWeight);
+            graph.createArc("a" + parent + "_" + i, vertices[parent], vertices[i], weight);
+            graph.createArc("a" + i + "_" + parent, vertices[i], vertices[parent], weight);
+        }
+        for (int k = 0; k < m; k++) {
+            int from = random.nextInt(n);
+            int to = random.nextInt(n);
+            graph.createArc("x" + k, vertices[from], vertices[to], random.nextInt(maxWeight));
+        }
+        return graph;
+    }
+
+    /**
+     * Graph without loops and multiple arcs: a random tree with arcs in both directions
+     * and m more arcs in one direction. Arc ids are "a" + from + "_" + to, heights are random.
+     *
+     * @param seed      seed of the random generator
+     * @param n         number of vertices
+     * @param m         number of arcs added to the tree
+     * @param maxWeight arc weights are from 0 to maxWeight - 1
+     */
+    static Graph simpleGraph(long seed, int n, int m, int maxWeight) {
+        Random random = new Random(seed);
+        Graph graph = new Graph("s" + seed);
+        Vertex[] vertices = new Vertex[n];
+        for (int i = n - 1; i >= 0; i--) {
+            vertices[i] = graph.createVertex("v" + i);
+            vertices[i].height = random.nextInt(1000) - 500;
+        }
+        Set<Long> pairs = new HashSet<>();
+        for (int i = 1; i < n; i++) {
+            int parent = random.nextInt(i);
+            int weight = random.nextInt(maxWeight);
+            addSimpleArc(graph, vertices, pairs, parent, i, weight);
+            addSimpleArc(graph, vertices, pairs, i, parent, weight);
+        }
+        for (int k = 0; k < m; ) {
+            int from = random.nextInt(n);
+            int to = random.nextInt(n);
+            if (from != to && addSimpleArc(graph, vertices, pairs, from, to, random.nextInt(maxWeight))) k++;
+        }
+        return graph;
+    }
+
+    /**
+     * [simpleGraph help method]
+     * Add the arc unless the pair already has one.
+     */
+    private static boolean addSimpleArc(Graph graph, Vertex[] vertices, Set<Long> pairs, int from, int to, int weight) {
+        if (!pairs.add((long) from * vertices.length + to)) return false;
+        graph.createArc("a" + vertices[from].id + "_" + vertices[to].id, vertices[from], vertices[to], weight);
+        return true;
+    }
+
+    /** Same vertices, arcs, ids, weights and heights in the same order. */
+    static void assertSameSnapshot(GraphSnapshot expected, GraphSnapshot actual) {
+        assertEquals(expected.vertexCount(), actual.vertexCount());
+        assertArrayEquals(expected.offsets, actual.offsets);
+        assertArrayEquals(expected.targets, actual.targets);
+        assertArrayEquals(expected.weights, actual.weights);
+        assertArrayEquals(expected.heights, actual.heights);
+        for (int v = 0; v < expected.vertexCount(); v++) {
+            assertEquals(expected.getVertex(v).id, actual.getVertex(v).id);
+            assertEquals(v, actual.indexOf(expected.getVertex(v).id));
+        }
+        for (int e = 0; e < expected.arcCount(); e++) {
+            assertEquals(expected.getArc(e).id, actual.getArc(e).id);
+        }
+    }
+
+    /** Path must be a chain of arcs from source to target with the given length. */
+    static void assertPath(GraphSnapshot snapshot, int source, int target, int distance, int[] path) {
+        int vertex = source;
+        long length = 0;
+        for (int e : path) {
+            int from = -1;
+            for (int v = 0; v < snapshot.vertexCount() && from < 0; v++) {
+                if (snapshot.offsets[v] <= e && e < snapshot.offsets[v + 1]) from = v;
+            }
+            assertEquals("arc source", vertex, from);
+            length += snapshot.weights[e];
+            vertex = snapshot.targets[e];
+        }
+        assertEquals("path end", target, vertex);
+        assertEquals("path length", distance, length);
+    }
+
+    /** Path must be a chain of arcs from source to target with the given length and amount of arcs. */
+    static void assertPath(GraphSnapshot snapshot, int source, int target, int distance, int hops, int[] path) {
+        assertEquals("hops", hops, path.length);
+        assertPath(snapshot, source, target, distance, path);
+    }
+
+    /** Generated graphs of every model for the tests of search engines. */
+    static List<GraphSnapshot> searchGraphs(int maxWeight) {
+        List<GraphSnapshot> graphs = new ArrayList<>();
+        for (long seed = 1; seed <= 3; seed++) {
+            RandomGraphGenerator generator = new RandomGraphGenerator(seed, maxWeight, null);
+            graphs.add(generator.simpleGraph(300, 900));
+            graphs.add(generator.erdosRenyi(300, 450));
+            graphs.add(generator.grid(15, 20));
+            graphs.add(generator.powerLaw(300, 2));
+            graphs.add(generator.simpleGraph(300, 900).reverse()); // its reverse is the snapshot it came from
+        }
+        return graphs;
+    }
+
+    /** Dijkstra searches from the sources, one per query. */
+    static DijkstraSearch[] dijkstraSearches(GraphSnapshot snapshot, int[] sources) {
+        DijkstraSearch[] searches = new DijkstraSearch[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            searches[i] = new DijkstraSearch(snapshot);
+            searches[i].run(sources[i]);
+        }
+        return searches;
+    }
+
+    /** QUERIES seeded random vertices of the snapshot. */
+    static int[] randomVertices(GraphSnapshot snapshot, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] vertices = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            vertices[i] = random.nextInt(snapshot.vertexCount());
+        }
+        return vertices;
+    }
+}